@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.goterl.lazysodium.LazySodiumAndroid
+import com.goterl.lazysodium.SodiumAndroid
+import com.solanamobile.seedvault.Bip32DerivationPath
+import com.solanamobile.seedvault.BipLevel
+import com.solanamobile.seedvaultimpl.model.SeedDetails
+import org.junit.Assert.assertArrayEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.nio.charset.StandardCharsets
+
+// Known answers computed with an independent implementation of BIP32-Ed25519 (Khovratovich & Law),
+// for the seed 00 01 02 .. 3f
+@RunWith(AndroidJUnit4::class)
+class Ed25519Bip32UseCaseTest {
+    private val useCase = Ed25519Bip32UseCase(LazySodiumAndroid(SodiumAndroid(), StandardCharsets.UTF_8))
+
+    private val seed = SeedDetails(
+        seed = ByteArray(SeedDetails.SEED_LENGTH) { it.toByte() },
+        seedPhraseWordIndices = List(SeedDetails.SEED_PHRASE_WORD_COUNT_SHORT) { 0 },
+        pin = "1234"
+    )
+
+    private fun path(vararg levels: Pair<Int, Boolean>): Bip32DerivationPath {
+        return Bip32DerivationPath.newBuilder().apply {
+            levels.forEach { (index, hardened) -> appendLevel(BipLevel(index, hardened)) }
+        }.build()
+    }
+
+    private fun hex(s: String): ByteArray {
+        return ByteArray(s.length / 2) { s.substring(2 * it, 2 * it + 2).toInt(16).toByte() }
+    }
+
+    @Test
+    fun masterKey() {
+        assertArrayEquals(
+            hex("78c6fea3905478df64979029b7c59fcd8227e1c1f8ddb1a85ef779c4d0da7250" +
+                "eb473adff635018770de7d2fa416c43701424dcdc04b6b7f0bd6f83085ed4489"),
+            useCase.derivePrivateKey(seed, path()))
+        assertArrayEquals(
+            hex("1da32e4e1006db0e34a34de26e0527d407e3f917597c7d34c1c5007905860fe3"),
+            useCase.derivePublicKey(seed, path()))
+    }
+
+    @Test
+    fun hardenedDerivation() {
+        val path = path(44 to true, 501 to true, 0 to true, 0 to true)
+        assertArrayEquals(
+            hex("b849bebe4b31f70133008d3f010fb6977f26efc13d8017628cecd7dfe1da7250" +
+                "a0dcb09cb893a07f39ff395d1ade166013db6c5ce6b185c5e6197b2599374440"),
+            useCase.derivePrivateKey(seed, path))
+        assertArrayEquals(
+            hex("542e12ec7e47fac8ee5eedcba5f9e8ab18b60424fe53e7f682a73cb6d19bb174"),
+            useCase.derivePublicKey(seed, path))
+    }
+
+    @Test
+    fun nonHardenedDerivation() {
+        // Each level's chain code feeds the next, so this also checks the child chain codes
+        val path = path(44 to true, 501 to true, 0 to true, 0 to false, 7 to false)
+        assertArrayEquals(
+            hex("980f5564ad01e0444bf627ed4aa34772c2bc3d11f732a6b7673e2210e7da7250" +
+                "2d5d6e96678ac6b217bd3e0aedf244955b0b0c91451ad336d9b10a70bfb45d07"),
+            useCase.derivePrivateKey(seed, path))
+        assertArrayEquals(
+            hex("2334094f2b5b50c9f17466b3baabd2ea5bbddeb4812674b404b5ffb7c967bdeb"),
+            useCase.derivePublicKey(seed, path))
+    }
+
+    @Test
+    fun extendedPublicKeyDerivation() {
+        val account = useCase.derivePublicKeyPartialDerivation(seed, path(44 to true, 501 to true, 0 to true))
+        try {
+            val xpub = useCase.toExtendedPublicKey(account)
+            try {
+                assertArrayEquals(
+                    hex("2334094f2b5b50c9f17466b3baabd2ea5bbddeb4812674b404b5ffb7c967bdeb"),
+                    useCase.derivePublicKey(seed, path(0 to false, 7 to false), xpub))
+            } finally {
+                xpub.zeroize()
+            }
+        } finally {
+            account.zeroize()
+        }
+    }
+}
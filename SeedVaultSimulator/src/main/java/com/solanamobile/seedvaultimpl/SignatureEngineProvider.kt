@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl
+
+import android.content.Context
+import android.util.Log
+import com.solanamobile.seedvaultimpl.usecase.BouncyCastleSignatureEngine
+import com.solanamobile.seedvaultimpl.usecase.SignatureEngine
+import com.solanamobile.seedvaultimpl.usecase.SodiumSignatureEngine
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.android.qualifiers.ApplicationContext
+import dagger.hilt.components.SingletonComponent
+import javax.inject.Provider
+import javax.inject.Singleton
+
+@Module
+@InstallIn(SingletonComponent::class)
+class SignatureEngineProvider {
+    @Provides
+    @Singleton
+    fun provideSignatureEngine(
+        @ApplicationContext context: Context,
+        sodiumSignatureEngine: Provider<SodiumSignatureEngine>,
+        bouncyCastleSignatureEngine: Provider<BouncyCastleSignatureEngine>
+    ): SignatureEngine {
+        val engine = when (val name = context.getString(R.string.signature_engine)) {
+            SIGNATURE_ENGINE_LIBSODIUM -> sodiumSignatureEngine.get()
+            SIGNATURE_ENGINE_BOUNCYCASTLE -> bouncyCastleSignatureEngine.get()
+            else -> throw IllegalStateException("Unknown signature engine '$name'")
+        }
+        Log.d(TAG, "Using signature engine ${engine::class.simpleName}")
+        return engine
+    }
+
+    companion object {
+        private val TAG = SignatureEngineProvider::class.simpleName
+
+        private const val SIGNATURE_ENGINE_LIBSODIUM = "libsodium"
+        private const val SIGNATURE_ENGINE_BOUNCYCASTLE = "bouncycastle"
+    }
+}
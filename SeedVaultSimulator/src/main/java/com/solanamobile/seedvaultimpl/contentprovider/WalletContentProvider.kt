@@ -18,7 +18,7 @@ import com.solanamobile.seedvault.WalletContractV1
 import com.solanamobile.seedvault.WalletContractV1.AUTHORITY_WALLET_PROVIDER
 import com.solanamobile.seedvaultimpl.data.SeedRepository
 import com.solanamobile.seedvaultimpl.model.Authorization
-import com.solanamobile.seedvaultimpl.usecase.Base58EncodeUseCase
+import com.solanamobile.seedvaultimpl.usecase.AccountDiscoveryUseCase
 import com.solanamobile.seedvaultimpl.usecase.RequestLimitsUseCase
 import com.solanamobile.seedvaultimpl.usecase.normalize
 import com.solanamobile.seedvaultimpl.usecase.toBip32DerivationPath
@@ -37,9 +37,11 @@ class WalletContentProvider : ContentProvider() {
     @InstallIn(SingletonComponent::class)
     interface WalletContentProviderHiltEntryPoint {
         fun provideSeedRepository(): SeedRepository
+        fun provideAccountDiscoveryUseCase(): AccountDiscoveryUseCase
     }
 
     private lateinit var seedRepository: SeedRepository
+    private lateinit var accountDiscoveryUseCase: AccountDiscoveryUseCase
 
     override fun onCreate(): Boolean {
         // NOTE: this occurs before the Application instance is created, so we can't do our
@@ -70,6 +72,8 @@ class WalletContentProvider : ContentProvider() {
                 callResolveBip32DerivationPath(arg, extras)
             RESET_SEED_VAULT_SIMULATOR_METHOD ->
                 callResetSeedVaultSimulator()
+            DISCOVER_ACCOUNTS_METHOD ->
+                callDiscoverAccounts(extras)
             else -> {
                 Log.w(TAG, "Method $method is not defined")
                 throw IllegalArgumentException("Method $method is not defined")
@@ -106,6 +110,43 @@ class WalletContentProvider : ContentProvider() {
         return null
     }
 
+    // NOTE: this is a Seed Vault simulator extension; it is not part of WalletContractV1
+    private fun callDiscoverAccounts(extras: Bundle?): Bundle {
+        require(extras != null) { "extras must be defined" }
+        val authToken = extras.getLong(WalletContractV1.EXTRA_AUTH_TOKEN, -1)
+        val startIndex = extras.getInt(EXTRA_DISCOVERY_START_INDEX, 0)
+        val count = extras.getInt(EXTRA_DISCOVERY_INDEX_COUNT, -1)
+        val gapLimit = extras.getInt(EXTRA_DISCOVERY_GAP_LIMIT, -1)
+        val batchSize = extras.getInt(EXTRA_DISCOVERY_BATCH_SIZE, AccountDiscoveryUseCase.DEFAULT_BATCH_SIZE)
+        val pathTemplates = extras.getStringArray(EXTRA_DISCOVERY_PATH_TEMPLATES)?.asList()
+        val uid = requireContext().packageManager.getPackageUid(callingPackage!!, 0)
+
+        val result = runBlocking {
+            seedRepository.delayUntilDataValid()
+
+            val authKey = SeedRepository.AuthorizationKey(uid, authToken)
+            val seed = seedRepository.authorizations.value[authKey]
+                ?: throw IllegalArgumentException("authToken $authToken is not a valid auth token")
+            val purpose = seed.authorizations.first { auth -> auth.uid == uid && auth.authToken == authToken }.purpose
+
+            // Progress is reported as a notification on a descendant of the progress Uri whose
+            // last path segment is the number of indices scanned so far
+            val progressUri = ContentUris.withAppendedId(ACCOUNT_DISCOVERY_PROGRESS_CONTENT_URI, authToken)
+            accountDiscoveryUseCase.discover(
+                seed, purpose, pathTemplates, startIndex, count, gapLimit, batchSize
+            ) { scannedCount ->
+                requireContext().contentResolver.notifyChange(
+                    ContentUris.withAppendedId(progressUri, scannedCount.toLong()), null, NOTIFY_UPDATE)
+            }
+        }
+
+        val bundle = Bundle()
+        bundle.putInt(EXTRA_DISCOVERY_NEXT_INDEX, result.nextIndex)
+        bundle.putInt(EXTRA_DISCOVERY_LAST_USED_INDEX, result.lastUsedIndex ?: -1)
+        bundle.putInt(EXTRA_DISCOVERY_NUM_ACCOUNTS_ADDED, result.numAccountsAdded)
+        return bundle
+    }
+
     override fun query(
         uri: Uri,
         projection: Array<out String>?,
@@ -307,7 +348,7 @@ class WalletContentProvider : ContentProvider() {
                     account.id,                                             // WalletContractV1.ACCOUNTS_ACCOUNT_ID
                     account.bip32DerivationPathUri.toString(),              // WalletContractV1.ACCOUNTS_BIP32_DERIVATION_PATH
                     account.publicKey,                                      // WalletContractV1.ACCOUNTS_PUBLIC_KEY_RAW
-                    Base58EncodeUseCase(account.publicKey),                 // WalletContractV1.ACCOUNTS_PUBLIC_KEY_ENCODED
+                    account.publicKeyEncoded,                               // WalletContractV1.ACCOUNTS_PUBLIC_KEY_ENCODED
                     account.name ?: "",                                     // WalletContractV1.ACCOUNTS_ACCOUNT_NAME
                     if (account.isUserWallet) 1.toShort() else 0.toShort(), // WalletContractV1.ACCOUNTS_ACCOUNT_IS_USER_WALLET
                     if (account.isValid) 1.toShort() else 0.toShort()       // WalletContractV1.ACCOUNTS_ACCOUNT_IS_VALID
@@ -346,6 +387,9 @@ class WalletContentProvider : ContentProvider() {
                 RequestLimitsUseCase.MAX_SIGNING_REQUESTS.toShort(),        // WalletContractV1.IMPLEMENTATION_LIMITS_MAX_SIGNING_REQUESTS
                 RequestLimitsUseCase.MAX_REQUESTED_SIGNATURES.toShort(),    // WalletContractV1.IMPLEMENTATION_LIMITS_MAX_REQUESTED_SIGNATURES
                 RequestLimitsUseCase.MAX_REQUESTED_PUBLIC_KEYS.toShort(),   // WalletContractV1.IMPLEMENTATION_LIMITS_MAX_REQUESTED_PUBLIC_KEYS
+                WalletContractV1.FEATURE_DERIVATION_PATH_RANGES or
+                        WalletContractV1.FEATURE_SIGNING_REQUEST_BATCH or
+                        WalletContractV1.FEATURE_SIGNING_PAYLOADS_URI,      // WalletContractV1.IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES
             )
 
             if ((purposeAsEnum == null || p == purposeAsEnum)
@@ -518,6 +562,8 @@ class WalletContentProvider : ContentProvider() {
             val didInitialization = synchronized(this::seedRepository) {
                 if (!this::seedRepository.isInitialized) {
                     val hiltEntryPoint = EntryPointAccessors.fromApplication(requireContext().applicationContext, WalletContentProviderHiltEntryPoint::class.java)
+                    // seedRepository is the double-checked field, so it must be assigned last
+                    accountDiscoveryUseCase = hiltEntryPoint.provideAccountDiscoveryUseCase()
                     seedRepository = hiltEntryPoint.provideSeedRepository()
                     true
                 } else {
@@ -591,7 +637,7 @@ class WalletContentProvider : ContentProvider() {
                                     } ?: WalletContractV1.ACCOUNTS_CONTENT_URI
                                 )
                             SeedRepository.ChangeNotification.Type.DELETE ->
-                                throw AssertionError("Accounts are not expected to be deleted")
+                                listOf(WalletContractV1.ACCOUNTS_CONTENT_URI)
                         }
                 }
 
@@ -641,5 +687,20 @@ class WalletContentProvider : ContentProvider() {
         }
 
         const val RESET_SEED_VAULT_SIMULATOR_METHOD = "ResetSeedVaultSimulator" // NOTE: should not be implemented by real Seed Vault implementations!
+
+        // Seed Vault simulator account discovery extension. Requires EXTRA_AUTH_TOKEN and
+        // EXTRA_DISCOVERY_INDEX_COUNT and EXTRA_DISCOVERY_GAP_LIMIT; the remaining extras are
+        // optional.
+        const val DISCOVER_ACCOUNTS_METHOD = "DiscoverAccounts"
+        const val EXTRA_DISCOVERY_PATH_TEMPLATES = "DiscoveryPathTemplates" // String[], e.g. "X'/0'"
+        const val EXTRA_DISCOVERY_START_INDEX = "DiscoveryStartIndex" // int, default 0
+        const val EXTRA_DISCOVERY_INDEX_COUNT = "DiscoveryIndexCount" // int
+        const val EXTRA_DISCOVERY_GAP_LIMIT = "DiscoveryGapLimit" // int
+        const val EXTRA_DISCOVERY_BATCH_SIZE = "DiscoveryBatchSize" // int
+        const val EXTRA_DISCOVERY_NEXT_INDEX = "DiscoveryNextIndex" // int, result
+        const val EXTRA_DISCOVERY_LAST_USED_INDEX = "DiscoveryLastUsedIndex" // int, result; -1 if none
+        const val EXTRA_DISCOVERY_NUM_ACCOUNTS_ADDED = "DiscoveryNumAccountsAdded" // int, result
+        val ACCOUNT_DISCOVERY_PROGRESS_CONTENT_URI: Uri =
+            Uri.withAppendedPath(WalletContractV1.WALLET_PROVIDER_CONTENT_URI_BASE, "discoveryprogress")
     }
 }
\ No newline at end of file
@@ -7,11 +7,13 @@ package com.solanamobile.seedvaultimpl.data
 import android.content.Context
 import android.net.Uri
 import android.util.Log
+import com.solanamobile.seedvaultimpl.R
 import com.solanamobile.seedvaultimpl.data.proto.*
 import com.solanamobile.seedvaultimpl.model.Account
 import com.solanamobile.seedvaultimpl.model.Authorization
 import com.solanamobile.seedvaultimpl.model.SeedDetails
 import com.solanamobile.seedvaultimpl.model.Seed
+import com.solanamobile.seedvaultimpl.usecase.Base58EncodeUseCase
 import com.google.protobuf.ByteString
 import com.solanamobile.seedvault.WalletContractV1
 import com.solanamobile.seedvaultimpl.data.proto.seedCollectionDataStore
@@ -23,6 +25,7 @@ import kotlinx.coroutines.CoroutineStart
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.sync.Mutex
@@ -30,6 +33,8 @@ import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
 import kotlinx.coroutines.withTimeout
 import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
 
 typealias SeedIdMap = Map<Long, Seed> // maps from seed ID to Seed
 typealias SeedAuthorizationMap = Map<SeedRepository.AuthorizationKey, Seed> // maps from Authorization to Seed
@@ -49,6 +54,7 @@ class SeedRepository @Inject constructor(
         private const val FIRST_ACCOUNT_ID = 7000L
 
         private const val CHANGE_PROPAGATION_TIMEOUT_MS = 2000L
+        private const val LAST_USE_WRITE_DELAY_MS = 5000L
     }
 
     data class AuthorizationKey(
@@ -71,6 +77,17 @@ class SeedRepository @Inject constructor(
     private var nextAuthToken = FIRST_AUTH_TOKEN
     private var nextAccountId = FIRST_ACCOUNT_ID
 
+    val maxKnownAccountsPerSeed: Int by lazy {
+        context.resources.getInteger(R.integer.max_known_accounts_per_seed)
+    }
+
+    // Maps from account ID to the time (in ms since the epoch) it was last used, for uses not yet
+    // written to the repository. These are written with the next commit that touches the owning
+    // seed's known accounts, or else by a background commit LAST_USE_WRITE_DELAY_MS after the first
+    // unwritten use, rather than costing a commit per use.
+    private val pendingAccountLastUse = ConcurrentHashMap<Long, Long>()
+    private val lastUseWriteScheduled = AtomicBoolean(false)
+
     private val seedCollection: StateFlow<SeedCollection> =
         context.seedCollectionDataStore.data.catch { e ->
             if (e is IOException) {
@@ -114,7 +131,9 @@ class SeedRepository @Inject constructor(
                 Account(
                     kae.accountId, Authorization.Purpose.entries[kae.purpose],
                     Uri.parse(kae.bip32Uri), kae.publicKey.toByteArray(), kae.name.ifEmpty { null },
-                    kae.isUserWallet, kae.isValid
+                    kae.isUserWallet, kae.isValid,
+                    // Entries written before encoded public keys were persisted are encoded on load
+                    kae.publicKeyEncoded.ifEmpty { Base58EncodeUseCase(kae.publicKey.toByteArray()) }
                 )
             }
             sr.seedId to Seed(sr.seedId, details, authorizations, accounts)
@@ -390,66 +409,104 @@ class SeedRepository @Inject constructor(
 
     @WalletContractV1.AccountId
     suspend fun addKnownAccountForSeed(id: Long, account: Account): Long {
-        require(account.id == Account.INVALID_ACCOUNT_ID) { "Account ID must be invalid" }
-        Log.d(TAG, "ENTER addKnownAccountForSeed")
+        return addKnownAccountsForSeed(id, listOf(account)).single()
+    }
 
-        @WalletContractV1.AccountId val accountId: Long
+    // Adds all accounts with a single repository commit. Accounts whose BIP32 path and purpose are
+    // already known for this seed are not changed; the existing account ID is returned for them.
+    suspend fun addKnownAccountsForSeed(id: Long, accounts: List<Account>): List<Long> {
+        require(accounts.all { account -> account.id == Account.INVALID_ACCOUNT_ID }) { "Account IDs must be invalid" }
+        Log.d(TAG, "ENTER addKnownAccountsForSeed: ${accounts.size} accounts")
+
+        if (accounts.isEmpty()) {
+            return listOf()
+        }
+
+        val accountIds = LongArray(accounts.size)
 
         // NOTE: we can't rely on the incoming coroutine context to remain active for the entire
         // duration of validating this action and operating on the repository. As such, switch to
         // the repository owner context immediately, to ensure that this action will complete, even
         // in the event of cancellation of the originating context.
         withContext(repositoryOwnerScope.coroutineContext) {
-            val newKnownAccountEntryBuilder = KnownAccountEntry.newBuilder().apply {
-                purpose = account.purpose.ordinal
-                bip32Uri = account.bip32DerivationPathUri.toString()
-                publicKey = ByteString.copyFrom(account.publicKey)
-                if (account.name != null) {
-                    name = account.name
-                }
-                isUserWallet = account.isUserWallet
-                isValid = account.isValid
-            }
-
             val updateCompleteJob: Job
+            val now = System.currentTimeMillis()
+            var evictedAccountIds: List<Long> = listOf()
+            val writtenLastUse = HashMap<Long, Long>()
             mutex.withLock {
-                var assignedAccountId = nextAccountId
-                newKnownAccountEntryBuilder.accountId = nextAccountId
+                // A single new account is notified individually; it will be assigned nextAccountId
                 val changeNotification = ChangeNotification(
                     ChangeNotification.Category.ACCOUNT,
                     ChangeNotification.Type.CREATE,
-                    assignedAccountId
+                    if (accounts.size == 1) nextAccountId else null
                 )
-
                 updateCompleteJob = updateSeedCollectionDataStore(changeNotification) {
                     val i = it.seedsList.indexOfFirst { sr -> sr.seedId == id }
                     require(i != -1) { "Seed repository does not contain an entry for seed $id" }
-                    val bip32Uri = account.bip32DerivationPathUri.toString()
-                    val existingKnownAccountEntry =
-                        it.seedsList[i].knownAccountsList.firstOrNull { kae ->
-                            kae.bip32Uri == bip32Uri && kae.purpose == account.purpose.ordinal
+                    val knownAccountIds = it.seedsList[i].knownAccountsList.associateTo(HashMap()) { kae ->
+                        (kae.bip32Uri to kae.purpose) to kae.accountId
+                    }
+                    var nextAccountId = this@SeedRepository.nextAccountId
+                    val newSeedRecordBuilder = it.seedsList[i].toBuilder()
+                    accounts.forEachIndexed { j, account ->
+                        val bip32Uri = account.bip32DerivationPathUri.toString()
+                        val key = bip32Uri to account.purpose.ordinal
+                        val existingAccountId = knownAccountIds[key]
+                        if (existingAccountId != null) {
+                            // Bip32 path is already known for this seed; don't change anything
+                            accountIds[j] = existingAccountId
+                            markKnownAccountsUsed(listOf(existingAccountId))
+                            return@forEachIndexed
                         }
-                    if (existingKnownAccountEntry != null) {
-                        // Bip32 path is already known for this seed; don't change anything
-                        assignedAccountId = existingKnownAccountEntry.accountId
+                        val accountId = nextAccountId++
+                        knownAccountIds[key] = accountId
+                        accountIds[j] = accountId
+                        newSeedRecordBuilder.addKnownAccounts(KnownAccountEntry.newBuilder().apply {
+                            this.accountId = accountId
+                            purpose = account.purpose.ordinal
+                            this.bip32Uri = bip32Uri
+                            publicKey = ByteString.copyFrom(account.publicKey)
+                            publicKeyEncoded = account.publicKeyEncoded
+                            if (account.name != null) {
+                                name = account.name
+                            }
+                            isUserWallet = account.isUserWallet
+                            isValid = account.isValid
+                            lastUsedMs = now
+                        })
+                    }
+                    if (nextAccountId == this@SeedRepository.nextAccountId) {
+                        // All accounts are already known for this seed; don't change anything
                         return@updateSeedCollectionDataStore it
                     }
-                    val newSeedRecordBuilder =
-                        it.seedsList[i].toBuilder().addKnownAccounts(newKnownAccountEntryBuilder)
+                    evictedAccountIds = newSeedRecordBuilder.writeLastUseAndEvictKnownAccounts(writtenLastUse)
+                    this@SeedRepository.nextAccountId = nextAccountId
                     it.toBuilder().setSeeds(i, newSeedRecordBuilder).apply {
-                        nextAccountId = ++this@SeedRepository.nextAccountId
+                        this.nextAccountId = nextAccountId
                     }.build()
                 }
-
-                accountId = assignedAccountId
+                clearPendingLastUse(writtenLastUse)
             }
 
             updateCompleteJob.join()
+            notifyKnownAccountsEvicted(id, evictedAccountIds)
         }
 
-        Log.d(TAG, "EXIT addKnownAccountForSeed")
+        Log.d(TAG, "EXIT addKnownAccountsForSeed")
+
+        return accountIds.asList()
+    }
 
-        return accountId
+    // Adds all accounts with a single repository commit, without waiting for the commit to
+    // complete. Failures are logged, since there is no caller left to report them to.
+    fun addKnownAccountsForSeedInBackground(id: Long, accounts: List<Account>): Job {
+        return repositoryOwnerScope.launch {
+            try {
+                addKnownAccountsForSeed(id, accounts)
+            } catch (e: IllegalArgumentException) {
+                Log.e(TAG, "Failed adding ${accounts.size} known accounts for seed $id", e)
+            }
+        }
     }
 
     suspend fun removeAllKnownAccountForSeed(id: Long) {
@@ -494,6 +551,7 @@ class SeedRepository @Inject constructor(
                 purpose = account.purpose.ordinal
                 bip32Uri = account.bip32DerivationPathUri.toString()
                 publicKey = ByteString.copyFrom(account.publicKey)
+                publicKeyEncoded = account.publicKeyEncoded
                 if (account.name != null) {
                     name = account.name
                 }
@@ -505,6 +563,7 @@ class SeedRepository @Inject constructor(
             val changeNotification = ChangeNotification(
                 ChangeNotification.Category.ACCOUNT, ChangeNotification.Type.UPDATE, account.id
             )
+            val writtenLastUse = HashMap<Long, Long>()
             mutex.withLock {
                 updateCompleteJob = updateSeedCollectionDataStore(changeNotification) {
                     val i = it.seedsList.indexOfFirst { sr -> sr.seedId == id }
@@ -512,10 +571,20 @@ class SeedRepository @Inject constructor(
                     val j =
                         it.seedsList[i].knownAccountsList.indexOfFirst { kae -> kae.accountId == account.id }
                     require(j != -1) { "Seed repository does not contain an entry for account ${account.id} in seed $id" }
+                    writtenLastUse.clear()
+                    val lastUse = pendingAccountLastUse[account.id]
+                    if (lastUse != null) {
+                        writtenLastUse[account.id] = lastUse
+                    }
+                    newKnownAccountEntryBuilder.lastUsedMs = maxOf(
+                        it.seedsList[i].getKnownAccounts(j).lastUsedMs,
+                        lastUse ?: 0L
+                    )
                     val newSeedRecordBuilder =
                         it.seedsList[i].toBuilder().setKnownAccounts(j, newKnownAccountEntryBuilder)
                     it.toBuilder().setSeeds(i, newSeedRecordBuilder).build()
                 }
+                clearPendingLastUse(writtenLastUse)
             }
 
             updateCompleteJob.join()
@@ -524,6 +593,116 @@ class SeedRepository @Inject constructor(
         Log.d(TAG, "EXIT updateKnownAccountForSeed")
     }
 
+    // Records a use of each of the specified accounts, for the purposes of known account eviction.
+    // This does not commit to the repository immediately; uses are batched into a single background
+    // commit, so that a burst of signing requests costs at most one write.
+    fun markKnownAccountsUsed(accountIds: Collection<Long>) {
+        if (accountIds.isEmpty()) {
+            return
+        }
+        val now = System.currentTimeMillis()
+        accountIds.forEach { accountId -> pendingAccountLastUse[accountId] = now }
+        if (lastUseWriteScheduled.compareAndSet(false, true)) {
+            repositoryOwnerScope.launch {
+                delay(LAST_USE_WRITE_DELAY_MS)
+                // Clear before writing, so that any use recorded from here on schedules another write
+                lastUseWriteScheduled.set(false)
+                writePendingLastUse()
+            }
+        }
+    }
+
+    // Writes all pending last-use times to the repository. This does not evict known accounts or
+    // generate a change notification, since no account visible to clients changes.
+    private suspend fun writePendingLastUse() {
+        val pending = HashMap(pendingAccountLastUse)
+        if (pending.isEmpty()) {
+            return
+        }
+
+        try {
+            mutex.withLock {
+                updateSeedCollectionDataStoreWithoutNotification { sc ->
+                    sc.toBuilder().apply {
+                        for (i in 0 until seedsCount) {
+                            val newSeedRecordBuilder = getSeeds(i).toBuilder()
+                            var changed = false
+                            for (j in 0 until newSeedRecordBuilder.knownAccountsCount) {
+                                val kae = newSeedRecordBuilder.getKnownAccounts(j)
+                                val lastUse = pending[kae.accountId] ?: continue
+                                if (lastUse > kae.lastUsedMs) {
+                                    newSeedRecordBuilder.setKnownAccounts(j, kae.toBuilder().setLastUsedMs(lastUse))
+                                    changed = true
+                                }
+                            }
+                            if (changed) {
+                                setSeeds(i, newSeedRecordBuilder)
+                            }
+                        }
+                    }.build()
+                }
+            }
+        } catch (e: IOException) {
+            Log.e(TAG, "Failed writing last use of ${pending.size} known accounts", e)
+            return
+        }
+
+        clearPendingLastUse(pending)
+    }
+
+    // Removes last-use times once they have been committed to the repository. Uses recorded since
+    // they were read remain pending.
+    private fun clearPendingLastUse(written: Map<Long, Long>) {
+        written.forEach { (accountId, lastUse) -> pendingAccountLastUse.remove(accountId, lastUse) }
+    }
+
+    // Writes pending last-use times to the known accounts of this seed record, then evicts the least
+    // recently used known accounts in excess of maxKnownAccountsPerSeed. User wallets and named
+    // accounts are never evicted. Accounts written before last use was tracked have a last use of
+    // 0, and so are evicted first (oldest account ID first). The last-use times written are
+    // recorded in writtenLastUse; they remain pending until the caller's commit succeeds.
+    // NOTE: should be called with mutex held
+    // @return the IDs of the evicted accounts
+    private fun SeedRecord.Builder.writeLastUseAndEvictKnownAccounts(
+        writtenLastUse: MutableMap<Long, Long>
+    ): List<Long> {
+        writtenLastUse.clear()
+        for (j in 0 until knownAccountsCount) {
+            val kae = getKnownAccounts(j)
+            val lastUse = pendingAccountLastUse[kae.accountId] ?: continue
+            writtenLastUse[kae.accountId] = lastUse
+            if (lastUse > kae.lastUsedMs) {
+                setKnownAccounts(j, kae.toBuilder().setLastUsedMs(lastUse))
+            }
+        }
+
+        val excess = knownAccountsCount - maxKnownAccountsPerSeed
+        if (excess <= 0) {
+            return listOf()
+        }
+        val evicted = knownAccountsList.filter { kae ->
+            !kae.isUserWallet && kae.name.isEmpty()
+        }.sortedWith(
+            compareBy<KnownAccountEntry> { kae -> kae.lastUsedMs }.thenBy { kae -> kae.accountId }
+        ).take(excess).mapTo(HashSet()) { kae -> kae.accountId }
+        if (evicted.size < excess) {
+            Log.w(TAG, "Seed $seedId has more than $maxKnownAccountsPerSeed user wallet or named accounts; not evicting them")
+        }
+        if (evicted.isNotEmpty()) {
+            val retained = knownAccountsList.filter { kae -> kae.accountId !in evicted }
+            clearKnownAccounts().addAllKnownAccounts(retained)
+        }
+        return evicted.toList()
+    }
+
+    private suspend fun notifyKnownAccountsEvicted(id: Long, evictedAccountIds: List<Long>) {
+        if (evictedAccountIds.isEmpty()) {
+            return
+        }
+        Log.d(TAG, "Evicted ${evictedAccountIds.size} least recently used known accounts for seed $id")
+        _changes.emit(ChangeNotification(ChangeNotification.Category.ACCOUNT, ChangeNotification.Type.DELETE, null))
+    }
+
     private fun createSeedEntryBuilderFromSeed(details: SeedDetails): SeedEntry.Builder =
         SeedEntry.newBuilder().apply {
             seed = ByteString.copyFrom(details.seed)
@@ -550,7 +729,7 @@ class SeedRepository @Inject constructor(
             }
         }
 
-        context.seedCollectionDataStore.updateData {
+        updateSeedCollectionDataStoreWithoutNotification {
             val updated = transform(it)
             if (updated == it) {
                 // No change in data; cancel the update propagation job
@@ -561,4 +740,12 @@ class SeedRepository @Inject constructor(
 
         return updateCompleteJob
     }
+
+    // For changes which are not visible to clients, and so generate no change notification
+    // NOTE: should be called with mutex held
+    private suspend fun updateSeedCollectionDataStoreWithoutNotification(
+        transform: suspend (t: SeedCollection) -> SeedCollection
+    ) {
+        context.seedCollectionDataStore.updateData(transform)
+    }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@
 package com.solanamobile.seedvaultimpl.model
 
 import android.net.Uri
+import com.solanamobile.seedvaultimpl.usecase.Base58EncodeUseCase
 
 data class Account(
     val id: Long = INVALID_ACCOUNT_ID,
@@ -13,7 +14,10 @@ data class Account(
     val publicKey: ByteArray,
     val name: String? = null,
     val isUserWallet: Boolean = false,
-    val isValid: Boolean = false
+    val isValid: Boolean = false,
+    // Derived from publicKey, so not considered by equals or hashCode. Computed once, when the
+    // account is created, and persisted alongside it.
+    val publicKeyEncoded: String = Base58EncodeUseCase(publicKey)
 ) {
     override fun equals(other: Any?): Boolean {
         if (this === other) return true
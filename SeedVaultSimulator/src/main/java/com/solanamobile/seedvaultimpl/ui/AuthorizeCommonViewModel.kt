@@ -6,20 +6,31 @@ package com.solanamobile.seedvaultimpl.ui
 
 import android.app.Activity.RESULT_OK
 import android.content.ComponentName
+import android.content.ContentResolver
+import android.content.Context
 import android.content.Intent
 import android.net.Uri
+import android.os.BadParcelableException
 import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.solanamobile.seedvault.*
 import com.solanamobile.seedvaultimpl.model.Authorization
+import com.solanamobile.seedvaultimpl.usecase.DerivationNodeCache
 import dagger.hilt.android.lifecycle.HiltViewModel
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.IOException
 import javax.inject.Inject
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 @HiltViewModel
-class AuthorizeCommonViewModel @Inject constructor() : ViewModel() {
+class AuthorizeCommonViewModel @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val derivationNodeCache: DerivationNodeCache
+) : ViewModel() {
     private val _requests = MutableSharedFlow<AuthorizeRequest>(replay = 1)
     val requests = _requests.asSharedFlow()
 
@@ -63,33 +74,53 @@ class AuthorizeCommonViewModel @Inject constructor() : ViewModel() {
 
             WalletContractV1.ACTION_SIGN_TRANSACTION,
             WalletContractV1.ACTION_SIGN_MESSAGE -> {
+                // NOTE: read the signing requests before any other extra; prior to API 33, the
+                // first access to any extra unparcels all of them
+                val inlineSigningRequests = try {
+                    getSigningRequestsFromIntent(callerIntent)
+                } catch (e: BadParcelableException) {
+                    Log.e(TAG, "Malformed signing requests provided; aborting...", e)
+                    completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_PAYLOAD)
+                    return
+                }
                 val authToken = getAuthTokenFromIntent(callerIntent)
                 if (authToken == -1L) {
                     Log.e(TAG, "No or invalid auth token provided; aborting...")
                     completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_AUTH_TOKEN)
                     return
                 }
-                val signingRequests =
-                    callerIntent.getParcelableArrayListExtra<SigningRequest>(WalletContractV1.EXTRA_SIGNING_REQUEST)
-                if (signingRequests == null || signingRequests.isEmpty()) {
+                if (inlineSigningRequests == null || inlineSigningRequests.isEmpty()) {
                     Log.e(TAG, "No or empty signing requests provided; aborting...")
                     completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_PAYLOAD)
                     return
                 }
-                val type = if (callerIntent.action == WalletContractV1.ACTION_SIGN_TRANSACTION)
-                    AuthorizeRequestType.Signature.Type.Transaction
-                else
-                    AuthorizeRequestType.Signature.Type.Message
-                startAuthorization()
-                val request = AuthorizeRequest(
-                    AuthorizeRequestType.Signature(
-                        type,
-                        authToken,
-                        signingRequests
-                    ), callerActivity, callerUid
-                )
-                cachedRequest = request
                 viewModelScope.launch {
+                    val payloadsUri = callerIntent.getParcelableExtra<Uri>(WalletContractV1.EXTRA_SIGNING_PAYLOADS_URI)
+                    val signingRequests = if (payloadsUri == null) {
+                        inlineSigningRequests
+                    } else {
+                        // Out-of-band payloads are read from the requester; don't block the main
+                        // thread
+                        withContext(Dispatchers.IO) {
+                            readPayloadsFromUri(payloadsUri, callerIntent, callerUid, inlineSigningRequests)
+                        } ?: run {
+                            completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_PAYLOAD)
+                            return@launch
+                        }
+                    }
+                    val type = if (callerIntent.action == WalletContractV1.ACTION_SIGN_TRANSACTION)
+                        AuthorizeRequestType.Signature.Type.Transaction
+                    else
+                        AuthorizeRequestType.Signature.Type.Message
+                    startAuthorization()
+                    val request = AuthorizeRequest(
+                        AuthorizeRequestType.Signature(
+                            type,
+                            authToken,
+                            signingRequests
+                        ), callerActivity, callerUid
+                    )
+                    cachedRequest = request
                     _requests.emit(request)
                 }
             }
@@ -131,6 +162,89 @@ class AuthorizeCommonViewModel @Inject constructor() : ViewModel() {
         return intent.getLongExtra(WalletContractV1.EXTRA_AUTH_TOKEN, -1)
     }
 
+    // NOTE: when the payloads are sent out-of-band, these signing requests have empty payloads
+    @Throws(BadParcelableException::class)
+    private fun getSigningRequestsFromIntent(intent: Intent): List<SigningRequest>? {
+        // The compact batch form takes precedence, when provided
+        val batch = intent.getParcelableExtra<SigningRequestBatch>(WalletContractV1.EXTRA_SIGNING_REQUEST_BATCH)
+        if (batch != null) {
+            return batch.signingRequests
+        }
+        return intent.getParcelableArrayListExtra(WalletContractV1.EXTRA_SIGNING_REQUEST)
+    }
+
+    // Returns null if the payloads cannot be read, or if the payload offsets and lengths do not
+    // describe valid ranges of them
+    // NOTE: blocks while reading the payloads from the requester
+    private fun readPayloadsFromUri(
+        payloadsUri: Uri,
+        intent: Intent,
+        callerUid: Int,
+        signingRequests: List<SigningRequest>
+    ): List<SigningRequest>? {
+        // Only read payloads served by the requester itself, so that it can't have us read (and
+        // sign) content from another provider to which we have access
+        val providerUid = payloadsUri.authority?.let { authority ->
+            context.packageManager.resolveContentProvider(authority, 0)?.applicationInfo?.uid
+        }
+        if (payloadsUri.scheme != ContentResolver.SCHEME_CONTENT || providerUid != callerUid) {
+            Log.e(TAG, "Payloads Uri $payloadsUri is not served by the requester")
+            return null
+        }
+
+        val offsets = intent.getIntArrayExtra(WalletContractV1.EXTRA_SIGNING_PAYLOAD_OFFSETS)
+        val lengths = intent.getIntArrayExtra(WalletContractV1.EXTRA_SIGNING_PAYLOAD_LENGTHS)
+        if (offsets == null || lengths == null
+            || offsets.size != signingRequests.size || lengths.size != signingRequests.size) {
+            Log.e(TAG, "Payload offsets and lengths do not match the signing requests")
+            return null
+        }
+        var size = 0L
+        for (i in offsets.indices) {
+            if (offsets[i] < 0 || lengths[i] < 0) {
+                Log.e(TAG, "Payload $i out of range: offset=${offsets[i]}, length=${lengths[i]}")
+                return null
+            }
+            size = maxOf(size, offsets[i].toLong() + lengths[i])
+        }
+        if (size > MAX_PAYLOADS_SIZE) {
+            Log.e(TAG, "Payloads too large: $size bytes")
+            return null
+        }
+
+        val payloads = ByteArray(size.toInt())
+        try {
+            val input = context.contentResolver.openInputStream(payloadsUri) ?: run {
+                Log.e(TAG, "Failed opening payloads Uri $payloadsUri")
+                return null
+            }
+            input.use {
+                var read = 0
+                while (read < payloads.size) {
+                    val n = it.read(payloads, read, payloads.size - read)
+                    if (n < 0) {
+                        Log.e(TAG, "Payloads Uri $payloadsUri ended after $read of ${payloads.size} bytes")
+                        return null
+                    }
+                    read += n
+                }
+            }
+        } catch (e: IOException) {
+            Log.e(TAG, "Failed reading payloads Uri $payloadsUri", e)
+            return null
+        } catch (e: SecurityException) {
+            Log.e(TAG, "Not permitted to read payloads Uri $payloadsUri", e)
+            return null
+        }
+
+        return signingRequests.mapIndexed { i, signingRequest ->
+            SigningRequest(
+                payloads.copyOfRange(offsets[i], offsets[i] + lengths[i]),
+                signingRequest.requestedSignatures
+            )
+        }
+    }
+
     fun updateAuthorizeSeedRequestWithSeedId(seedId: Long) {
         Log.d(TAG, "updateSeedRequestWithSeedId($seedId)")
         val origRequest = cachedRequest
@@ -186,8 +300,16 @@ class AuthorizeCommonViewModel @Inject constructor() : ViewModel() {
         }
     }
 
+    override fun onCleared() {
+        // Intermediate derivation nodes are only reused within a single authorization flow
+        derivationNodeCache.clear()
+    }
+
     companion object {
         private val TAG = AuthorizeCommonViewModel::class.simpleName
+
+        // Bounds the memory used to read out-of-band payloads
+        private const val MAX_PAYLOADS_SIZE = 16 * 1024 * 1024
     }
 }
 
@@ -26,12 +26,10 @@ import dagger.assisted.Assisted
 import dagger.assisted.AssistedFactory
 import dagger.assisted.AssistedInject
 import dagger.hilt.android.lifecycle.HiltViewModel
-import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
 
 @HiltViewModel(assistedFactory = AuthorizeViewModel.Factory::class)
 class AuthorizeViewModel @AssistedInject constructor(
@@ -40,6 +38,7 @@ class AuthorizeViewModel @AssistedInject constructor(
     @Assisted private val authorizeCommonViewModel: AuthorizeCommonViewModel,
     private val signPayloadUseCase: SignPayloadUseCase,
     private val bipDerivationUseCase: BipDerivationUseCase,
+    private val batchSigningUseCase: BatchSigningUseCase,
     private val prepopulateKnownAccountsUseCase: PrepopulateKnownAccountsUseCase,
 ) : ViewModel() {
 
@@ -132,15 +131,24 @@ class AuthorizeViewModel @AssistedInject constructor(
                             authorizeCommonViewModel.completeAuthorizationWithError(WalletContractV1.RESULT_IMPLEMENTATION_LIMIT_EXCEEDED)
                             return@collect
                         }
-                        val maxRequestedSignatures = request.type.transactions.maxOf { t -> t.requestedSignatures.size }
+                        val maxRequestedSignatures = try {
+                            request.type.transactions.maxOf { t -> countDerivationPaths(t.requestedSignatures) }
+                        } catch (e: UnsupportedOperationException) {
+                            Log.e(TAG, "Invalid BIP derivation path range", e)
+                            authorizeCommonViewModel.completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_DERIVATION_PATH)
+                            return@collect
+                        }
                         if (maxRequestedSignatures > RequestLimitsUseCase.MAX_REQUESTED_SIGNATURES) {
                             Log.e(TAG, "Too many signatures requested: actual=$maxRequestedSignatures, max=${RequestLimitsUseCase.MAX_REQUESTED_SIGNATURES}")
                             authorizeCommonViewModel.completeAuthorizationWithError(WalletContractV1.RESULT_IMPLEMENTATION_LIMIT_EXCEEDED)
                             return@collect
                         }
                         try {
+                            // Transactions in a batch commonly share derivation paths; normalize
+                            // each distinct path only once
+                            val normalizedCache = HashMap<Uri, List<Bip32DerivationPath>>()
                             val normalizedDerivationPaths = request.type.transactions.map { t ->
-                                normalizeDerivationPaths(t.requestedSignatures)
+                                normalizeDerivationPaths(t.requestedSignatures, normalizedCache)
                             }
                             doesRequireAuthentication = isAuthRequired(normalizedPaths = normalizedDerivationPaths)
                             this@AuthorizeViewModel.normalizedDerivationPaths = normalizedDerivationPaths
@@ -168,7 +176,13 @@ class AuthorizeViewModel @AssistedInject constructor(
                             auth.authToken == authKey.authToken
                         }.purpose
                         this@AuthorizeViewModel.purpose = purpose
-                        val numDerivationPaths = request.type.derivationPaths.size
+                        val numDerivationPaths = try {
+                            countDerivationPaths(request.type.derivationPaths)
+                        } catch (e: UnsupportedOperationException) {
+                            Log.e(TAG, "Invalid BIP derivation path range", e)
+                            authorizeCommonViewModel.completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_DERIVATION_PATH)
+                            return@collect
+                        }
                         if (numDerivationPaths > RequestLimitsUseCase.MAX_REQUESTED_PUBLIC_KEYS) {
                             Log.e(TAG, "Too many public keys requested: actual=$numDerivationPaths, max=${RequestLimitsUseCase.MAX_REQUESTED_PUBLIC_KEYS}")
                             authorizeCommonViewModel.completeAuthorizationWithError(WalletContractV1.RESULT_IMPLEMENTATION_LIMIT_EXCEEDED)
@@ -185,7 +199,7 @@ class AuthorizeViewModel @AssistedInject constructor(
                         this@AuthorizeViewModel.normalizedDerivationPaths = normalizedDerivationPaths
 
                         // Check if we already have cached public keys for these addresses
-                        if (normalizedDerivationPaths[0].all { path -> publicKeyForPath(path.toUri()) != null }) {
+                        if (normalizedDerivationPaths[0].all { path -> accountForPath(path.toUri()) != null }) {
                             doAuthorizationAction()
                             return@collect
                         }
@@ -262,18 +276,43 @@ class AuthorizeViewModel @AssistedInject constructor(
         _uiState.update { it.copy(message = null) }
     }
 
-    private fun normalizeDerivationPaths(derivationPaths: List<Uri>): List<Bip32DerivationPath> {
+    private fun normalizeDerivationPaths(
+        derivationPaths: List<Uri>,
+        normalizedCache: MutableMap<Uri, List<Bip32DerivationPath>> = HashMap()
+    ): List<Bip32DerivationPath> {
         require(derivationPaths.isNotEmpty()) { "At least one derivation path must be provided" }
         val purpose = purpose!!
-        return derivationPaths.map { uri ->
-            BipDerivationPath.fromUri(uri).toBip32DerivationPath(purpose).normalize(purpose)
+        // Each derivation path range expands in place to the derivation paths it denotes
+        return derivationPaths.flatMap { uri ->
+            normalizedCache.getOrPut(uri) {
+                val paths = if (DerivationPathRange.isRange(uri)) {
+                    DerivationPathRange.fromUri(uri).derivationPaths
+                } else {
+                    listOf(BipDerivationPath.fromUri(uri))
+                }
+                paths.map { path -> path.toBip32DerivationPath(purpose).normalize(purpose) }
+            }
         }
     }
 
-    private fun publicKeyForPath(derivationPath: Uri): ByteArray? {
+    // Counts the derivation paths denoted by derivationPaths, without expanding any ranges. Summed
+    // as a Long, since several large ranges could otherwise overflow.
+    private fun countDerivationPaths(derivationPaths: List<Uri>): Long {
+        return derivationPaths.sumOf { uri -> DerivationPathRange.getDerivationPathCount(uri).toLong() }
+    }
+
+    private fun accountForPath(derivationPath: Uri): Account? {
         return seed!!.accounts.firstOrNull { account ->
             account.purpose == purpose && account.bip32DerivationPathUri == derivationPath
-        }?.publicKey
+        }
+    }
+
+    // Known accounts are evicted least recently used first, so record each use
+    private fun markKnownAccountsUsed(derivationPaths: List<Bip32DerivationPath>) {
+        val accountIds = derivationPaths.mapNotNull { path -> accountForPath(path.toUri())?.id }
+        if (accountIds.isNotEmpty()) {
+            seedRepository.markKnownAccountsUsed(accountIds)
+        }
     }
 
     private fun doAuthorizationAction() {
@@ -297,37 +336,33 @@ class AuthorizeViewModel @AssistedInject constructor(
                 val normalizedDerivationPaths = normalizedDerivationPaths!!
 
                 viewModelScope.launch {
-                    val signatures = ArrayList<SigningResponse>(request.type.transactions.size)
-                    request.type.transactions.mapIndexedTo(signatures) { i, sr ->
-                        val requestNormalizedDerivationPaths = normalizedDerivationPaths[i]
-                        val sigs = requestNormalizedDerivationPaths.map { path ->
-                            try {
-                                withContext(Dispatchers.Default) {
-                                    val privateKey = bipDerivationUseCase.derivePrivateKey(purpose, seed, path)
-                                    if (request.type.type == AuthorizeRequestType.Signature.Type.Transaction)
-                                        signPayloadUseCase.signTransaction(
-                                            purpose,
-                                            privateKey,
-                                            sr.payload
-                                        )
-                                    else
-                                        signPayloadUseCase.signMessage(
-                                            purpose,
-                                            privateKey,
-                                            sr.payload
-                                        )
-                                }
-                            } catch (_: BipDerivationUseCase.KeyDoesNotExistException) {
-                                Log.e(TAG, "Key does not exist for $purpose:$path")
-                                // Technically, it's the key that's invalid, not the derivation path.
-                                // However, the caller should have verified the account was valid before
-                                // using it, and discovered it was invalid then. Thus, the use of this
-                                // derivation path can be considered invalid.
-                                authorizeCommonViewModel.completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_DERIVATION_PATH)
-                                return@launch
-                            }
+                    val isTransaction = (request.type.type == AuthorizeRequestType.Signature.Type.Transaction)
+                    markKnownAccountsUsed(normalizedDerivationPaths.flatten())
+                    val sigs = try {
+                        batchSigningUseCase.sign(
+                            purpose,
+                            seed,
+                            request.type.transactions.map { sr -> sr.payload },
+                            normalizedDerivationPaths,
+                            request.requestorUid
+                        ) { privateKeys, payloads ->
+                            if (isTransaction)
+                                signPayloadUseCase.signTransactions(purpose, privateKeys, payloads)
+                            else
+                                signPayloadUseCase.signMessages(purpose, privateKeys, payloads)
                         }
-                        SigningResponse(sigs, requestNormalizedDerivationPaths.map { path -> path.toUri() })
+                    } catch (e: BipDerivationUseCase.KeyDoesNotExistException) {
+                        Log.e(TAG, "Key does not exist for $purpose", e)
+                        // Technically, it's the key that's invalid, not the derivation path.
+                        // However, the caller should have verified the account was valid before
+                        // using it, and discovered it was invalid then. Thus, the use of this
+                        // derivation path can be considered invalid.
+                        authorizeCommonViewModel.completeAuthorizationWithError(WalletContractV1.RESULT_INVALID_DERIVATION_PATH)
+                        return@launch
+                    }
+                    val signatures = ArrayList<SigningResponse>(sigs.size)
+                    sigs.mapIndexedTo(signatures) { i, s ->
+                        SigningResponse(s, normalizedDerivationPaths[i].map { path -> path.toUri() })
                     }
                     authorizeCommonViewModel.completeAuthorizationWithSignatures(signatures)
                 }
@@ -337,23 +372,38 @@ class AuthorizeViewModel @AssistedInject constructor(
                 val normalizedDerivationPaths = normalizedDerivationPaths!![0]
 
                 viewModelScope.launch {
+                    // Derive all unknown public keys together (in parallel, and with shared path
+                    // prefixes derived only once)
+                    val missingPaths = normalizedDerivationPaths.filter { path ->
+                        accountForPath(path.toUri()) == null
+                    }
+                    markKnownAccountsUsed(normalizedDerivationPaths)
+                    val derivedPublicKeys = if (missingPaths.isNotEmpty()) {
+                        bipDerivationUseCase.deriveKeys(purpose, seed, missingPaths,
+                            BipDerivationUseCase.KeyType.PUBLIC)
+                    } else {
+                        emptyMap()
+                    }
+
+                    // Persist all newly derived accounts with a single repository commit. The
+                    // response does not depend on this write, so don't wait for it to complete.
+                    val newAccounts = derivedPublicKeys.mapNotNull { (path, publicKey) ->
+                        if (publicKey == null) {
+                            Log.e(TAG, "Key does not exist for $purpose:$path")
+                            null
+                        } else {
+                            path to Account(Account.INVALID_ACCOUNT_ID, purpose, path.toUri(), publicKey)
+                        }
+                    }.toMap()
+                    if (newAccounts.isNotEmpty()) {
+                        seedRepository.addKnownAccountsForSeedInBackground(seed.id, newAccounts.values.toList())
+                    }
+
                     val publicKeys = ArrayList<PublicKeyResponse>(normalizedDerivationPaths.size)
                     normalizedDerivationPaths.mapTo(publicKeys) { path ->
                         val pathUri = path.toUri()
-                        val publicKey = publicKeyForPath(pathUri) ?: run {
-                            try {
-                                withContext(Dispatchers.Default) {
-                                    bipDerivationUseCase.derivePublicKey(purpose, seed, path).also {
-                                        seedRepository.addKnownAccountForSeed(seed.id, Account(
-                                            Account.INVALID_ACCOUNT_ID, purpose, pathUri, it))
-                                    }
-                                }
-                            } catch (_: BipDerivationUseCase.KeyDoesNotExistException) {
-                                Log.e(TAG, "Key does not exist for $purpose:$path")
-                                null
-                            }
-                        }
-                        PublicKeyResponse(publicKey, publicKey?.let { Base58EncodeUseCase(it) }, pathUri)
+                        val account = accountForPath(pathUri) ?: newAccounts[path]
+                        PublicKeyResponse(account?.publicKey, account?.publicKeyEncoded, pathUri)
                     }
                     authorizeCommonViewModel.completeAuthorizationWithPublicKeys(publicKeys)
                 }
@@ -86,7 +86,6 @@ import com.solanamobile.seedvault.WalletContractV1
 import com.solanamobile.seedvaultimpl.R
 import com.solanamobile.seedvaultimpl.model.Authorization
 import com.solanamobile.seedvaultimpl.model.SeedDetails
-import com.solanamobile.seedvaultimpl.usecase.Base58EncodeUseCase
 import com.solanamobile.seedvaultimpl.usecase.Bip39PhraseUseCase
 import com.solanamobile.ui.apptheme.Sizes
 import com.solanamobile.ui.apptheme.SolanaTheme
@@ -423,14 +422,8 @@ class SeedDetailActivity : AppCompatActivity() {
                             HorizontalDivider()
                             seedDetails.phrase.take(seedDetails.phraseLength.length)
                                 .forEachIndexed { index, phrase ->
-                                    var isWordRecognized = true
-                                    if (seedDetails.isCreateMode && phrase.isNotEmpty()) {
-                                        try {
-                                            Bip39PhraseUseCase.toIndex(phrase)
-                                        } catch (_: IllegalArgumentException) {
-                                            isWordRecognized = false
-                                        }
-                                    }
+                                    val isWordRecognized = !seedDetails.isCreateMode || phrase.isEmpty() ||
+                                            Bip39PhraseUseCase.findIndex(phrase) >= 0
                                     Row(
                                         modifier = Modifier.padding(vertical = Sizes.dp8),
                                         verticalAlignment = Alignment.CenterVertically
@@ -463,12 +456,7 @@ class SeedDetailActivity : AppCompatActivity() {
                                             )
 
                                             if (seedDetails.isCreateMode && phrase.length >= 2) {
-                                                val options =
-                                                    Bip39PhraseUseCase.bip39EnglishWordlist.filter {
-                                                        it.contains(
-                                                            phrase
-                                                        )
-                                                    }
+                                                val options = Bip39PhraseUseCase.autocomplete(phrase)
                                                 if (options.isNotEmpty()) {
                                                     DropdownMenu(
                                                         properties = PopupProperties(focusable = false),
@@ -544,7 +532,7 @@ class SeedDetailActivity : AppCompatActivity() {
                                                 text = account.bip32DerivationPathUri.toString()
                                             )
                                             Text(
-                                                text = Base58EncodeUseCase(account.publicKey)
+                                                text = account.publicKeyEncoded
                                             )
                                         }
                                         HorizontalDivider()
@@ -17,14 +17,19 @@ import com.solanamobile.seedvaultimpl.model.SeedDetails.Companion.SEED_PHRASE_WO
 import com.solanamobile.seedvaultimpl.ui.seeddetail.SeedDetailUiState.SeedPhraseLength.SEED_PHRASE_12_WORDS
 import com.solanamobile.seedvaultimpl.ui.seeddetail.SeedDetailUiState.SeedPhraseLength.SEED_PHRASE_24_WORDS
 import com.solanamobile.seedvaultimpl.usecase.Bip39PhraseUseCase
+import com.solanamobile.seedvaultimpl.usecase.Bip39PhraseValidator
 import com.solanamobile.seedvaultimpl.usecase.PrepopulateKnownAccountsUseCase
 import dagger.hilt.android.lifecycle.HiltViewModel
 import javax.inject.Inject
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
-import kotlin.random.Random
+import kotlinx.coroutines.withContext
 
 @HiltViewModel
 class SeedDetailViewModel @Inject constructor(
@@ -36,20 +41,26 @@ class SeedDetailViewModel @Inject constructor(
 
     private var mode: SeedDetailMode = UninitializedMode
 
+    // Tracks the entropy and checksum of the seed phrase being entered; as soon as it becomes
+    // checksum-valid, the seed is derived speculatively in the background
+    private val phraseValidator = Bip39PhraseValidator()
+    private var speculativeSeed: SpeculativeSeed? = null
+
     fun createNewSeed(authorize: PreAuthorizeSeed? = null) {
-        val phrase = List(SEED_PHRASE_24_WORDS.length) {
-            Bip39PhraseUseCase.bip39EnglishWordlist[Random.nextInt(Bip39PhraseUseCase.bip39EnglishWordlist.size)]
-        }
+        // The first 12 words of the generated phrase are also a valid 12-word phrase
+        val phrase = Bip39PhraseUseCase.generateSeedPhrase().map { Bip39PhraseUseCase.toWord(it) }
         _seedDetailUiState.value = SeedDetailUiState(
             phraseLength = SEED_PHRASE_12_WORDS,
             phrase = phrase
         )
         mode = NewSeedMode(authorize)
+        onSeedPhraseChanged()
     }
 
     fun importExistingSeed(authorize: PreAuthorizeSeed? = null) {
         _seedDetailUiState.value = SeedDetailUiState()
         mode = NewSeedMode(authorize)
+        onSeedPhraseChanged()
     }
 
     fun editSeed(seedId: Long) {
@@ -87,6 +98,7 @@ class SeedDetailViewModel @Inject constructor(
         check(_seedDetailUiState.value.isCreateMode) { "Cannot set seed phrase length when editing a seed" }
         Log.d(TAG, "setSeedPhraseLength($phraseLength)")
         _seedDetailUiState.update { it.copy(phraseLength = phraseLength) }
+        updateSpeculativeSeed()
     }
 
     fun setName(name: String) {
@@ -104,6 +116,8 @@ class SeedDetailViewModel @Inject constructor(
             }
             current.copy(phrase = newPhrase)
         }
+        phraseValidator.setWord(index, Bip39PhraseUseCase.findIndex(w))
+        updateSpeculativeSeed()
     }
 
     fun setPIN(pin: String) {
@@ -130,15 +144,55 @@ class SeedDetailViewModel @Inject constructor(
         _seedDetailUiState.update { it.copy(errorMessage = null) }
     }
 
+    // Resynchronize the phrase validator with the whole phrase
+    private fun onSeedPhraseChanged() {
+        seedDetailUiState.value.phrase.forEachIndexed { i, w ->
+            phraseValidator.setWord(i, Bip39PhraseUseCase.findIndex(w))
+        }
+        updateSpeculativeSeed()
+    }
+
+    private fun updateSpeculativeSeed() {
+        val state = seedDetailUiState.value
+        val wordCount = state.phraseLength.length
+        val phrase = if (state.isCreateMode && phraseValidator.isChecksumValid(wordCount)) {
+            phraseValidator.getWords(wordCount)
+        } else {
+            null
+        }
+        if (speculativeSeed?.phrase == phrase) {
+            return
+        }
+
+        speculativeSeed?.discard()
+        speculativeSeed = phrase?.let {
+            Log.d(TAG, "Seed phrase is checksum-valid; speculatively deriving seed")
+            SpeculativeSeed(phrase, viewModelScope.async(Dispatchers.Default) {
+                Bip39PhraseUseCase.toSeed(phrase)
+            })
+        }
+    }
+
     suspend fun saveSeed(): Long? {
         Log.d(TAG, "Validating seed parameters")
 
         return try {
+            val mode = mode // immutable snapshot of mode
             val seedDetails = seedDetailUiState.value.let {
                 val phrase: List<Int> = it.phrase.take(it.phraseLength.length).map { w ->
                     Bip39PhraseUseCase.toIndex(w)
                 }
-                val seedBytes = Bip39PhraseUseCase.toSeed(phrase)
+                val seedBytes = if (mode is EditSeedMode) {
+                    // The seed phrase can't be changed when editing; reuse the existing seed
+                    val seed = seedRepository.seeds.value[mode.seedId]
+                    require(seed != null) { "Seed ${mode.seedId} not found" }
+                    seed.details.seed
+                } else {
+                    require(Bip39PhraseUseCase.isChecksumValid(phrase)) { "Seed phrase checksum is invalid" }
+                    // NOTE: copy the speculative seed, since it is zeroized when discarded
+                    speculativeSeed?.takeIf { s -> s.phrase == phrase }?.seed?.await()?.copyOf()
+                        ?: withContext(Dispatchers.Default) { Bip39PhraseUseCase.toSeed(phrase) }
+                }
                 SeedDetails(
                     seedBytes,
                     phrase,
@@ -150,7 +204,7 @@ class SeedDetailViewModel @Inject constructor(
             }
 
             Log.i(TAG, "Successfully created Seed $seedDetails; committing to SeedRepository")
-            when (val mode = mode) { // immutable snapshot of mode
+            when (mode) {
                 is NewSeedMode -> {
                     val seedId = seedRepository.createSeed(seedDetails)
 
@@ -228,12 +282,29 @@ class SeedDetailViewModel @Inject constructor(
                     }
                 )
             }
+            onSeedPhraseChanged()
             true
         } else {
             false
         }
     }
 
+    override fun onCleared() {
+        speculativeSeed?.discard()
+        speculativeSeed = null
+    }
+
+    private class SpeculativeSeed(val phrase: List<Int>, val seed: Deferred<ByteArray>) {
+        // Cancel the derivation if it is still running, or else zeroize the derived seed
+        @OptIn(ExperimentalCoroutinesApi::class)
+        fun discard() {
+            seed.cancel()
+            if (seed.isCompleted && !seed.isCancelled) {
+                runCatching { seed.getCompleted().fill(0) }
+            }
+        }
+    }
+
     private sealed interface SeedDetailMode
     private data object UninitializedMode : SeedDetailMode
     private data class NewSeedMode(val authorize: PreAuthorizeSeed?) : SeedDetailMode
@@ -254,13 +325,8 @@ class SeedDetailViewModel @Inject constructor(
             seedPhrase.size in SEED_PHRASE_WORD_COUNT_SHORT..SEED_PHRASE_WORD_COUNT_LONG
 
         private fun isValidSeedPhraseWords(seedPhrase: List<String>) =
-            seedPhrase.all {
-                try {
-                    Bip39PhraseUseCase.toIndex(it)
-                    true
-                } catch (ex: IllegalArgumentException) {
-                    false
-                }
+            seedPhrase.map { Bip39PhraseUseCase.findIndex(it) }.let { indices ->
+                indices.all { it >= 0 } && Bip39PhraseUseCase.isChecksumValid(indices)
             }
     }
 }
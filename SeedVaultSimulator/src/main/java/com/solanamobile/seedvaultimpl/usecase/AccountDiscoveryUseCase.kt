@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import android.content.Context
+import android.net.Uri
+import android.util.Log
+import com.solanamobile.seedvault.Bip32DerivationPath
+import com.solanamobile.seedvaultimpl.R
+import com.solanamobile.seedvaultimpl.data.SeedRepository
+import com.solanamobile.seedvaultimpl.model.Account
+import com.solanamobile.seedvaultimpl.model.Authorization
+import com.solanamobile.seedvaultimpl.model.Seed
+import dagger.hilt.android.qualifiers.ApplicationContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Scans a range of account indices for a seed, deriving the public keys for each path template at
+ * each index, and persisting them all as known accounts with a single repository commit. An index
+ * is considered used if any of its accounts is already known and has been marked by the user or a
+ * wallet (as a user wallet, as valid, or by naming it). Scanning stops once gapLimit consecutive
+ * indices are unused.
+ */
+@Singleton
+class AccountDiscoveryUseCase @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val seedRepository: SeedRepository,
+    private val bipDerivationUseCase: BipDerivationUseCase
+) {
+    data class Result(
+        val nextIndex: Int, // the first index not scanned
+        val lastUsedIndex: Int?,
+        val numAccountsAdded: Int
+    )
+
+    private val defaultPathTemplates: List<String> by lazy {
+        context.resources.getStringArray(R.array.prepopulate_known_accounts_solana_path_templates).asList()
+    }
+
+    /**
+     * @param pathTemplates path templates relative to the purpose-specific derivation root, or
+     *      null to use the same templates as for prepopulated known accounts
+     * @param onProgress invoked after each batch with the number of indices scanned so far
+     * @throws IllegalArgumentException if any parameter is invalid
+     */
+    suspend fun discover(
+        seed: Seed,
+        purpose: Authorization.Purpose,
+        pathTemplates: List<String>?,
+        startIndex: Int,
+        count: Int,
+        gapLimit: Int,
+        batchSize: Int = DEFAULT_BATCH_SIZE,
+        onProgress: (scannedCount: Int) -> Unit = {}
+    ): Result {
+        require(startIndex >= 0) { "Start index $startIndex must be non-negative" }
+        require(count in 1..MAX_INDEX_COUNT) { "Index count $count must be in [1, $MAX_INDEX_COUNT]" }
+        require(startIndex <= Int.MAX_VALUE - count) { "Index range exceeds the maximum BIP32 index" }
+        require(gapLimit > 0) { "Gap limit $gapLimit must be positive" }
+        require(batchSize in 1..MAX_BATCH_SIZE) { "Batch size $batchSize must be in [1, $MAX_BATCH_SIZE]" }
+        val templates = (pathTemplates ?: defaultPathTemplates).map { template -> PathTemplate.parse(template) }
+        require(templates.size in 1..MAX_PATH_TEMPLATES) { "Number of path templates must be in [1, $MAX_PATH_TEMPLATES]" }
+        // Otherwise, accounts discovered early in the scan would be evicted by those found later
+        require(count * templates.size <= seedRepository.maxKnownAccountsPerSeed) {
+            "Cannot scan more than ${seedRepository.maxKnownAccountsPerSeed} accounts at once"
+        }
+
+        val derivationRootPath = PathTemplate.derivationRootForPurpose(purpose)
+        val knownAccounts = seed.accounts.filter { account ->
+            account.purpose == purpose
+        }.associateBy { account ->
+            account.bip32DerivationPathUri
+        }
+
+        val newAccounts = mutableListOf<Account>()
+        var lastUsedIndex: Int? = null
+        var gap = 0
+        var nextIndex = startIndex
+        val endIndex = startIndex + count
+
+        scan@ while (nextIndex < endIndex) {
+            val batchEnd = minOf(nextIndex + batchSize, endIndex)
+            val batchPaths = ArrayList<Bip32DerivationPath>((batchEnd - nextIndex) * templates.size)
+            val batchUris = ArrayList<Uri>(batchPaths.size)
+            for (i in nextIndex until batchEnd) {
+                for (template in templates) {
+                    val path = template.instantiate(derivationRootPath, i, purpose)
+                    batchPaths.add(path)
+                    batchUris.add(path.toUri())
+                }
+            }
+
+            // Only derive accounts that aren't already known; the planner derives the shared root
+            // once and the per-index leaves in parallel
+            val candidates = batchPaths.filterIndexed { j, _ -> batchUris[j] !in knownAccounts }
+            val publicKeys: Map<Bip32DerivationPath, ByteArray?> = if (candidates.isEmpty()) {
+                emptyMap()
+            } else {
+                bipDerivationUseCase.deriveKeys(purpose, seed, candidates, BipDerivationUseCase.KeyType.PUBLIC)
+            }
+
+            for (k in 0 until batchEnd - nextIndex) {
+                var isUsed = false
+                for (t in templates.indices) {
+                    val j = k * templates.size + t
+                    val known = knownAccounts[batchUris[j]]
+                    if (known != null) {
+                        isUsed = isUsed || known.isUserWallet || known.isValid || known.name != null
+                    } else {
+                        val publicKey = publicKeys[batchPaths[j]]
+                        if (publicKey == null) {
+                            Log.w(TAG, "Key for derivation path ${batchUris[j]} with purpose $purpose does not exist; skipping...")
+                        } else {
+                            newAccounts.add(Account(Account.INVALID_ACCOUNT_ID, purpose, batchUris[j], publicKey))
+                        }
+                    }
+                }
+
+                val index = nextIndex + k
+                if (isUsed) {
+                    lastUsedIndex = index
+                    gap = 0
+                } else if (++gap >= gapLimit) {
+                    nextIndex = index + 1
+                    onProgress(nextIndex - startIndex)
+                    break@scan
+                }
+            }
+
+            nextIndex = batchEnd
+            onProgress(nextIndex - startIndex)
+        }
+
+        seedRepository.addKnownAccountsForSeed(seed.id, newAccounts)
+        Log.d(TAG, "Scanned indices [$startIndex, $nextIndex) with purpose $purpose; added ${newAccounts.size} known accounts")
+
+        return Result(nextIndex, lastUsedIndex, newAccounts.size)
+    }
+
+    companion object {
+        private val TAG = AccountDiscoveryUseCase::class.simpleName
+
+        const val DEFAULT_BATCH_SIZE = 100
+        const val MAX_BATCH_SIZE = 1000
+        const val MAX_INDEX_COUNT = 10000
+        const val MAX_PATH_TEMPLATES = 8
+    }
+}
@@ -7,10 +7,73 @@ package com.solanamobile.seedvaultimpl.usecase
 import java.nio.charset.StandardCharsets
 
 object Base58EncodeUseCase {
+    // The largest power of 58 which fits in 32 bits; each division by it yields 5 base58 digits
+    private const val BASE58_5 = 656_356_768L // 58^5
+    private const val DIGITS_PER_LIMB = 5
+
     operator fun invoke(bytes: ByteArray): String {
         // Max output size is ceil(log2(256) / log2(58) * input_size). In efficient integer math,
         // a slight overestimate of this is (((input_size * 352) + 255) / 256).
         val maxEncodedSize = (((bytes.size * 352) + 255) / 256)
+
+        // Public keys (32 bytes) and signatures (64 bytes) are a whole number of 32-bit limbs, and
+        // take the fast path
+        return if (bytes.size % 4 == 0) {
+            encodeLimbs(bytes, maxEncodedSize)
+        } else {
+            encodeBytes(bytes, maxEncodedSize)
+        }
+    }
+
+    // Treats the input as big-endian 32-bit limbs, and repeatedly divides by 58^5, producing 5
+    // base58 digits per pass over the limbs (rather than 1 digit per byte per pass).
+    private fun encodeLimbs(bytes: ByteArray, maxEncodedSize: Int): String {
+        val numLimbs = bytes.size / 4
+        val limbs = IntArray(numLimbs) { i ->
+            ((bytes[4 * i].toInt() and 0xFF) shl 24) or
+                    ((bytes[4 * i + 1].toInt() and 0xFF) shl 16) or
+                    ((bytes[4 * i + 2].toInt() and 0xFF) shl 8) or
+                    (bytes[4 * i + 3].toInt() and 0xFF)
+        }
+
+        var leadingZeroes = 0
+        while (leadingZeroes < bytes.size && bytes[leadingZeroes] == 0.toByte()) {
+            leadingZeroes++
+        }
+
+        // Digits are produced least significant first, so fill from the end (with enough room to
+        // write a whole limb's worth of digits past the estimate)
+        val digits = ByteArray(maxEncodedSize + DIGITS_PER_LIMB)
+        var pos = digits.size
+        var first = leadingZeroes / 4
+        while (first < numLimbs) {
+            var rem = 0L
+            for (i in first until numLimbs) {
+                val cur = (rem shl 32) or (limbs[i].toLong() and 0xFFFF_FFFFL)
+                limbs[i] = (cur / BASE58_5).toInt()
+                rem = cur % BASE58_5
+            }
+            for (k in 0 until DIGITS_PER_LIMB) {
+                digits[--pos] = (rem % 58).toByte()
+                rem /= 58
+            }
+            while (first < numLimbs && limbs[first] == 0) {
+                first++
+            }
+        }
+        while (pos < digits.size && digits[pos] == 0.toByte()) {
+            pos++
+        }
+
+        val encoded = ByteArray(leadingZeroes + digits.size - pos)
+        encoded.fill(BASE58_ALPHABET[0], 0, leadingZeroes)
+        for (i in pos until digits.size) {
+            encoded[leadingZeroes + i - pos] = BASE58_ALPHABET[digits[i].toInt()]
+        }
+        return String(encoded, StandardCharsets.US_ASCII)
+    }
+
+    private fun encodeBytes(bytes: ByteArray, maxEncodedSize: Int): String {
         val encoded = ByteArray(maxEncodedSize)
 
         var start = 0
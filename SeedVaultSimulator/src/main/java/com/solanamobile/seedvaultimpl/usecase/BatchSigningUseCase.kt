@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import android.util.Log
+import com.solanamobile.seedvault.Bip32DerivationPath
+import com.solanamobile.seedvaultimpl.model.Authorization
+import com.solanamobile.seedvaultimpl.model.Seed
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import javax.inject.Inject
+import javax.inject.Singleton
+
+@Singleton
+class BatchSigningUseCase @Inject constructor(
+    private val bipDerivationUseCase: BipDerivationUseCase,
+    private val privateKeyCache: PrivateKeyCache
+) {
+    /**
+     * Sign each payload with the private keys for its (normalized) derivation paths. Each unique
+     * derivation path is derived exactly once, regardless of how many payloads reference it, using
+     * [BipDerivationUseCase.deriveKeys] to share common path prefixes. The signatures are then
+     * split into at most [MAX_SIGNING_PARALLELISM] batches, which are signed in parallel on a
+     * bounded dispatcher. Private keys are zeroized before returning.
+     * If the [PrivateKeyCache] is enabled, keys recently derived for the same requestor are
+     * reused, and newly derived keys are added to it.
+     * @param payloads the payloads to sign
+     * @param derivationPaths for each payload, the normalized derivation paths with which to sign it
+     * @param requestorUid the UID of the app requesting signatures
+     * @param signer signs a batch of payloads, each with the corresponding private key
+     * @return for each payload, the signatures in the same order as derivationPaths
+     * @throws BipDerivationUseCase.KeyDoesNotExistException for the first key which does not exist.
+     *      All other outstanding derivations and signatures are cancelled.
+     */
+    suspend fun sign(
+        purpose: Authorization.Purpose,
+        seed: Seed,
+        payloads: List<ByteArray>,
+        derivationPaths: List<List<Bip32DerivationPath>>,
+        requestorUid: Int,
+        signer: (keys: List<ByteArray>, payloads: List<ByteArray>) -> List<ByteArray>
+    ): List<List<ByteArray>> {
+        require(payloads.size == derivationPaths.size) { "Each payload requires a list of derivation paths" }
+
+        val uniquePaths = derivationPaths.flatten().distinct()
+        Log.d(TAG, "Signing ${payloads.size} payloads with ${uniquePaths.size} unique keys")
+
+        val keys = HashMap<Bip32DerivationPath, ByteArray>(uniquePaths.size)
+        for (path in uniquePaths) {
+            privateKeyCache.get(seed.id, purpose, path, requestorUid)?.let { key -> keys[path] = key }
+        }
+        val missingPaths = uniquePaths.filter { path -> path !in keys }
+        if (missingPaths.isNotEmpty()) {
+            // NOTE: the derivation planner zeroizes any keys it derived if it fails part way through
+            val derivedKeys = try {
+                bipDerivationUseCase.deriveKeys(
+                    purpose, seed, missingPaths, BipDerivationUseCase.KeyType.PRIVATE, failFast = true)
+            } catch (e: Exception) {
+                keys.values.forEach { key -> key.fill(0) }
+                throw e
+            }
+            for ((path, key) in derivedKeys) {
+                keys[path] = key!!
+                privateKeyCache.put(seed.id, purpose, path, requestorUid, key)
+            }
+        }
+        if (privateKeyCache.isEnabled) {
+            Log.d(TAG, "${uniquePaths.size - missingPaths.size}/${uniquePaths.size} keys served from cache; ${privateKeyCache.stats}")
+        }
+
+        try {
+            // (payload index, derivation path) for each requested signature
+            val signatureRequests = derivationPaths.flatMapIndexed { i, paths -> paths.map { path -> i to path } }
+            val batchSize = (signatureRequests.size + MAX_SIGNING_PARALLELISM - 1) / MAX_SIGNING_PARALLELISM
+            val signatures = coroutineScope {
+                signatureRequests.chunked(batchSize.coerceAtLeast(1)).map { batch ->
+                    async(signingDispatcher) {
+                        signer(batch.map { (_, path) -> keys.getValue(path) },
+                            batch.map { (i, _) -> payloads[i] })
+                    }
+                }.awaitAll().flatten()
+            }
+
+            var next = 0
+            return derivationPaths.map { paths -> paths.map { signatures[next++] } }
+        } finally {
+            keys.values.forEach { key -> key.fill(0) }
+        }
+    }
+
+    companion object {
+        private val TAG = BatchSigningUseCase::class.simpleName
+
+        private const val MAX_SIGNING_PARALLELISM = 4
+
+        private val signingDispatcher = Dispatchers.Default.limitedParallelism(MAX_SIGNING_PARALLELISM)
+    }
+}
@@ -5,6 +5,7 @@
 package com.solanamobile.seedvaultimpl.usecase
 
 import com.solanamobile.seedvaultimpl.model.SeedDetails
+import java.security.SecureRandom
 import javax.crypto.SecretKeyFactory
 import javax.crypto.spec.PBEKeySpec
 
@@ -15,16 +16,67 @@ object Bip39PhraseUseCase {
     }
 
     fun toIndex(word: String): Int {
-        val len = word.length
-        require(len >= 3) { "Word '$word' must be at least 3 characters in length" }
-        val prefixLen = if (len == 3) 4 else len // 3-letter words must be an exact match
-        val index = bip39EnglishWordlist.binarySearchBy(word.lowercase()) {
-            it.take(prefixLen)
-        }
+        require(word.length >= 3) { "Word '$word' must be at least 3 characters in length" }
+        val index = findIndex(word)
         require(index >= 0) { "Word '$word' is not a valid BIP39 word (or prefix)" }
         return index
     }
 
+    /**
+     * Non-throwing equivalent of [toIndex], suitable for validating input on every keystroke
+     * @return the index of the BIP39 word matching word, or -1 if there is none
+     */
+    fun findIndex(word: CharSequence): Int {
+        return when {
+            word.length < 3 -> -1
+            word.length == 3 -> bip39EnglishWordTrie.exactMatch(word) // 3-letter words must be an exact match
+            else -> bip39EnglishWordTrie.uniquePrefixMatch(word) // all words are unique in their first 4 letters
+        }
+    }
+
+    /**
+     * @return all BIP39 words starting with prefix, in wordlist order
+     */
+    fun autocomplete(prefix: CharSequence): List<String> {
+        return bip39EnglishWordTrie.autocomplete(prefix)
+    }
+
+    fun isChecksumValid(seedPhraseWordIndices: List<Int>): Boolean {
+        if (seedPhraseWordIndices.size != SeedDetails.SEED_PHRASE_WORD_COUNT_SHORT &&
+            seedPhraseWordIndices.size != SeedDetails.SEED_PHRASE_WORD_COUNT_LONG) {
+            return false
+        }
+        val validator = Bip39PhraseValidator()
+        seedPhraseWordIndices.forEachIndexed { i, index -> validator.setWord(i, index) }
+        return validator.isChecksumValid(seedPhraseWordIndices.size)
+    }
+
+    /**
+     * Generate a random 24-word seed phrase, whose first 12 words are also a checksum-valid
+     * 12-word seed phrase
+     */
+    fun generateSeedPhrase(random: SecureRandom = SecureRandom()): List<Int> {
+        val short = SeedDetails.SEED_PHRASE_WORD_COUNT_SHORT
+        val long = SeedDetails.SEED_PHRASE_WORD_COUNT_LONG
+        val validator = Bip39PhraseValidator()
+        for (i in 0 until long) {
+            validator.setWord(i, random.nextInt(bip39EnglishWordlist.size))
+        }
+
+        // The last word of each phrase holds its checksum bits (4 for 12 words, 8 for 24 words),
+        // preceded by its remaining entropy bits
+        for (wordCount in listOf(short, long)) {
+            val checksumBits = Bip39PhraseValidator.checksumBits(wordCount)
+            val entropyBits = random.nextInt(1 shl (11 - checksumBits))
+            validator.setWord(wordCount - 1, entropyBits shl checksumBits)
+            val checksum = validator.computeChecksum(wordCount) ushr (8 - checksumBits)
+            validator.setWord(wordCount - 1, (entropyBits shl checksumBits) or checksum)
+        }
+        check(validator.isChecksumValid(short) && validator.isChecksumValid(long))
+
+        return validator.getWords(long)
+    }
+
     fun toSeed(seedPhraseWordIndices: List<Int>): ByteArray {
         require(seedPhraseWordIndices.size == SeedDetails.SEED_PHRASE_WORD_COUNT_SHORT ||
                 seedPhraseWordIndices.size == SeedDetails.SEED_PHRASE_WORD_COUNT_LONG) {
@@ -2090,4 +2142,6 @@ object Bip39PhraseUseCase {
         "zone",
         "zoo",
     )
-}
\ No newline at end of file
+
+    private val bip39EnglishWordTrie by lazy { Bip39WordTrie(bip39EnglishWordlist) }
+}
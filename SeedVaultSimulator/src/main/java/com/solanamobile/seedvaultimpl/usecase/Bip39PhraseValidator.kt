@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import com.solanamobile.seedvaultimpl.model.SeedDetails
+import java.security.MessageDigest
+
+/**
+ * Incrementally tracks the entropy and checksum bits of a BIP39 seed phrase as its words are
+ * entered. Each word contributes 11 bits at a fixed offset, so setting a word only updates those
+ * bits; checking the checksum is then a single SHA-256 over the 16 (12 words) or 32 (24 words)
+ * entropy bytes. The first 12 words of a 24-word phrase occupy the same bits as a 12-word phrase,
+ * so a single validator serves both phrase lengths.
+ */
+class Bip39PhraseValidator {
+    // 24 words * 11 bits = 264 bits = 256 entropy bits + 8 checksum bits
+    private val bits = ByteArray(PACKED_SIZE)
+    private val indices = IntArray(SeedDetails.SEED_PHRASE_WORD_COUNT_LONG) { UNRECOGNIZED }
+
+    /**
+     * @param index the BIP39 word index at position, or [UNRECOGNIZED]
+     */
+    fun setWord(position: Int, index: Int) {
+        require(position in indices.indices) { "Position $position is out of range" }
+        require(index == UNRECOGNIZED || index in 0 until WORDLIST_SIZE) { "Index $index is out of range" }
+        indices[position] = index
+        val value = if (index == UNRECOGNIZED) 0 else index
+        for (b in 0 until BITS_PER_WORD) {
+            val bit = BITS_PER_WORD * position + b
+            val mask = 0x80 ushr (bit and 7)
+            val set = ((value ushr (BITS_PER_WORD - 1 - b)) and 1) != 0
+            val byte = bits[bit ushr 3].toInt()
+            bits[bit ushr 3] = (if (set) byte or mask else byte and mask.inv()).toByte()
+        }
+    }
+
+    fun isComplete(wordCount: Int): Boolean {
+        requireValidWordCount(wordCount)
+        for (i in 0 until wordCount) {
+            if (indices[i] == UNRECOGNIZED) return false
+        }
+        return true
+    }
+
+    fun isChecksumValid(wordCount: Int): Boolean {
+        if (!isComplete(wordCount)) {
+            return false
+        }
+        val checksumMask = checksumMask(wordCount)
+        val entropySize = entropySize(wordCount)
+        return (computeChecksum(wordCount) and checksumMask) == (bits[entropySize].toInt() and checksumMask)
+    }
+
+    /**
+     * @return the checksum bits for the entropy of the first wordCount words, left-aligned in a
+     *      byte (the remaining bits are undefined)
+     */
+    fun computeChecksum(wordCount: Int): Int {
+        requireValidWordCount(wordCount)
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(bits, 0, entropySize(wordCount))
+        return digest.digest()[0].toInt() and 0xFF
+    }
+
+    fun getWords(wordCount: Int): List<Int> {
+        requireValidWordCount(wordCount)
+        return indices.take(wordCount)
+    }
+
+    private fun requireValidWordCount(wordCount: Int) {
+        require(wordCount == SeedDetails.SEED_PHRASE_WORD_COUNT_SHORT ||
+                wordCount == SeedDetails.SEED_PHRASE_WORD_COUNT_LONG) {
+            "Unsupported seed phrase length of $wordCount"
+        }
+    }
+
+    companion object {
+        const val UNRECOGNIZED = -1
+
+        private const val WORDLIST_SIZE = 2048
+        private const val BITS_PER_WORD = 11
+        private const val PACKED_SIZE = (SeedDetails.SEED_PHRASE_WORD_COUNT_LONG * BITS_PER_WORD + 7) / 8
+
+        // Entropy is 32 bits per 3 words, followed by 1 checksum bit per 3 words
+        internal fun entropySize(wordCount: Int) = wordCount * 4 / 3
+        internal fun checksumBits(wordCount: Int) = wordCount / 3
+        internal fun checksumMask(wordCount: Int) = (0xFF shl (8 - checksumBits(wordCount))) and 0xFF
+    }
+}
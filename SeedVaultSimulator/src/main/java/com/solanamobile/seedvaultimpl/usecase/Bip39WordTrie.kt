@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+/**
+ * A compact, array-backed prefix trie over a sorted wordlist of lowercase ASCII words. Nodes are
+ * stored as parallel arrays in first-child/next-sibling form. Since the wordlist is sorted, the
+ * words sharing the prefix represented by a node form a contiguous range of the wordlist, so
+ * lookups and autocompletion run in O(prefix length) and allocate nothing (beyond a [List.subList]
+ * view for autocompletion).
+ */
+internal class Bip39WordTrie(private val words: List<String>) {
+    private val letter: CharArray
+    private val firstChild: IntArray
+    private val nextSibling: IntArray
+    private val rangeStart: IntArray // first word index with this node's prefix
+    private val rangeEnd: IntArray // one past the last word index with this node's prefix
+    private val wordIndex: IntArray // index of the word ending at this node, or NONE
+
+    init {
+        require(words.zipWithNext().all { (a, b) -> a < b }) { "Wordlist must be sorted and unique" }
+        val capacity = 1 + words.sumOf { it.length }
+        letter = CharArray(capacity)
+        firstChild = IntArray(capacity) { NONE }
+        nextSibling = IntArray(capacity) { NONE }
+        rangeStart = IntArray(capacity)
+        rangeEnd = IntArray(capacity)
+        wordIndex = IntArray(capacity) { NONE }
+
+        // Root node
+        var numNodes = 1
+        rangeStart[ROOT] = 0
+        rangeEnd[ROOT] = words.size
+
+        // Since words are sorted, a new child is always appended after its existing siblings, and
+        // only the most recently added child of a node can be extended
+        val lastChild = IntArray(capacity) { NONE }
+        words.forEachIndexed { i, word ->
+            var node = ROOT
+            for (c in word) {
+                require(c in 'a'..'z') { "Word '$word' must be lowercase ASCII" }
+                val last = lastChild[node]
+                node = if (last != NONE && letter[last] == c) {
+                    last
+                } else {
+                    val child = numNodes++
+                    letter[child] = c
+                    rangeStart[child] = i
+                    if (last == NONE) firstChild[node] = child else nextSibling[last] = child
+                    lastChild[node] = child
+                    child
+                }
+                rangeEnd[node] = i + 1
+            }
+            wordIndex[node] = i
+        }
+    }
+
+    /**
+     * @return the index of word, which must be an exact match, or NONE
+     */
+    fun exactMatch(word: CharSequence): Int {
+        val node = find(word)
+        return if (node == NONE) NONE else wordIndex[node]
+    }
+
+    /**
+     * @return the index of the only word starting with prefix (or exactly matching it), or NONE
+     *      if no word, or more than one word, starts with prefix
+     */
+    fun uniquePrefixMatch(prefix: CharSequence): Int {
+        val node = find(prefix)
+        return when {
+            node == NONE -> NONE
+            wordIndex[node] != NONE -> wordIndex[node]
+            rangeEnd[node] - rangeStart[node] == 1 -> rangeStart[node]
+            else -> NONE
+        }
+    }
+
+    /**
+     * @return a view of all words starting with prefix, in wordlist order
+     */
+    fun autocomplete(prefix: CharSequence): List<String> {
+        val node = find(prefix)
+        return if (node == NONE) emptyList() else words.subList(rangeStart[node], rangeEnd[node])
+    }
+
+    // Matching is case-insensitive for ASCII letters
+    private fun find(prefix: CharSequence): Int {
+        var node = ROOT
+        for (i in prefix.indices) {
+            val c = prefix[i].let { if (it in 'A'..'Z') it + ('a' - 'A') else it }
+            var child = firstChild[node]
+            while (child != NONE && letter[child] != c) {
+                child = nextSibling[child]
+            }
+            if (child == NONE) {
+                return NONE
+            }
+            node = child
+        }
+        return node
+    }
+
+    companion object {
+        const val NONE = -1
+        private const val ROOT = 0
+    }
+}
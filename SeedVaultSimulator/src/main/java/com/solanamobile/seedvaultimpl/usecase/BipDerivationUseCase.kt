@@ -4,37 +4,189 @@
 
 package com.solanamobile.seedvaultimpl.usecase
 
+import android.util.Log
 import com.solanamobile.seedvault.Bip32DerivationPath
 import com.solanamobile.seedvault.BipLevel
 import com.solanamobile.seedvault.Bip44DerivationPath
 import com.solanamobile.seedvault.BipDerivationPath
 import com.solanamobile.seedvaultimpl.model.Authorization
 import com.solanamobile.seedvaultimpl.model.Seed
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.withContext
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
 class BipDerivationUseCase @Inject constructor(
-    private val ed25519Slip10UseCase: Ed25519Slip10UseCase
+    private val ed25519Slip10UseCase: Ed25519Slip10UseCase,
+    private val ed25519Bip32UseCase: Ed25519Bip32UseCase
 ) {
-    // TODO: also support Ed25519Bip32 derivations
-
     // Opaque object representing a partial derivation from a BIP32 path. Further derivations can
-    // be performed on this. This is intended to be used when deriving groups of public keys, to
-    // save on processing the same root derivation path multiple times.
-    interface PartialPublicDerivation
+    // be performed on this. This is intended to be used when deriving groups of keys, to save on
+    // processing the same root derivation path multiple times. It contains secret key material, and
+    // should be zeroized when no longer required.
+    interface PartialPublicDerivation {
+        fun zeroize()
+    }
+
+    enum class KeyType { PUBLIC, PRIVATE }
+
+    enum class DerivationScheme { ED25519_SLIP10, ED25519_BIP32 }
+
+    // A node in the prefix trie of a derivation plan. path is set if a requested derivation path
+    // ends at this node.
+    private class PlanNode {
+        val children = LinkedHashMap<BipLevel, PlanNode>()
+        var path: Bip32DerivationPath? = null
+
+        val consumers: Int
+            get() = children.size + (if (path != null) 1 else 0)
+    }
+
+    // A requested key, to be derived by applying relativeLevels to derivationRoot (or to the master
+    // secret, if derivationRoot is null)
+    private class LeafDerivation(
+        val path: Bip32DerivationPath,
+        val derivationRoot: PartialPublicDerivation?,
+        val relativeLevels: List<BipLevel>
+    )
 
     // In some key derivation schemes (such as BIP32-Ed25519), not every key exists.
     class KeyDoesNotExistException(message: String? = null, cause: Throwable? = null) : Exception(message, cause)
 
+    /**
+     * Derive keys for a batch of derivation paths. The paths are arranged into a prefix trie, and
+     * each internal node of the trie which is shared by more than one requested key is derived
+     * exactly once; the requested keys are then derived in parallel from their nearest shared
+     * ancestor.
+     * @param derivationPaths the (normalized) derivation paths for which to derive keys
+     * @param failFast if true, the first key which does not exist aborts all other derivations
+     * @return a map from each derivation path to its key, or to null if that key does not exist
+     * @throws KeyDoesNotExistException if failFast is true and any requested key does not exist
+     */
+    suspend fun deriveKeys(
+        purpose: Authorization.Purpose,
+        seed: Seed,
+        derivationPaths: Collection<Bip32DerivationPath>,
+        keyType: KeyType,
+        failFast: Boolean = false
+    ): Map<Bip32DerivationPath, ByteArray?> {
+        val root = PlanNode()
+        for (path in derivationPaths) {
+            var node = root
+            for (level in path.levels) {
+                node = node.children.getOrPut(level) { PlanNode() }
+            }
+            node.path = path
+        }
+
+        return withContext(derivationDispatcher) {
+            val partialDerivations = mutableListOf<PartialPublicDerivation>()
+            val keys = ConcurrentHashMap<Bip32DerivationPath, ByteArray>()
+            var succeeded = false
+            try {
+                // Derive all shared internal nodes (sequentially; there are few of them)...
+                val leaves = mutableListOf<LeafDerivation>()
+                planDerivations(purpose, seed, keyType, root, null, listOf(), leaves, partialDerivations)
+                val unplannedHmacs = leaves.sumOf { leaf -> leaf.path.levels.size + 1 }
+                val plannedHmacs = countTrieEdges(root) + 1
+                Log.d(TAG, "Derivation plan for ${leaves.size} keys: $plannedHmacs HMACs (vs $unplannedHmacs unplanned)")
+
+                // ...then derive all requested keys in parallel
+                coroutineScope {
+                    leaves.map { leaf ->
+                        async {
+                            val relativePath = Bip32DerivationPath(leaf.relativeLevels)
+                            try {
+                                keys[leaf.path] = when (keyType) {
+                                    KeyType.PUBLIC -> derivePublicKey(
+                                        purpose, seed, relativePath, leaf.derivationRoot)
+                                    KeyType.PRIVATE -> derivePrivateKey(
+                                        purpose, seed, relativePath, leaf.derivationRoot)
+                                }
+                            } catch (e: KeyDoesNotExistException) {
+                                if (failFast) {
+                                    throw KeyDoesNotExistException("Key does not exist for ${leaf.path}", e)
+                                }
+                            }
+                        }
+                    }.awaitAll()
+                }
+                succeeded = true
+            } finally {
+                partialDerivations.forEach { pd -> pd.zeroize() }
+                if (!succeeded && keyType == KeyType.PRIVATE) {
+                    keys.values.forEach { key -> key.fill(0) }
+                }
+            }
+
+            derivationPaths.associateWith { path -> keys[path] }
+        }
+    }
+
+    private fun planDerivations(
+        purpose: Authorization.Purpose,
+        seed: Seed,
+        keyType: KeyType,
+        node: PlanNode,
+        derivationRoot: PartialPublicDerivation?,
+        relativeLevels: List<BipLevel>,
+        leaves: MutableList<LeafDerivation>,
+        partialDerivations: MutableList<PartialPublicDerivation>
+    ) {
+        if (node.consumers > 1) {
+            // This node is shared by multiple keys; derive it once, and continue from here
+            var partial = derivePublicKeyPartial(
+                purpose, seed, Bip32DerivationPath(relativeLevels), derivationRoot)
+            partialDerivations.add(partial)
+            if (keyType == KeyType.PUBLIC && isNonHardenedSubtree(node)) {
+                // Where the derivation scheme allows it, derive the remainder of this subtree
+                // from the public key alone
+                toPublicOnlyPartial(purpose, partial)?.takeIf { it !== partial }?.let { publicOnly ->
+                    partialDerivations.add(publicOnly)
+                    partial.zeroize()
+                    partial = publicOnly
+                }
+            }
+            node.path?.let { path -> leaves.add(LeafDerivation(path, partial, listOf())) }
+            for ((level, child) in node.children) {
+                planDerivations(purpose, seed, keyType, child, partial, listOf(level), leaves, partialDerivations)
+            }
+        } else {
+            node.path?.let { path -> leaves.add(LeafDerivation(path, derivationRoot, relativeLevels)) }
+            for ((level, child) in node.children) {
+                planDerivations(purpose, seed, keyType, child, derivationRoot, relativeLevels + level, leaves, partialDerivations)
+            }
+        }
+    }
+
+    private fun isNonHardenedSubtree(node: PlanNode): Boolean =
+        node.children.all { (level, child) -> !level.hardened && isNonHardenedSubtree(child) }
+
+    private fun countTrieEdges(node: PlanNode): Int =
+        node.children.size + node.children.values.sumOf { child -> countTrieEdges(child) }
+
+    fun derivationSchemeForPurpose(purpose: Authorization.Purpose): DerivationScheme {
+        return when (purpose) {
+            Authorization.Purpose.SIGN_SOLANA_TRANSACTIONS -> DerivationScheme.ED25519_SLIP10
+        }
+    }
+
     fun derivePrivateKey(
         purpose: Authorization.Purpose,
         seed: Seed,
-        derivationPath: Bip32DerivationPath
+        derivationPath: Bip32DerivationPath,
+        partialDerivation: PartialPublicDerivation? = null
     ): ByteArray {
-        return when (purpose) {
-            Authorization.Purpose.SIGN_SOLANA_TRANSACTIONS -> ed25519Slip10UseCase.derivePrivateKey(
-                seed.details, derivationPath)
+        return when (derivationSchemeForPurpose(purpose)) {
+            DerivationScheme.ED25519_SLIP10 -> ed25519Slip10UseCase.derivePrivateKey(
+                seed.details, derivationPath, seed.id, partialDerivation)
+            DerivationScheme.ED25519_BIP32 -> ed25519Bip32UseCase.derivePrivateKey(
+                seed.details, derivationPath, partialDerivation)
         }
     }
 
@@ -44,22 +196,51 @@ class BipDerivationUseCase @Inject constructor(
         derivationPath: Bip32DerivationPath,
         partialPublicDerivation: PartialPublicDerivation? = null
     ): ByteArray {
-        return when (purpose) {
-            Authorization.Purpose.SIGN_SOLANA_TRANSACTIONS ->
-                ed25519Slip10UseCase.derivePublicKey(seed.details, derivationPath, partialPublicDerivation)
+        return when (derivationSchemeForPurpose(purpose)) {
+            DerivationScheme.ED25519_SLIP10 ->
+                ed25519Slip10UseCase.derivePublicKey(seed.details, derivationPath, seed.id, partialPublicDerivation)
+            DerivationScheme.ED25519_BIP32 ->
+                ed25519Bip32UseCase.derivePublicKey(seed.details, derivationPath, partialPublicDerivation)
         }
     }
 
     fun derivePublicKeyPartial(
         purpose: Authorization.Purpose,
         seed: Seed,
-        derivationPath: Bip32DerivationPath
+        derivationPath: Bip32DerivationPath,
+        partialDerivation: PartialPublicDerivation? = null
     ): PartialPublicDerivation {
-        return when (purpose) {
-            Authorization.Purpose.SIGN_SOLANA_TRANSACTIONS ->
-                ed25519Slip10UseCase.derivePublicKeyPartialDerivation(seed.details, derivationPath)
+        return when (derivationSchemeForPurpose(purpose)) {
+            DerivationScheme.ED25519_SLIP10 ->
+                ed25519Slip10UseCase.derivePublicKeyPartialDerivation(
+                    seed.details, derivationPath, seed.id, partialDerivation)
+            DerivationScheme.ED25519_BIP32 ->
+                ed25519Bip32UseCase.derivePublicKeyPartialDerivation(
+                    seed.details, derivationPath, partialDerivation)
         }
     }
+
+    // Returns a partial derivation from which only non-hardened descendant public keys can be
+    // derived, without further use of private key material, or null if the derivation scheme for
+    // purpose does not support public-only derivation. partialDerivation remains owned by the
+    // caller.
+    fun toPublicOnlyPartial(
+        purpose: Authorization.Purpose,
+        partialDerivation: PartialPublicDerivation
+    ): PartialPublicDerivation? {
+        return when (derivationSchemeForPurpose(purpose)) {
+            DerivationScheme.ED25519_SLIP10 -> null
+            DerivationScheme.ED25519_BIP32 -> ed25519Bip32UseCase.toExtendedPublicKey(partialDerivation)
+        }
+    }
+
+    companion object {
+        private val TAG = BipDerivationUseCase::class.simpleName
+
+        private const val MAX_DERIVATION_PARALLELISM = 4
+
+        private val derivationDispatcher = Dispatchers.Default.limitedParallelism(MAX_DERIVATION_PARALLELISM)
+    }
 }
 
 fun BipDerivationPath.normalize(
@@ -120,12 +301,12 @@ fun Bip44DerivationPath.toBip32DerivationPath(
 }
 
 private fun Bip32DerivationPath.hardenAllLevels(): Bip32DerivationPath {
-    val levels = levels
-    if (levels.all { level -> level.hardened }) {
+    val hardenedBit = Bip32DerivationPath.PACKED_LEVEL_HARDENED_BIT
+    if ((0 until depth).all { i -> getPackedLevel(i) and hardenedBit != 0 }) {
         return this
     }
-    return Bip32DerivationPath(levels.map { level ->
-        BipLevel(level.index, true)
+    return Bip32DerivationPath.fromPackedLevels(*IntArray(depth) { i ->
+        getPackedLevel(i) or hardenedBit
     })
 }
 
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import org.bouncycastle.math.ec.rfc8032.Ed25519
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * A pure-JVM [SignatureEngine], built on BouncyCastle's RFC 8032 Ed25519 implementation. It loads
+ * no native code, so it also runs in host JVM tests.
+ */
+@Singleton
+class BouncyCastleSignatureEngine @Inject constructor() : SignatureEngine {
+    init {
+        Ed25519.precompute()
+    }
+
+    override fun secretKeyFromSeed(seed: ByteArray): ByteArray {
+        require(seed.size == Ed25519.SECRET_KEY_SIZE) { "Seed must be ${Ed25519.SECRET_KEY_SIZE} bytes" }
+        val secretKey = seed.copyOf(Ed25519.SECRET_KEY_SIZE + Ed25519.PUBLIC_KEY_SIZE)
+        Ed25519.generatePublicKey(seed, 0, secretKey, Ed25519.SECRET_KEY_SIZE)
+        return secretKey
+    }
+
+    override fun sign(secretKey: ByteArray, message: ByteArray): ByteArray {
+        require(secretKey.size == Ed25519.SECRET_KEY_SIZE + Ed25519.PUBLIC_KEY_SIZE) { "Invalid Ed25519 secret key" }
+        val signature = ByteArray(Ed25519.SIGNATURE_SIZE)
+        Ed25519.sign(secretKey, 0, secretKey, Ed25519.SECRET_KEY_SIZE, message, 0, message.size, signature, 0)
+        return signature
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.util.Log
+import androidx.core.content.ContextCompat
+import com.solanamobile.seedvault.BipLevel
+import com.solanamobile.seedvaultimpl.data.SeedRepository
+import dagger.hilt.android.qualifiers.ApplicationContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * A bounded, TTL-limited LRU cache of intermediate key derivation nodes, keyed by seed ID and
+ * derivation path prefix. Entries are only populated for derivations performed on behalf of a
+ * known seed (i.e. within an authorized session), expire after [ENTRY_TTL_MS], and are zeroized
+ * whenever they leave the cache. The cache is cleared when the authorization flow which populated it
+ * finishes, when the screen turns off, when the owning seed is updated or deleted, or when any
+ * authorization is revoked.
+ *
+ * Nodes are stored as opaque byte arrays; both [getLongestPrefix] and [put] copy, so callers own
+ * (and are responsible for zeroizing) the arrays they pass in or receive.
+ */
+@Singleton
+class DerivationNodeCache @Inject constructor(
+    @ApplicationContext context: Context,
+    seedRepository: SeedRepository
+) {
+    private data class Key(
+        val seedId: Long,
+        val levels: List<BipLevel>
+    )
+
+    private val cache = ZeroizingTtlLruCache<Key>(MAX_ENTRIES, ENTRY_TTL_MS, Key::seedId)
+
+    private val screenOffReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            if (intent.action == Intent.ACTION_SCREEN_OFF) {
+                clear()
+            }
+        }
+    }
+
+    init {
+        ContextCompat.registerReceiver(context, screenOffReceiver,
+            IntentFilter(Intent.ACTION_SCREEN_OFF), ContextCompat.RECEIVER_NOT_EXPORTED)
+        cache.clearOnRepositoryChanges(seedRepository)
+    }
+
+    val stats: ZeroizingTtlLruCache.Stats
+        get() = cache.stats
+
+    /**
+     * Find the longest cached prefix of levels, considering prefixes of at most maxDepth levels
+     * @return a Pair of the matched prefix depth and a copy of the cached node, or null if no
+     *      prefix of levels is cached
+     */
+    fun getLongestPrefix(seedId: Long, levels: List<BipLevel>, maxDepth: Int = levels.size): Pair<Int, ByteArray>? {
+        val keys = (minOf(maxDepth, levels.size) downTo 1).asSequence().map { depth ->
+            Key(seedId, levels.subList(0, depth))
+        }
+        return cache.getFirst(keys)?.let { (key, node) -> key.levels.size to node }
+    }
+
+    fun put(seedId: Long, levels: List<BipLevel>, node: ByteArray) {
+        require(levels.isNotEmpty()) { "The master node is not cached" }
+        cache.put(Key(seedId, levels.toList()), node)
+    }
+
+    fun clear(seedId: Long) {
+        cache.clear(seedId)
+        Log.d(TAG, "Cleared derivation node cache for seed $seedId")
+    }
+
+    fun clear() {
+        cache.clear()
+        Log.d(TAG, "Cleared derivation node cache")
+    }
+
+    companion object {
+        private val TAG = DerivationNodeCache::class.simpleName
+
+        private const val MAX_ENTRIES = 64
+        private const val ENTRY_TTL_MS = 120_000L
+    }
+}
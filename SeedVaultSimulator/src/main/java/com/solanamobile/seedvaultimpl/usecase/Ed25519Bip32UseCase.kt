@@ -6,212 +6,380 @@ package com.solanamobile.seedvaultimpl.usecase
 
 import android.util.Log
 import androidx.annotation.Size
+import com.goterl.lazysodium.LazySodiumAndroid
 import com.solanamobile.seedvault.Bip32DerivationPath
 import com.solanamobile.seedvault.WalletContractV1
 import com.solanamobile.seedvaultimpl.model.SeedDetails
-import java.math.BigInteger
-import javax.crypto.Mac
-import javax.crypto.spec.SecretKeySpec
-import kotlin.experimental.and
-import kotlin.experimental.or
-
-object Ed25519Bip32UseCase {
-    private data class KeyDerivationMaterial(
-        @Size(32) val kL: ByteArray,
-        @Size(32) val kR: ByteArray,
-        @Size(32) val c: ByteArray,
-    ) {
-        override fun equals(other: Any?): Boolean {
-            if (this === other) return true
-            if (javaClass != other?.javaClass) return false
-
-            other as KeyDerivationMaterial
+import javax.inject.Inject
+import javax.inject.Singleton
+
+@Singleton
+class Ed25519Bip32UseCase @Inject constructor(
+    private val sodium: LazySodiumAndroid
+) {
+    // Holds kL || kR || c in a single buffer, so that derivations can be performed in place
+    private class KeyDerivationMaterial(
+        @Size(KDM_SIZE.toLong()) val kc: ByteArray = ByteArray(KDM_SIZE)
+    ) : BipDerivationUseCase.PartialPublicDerivation {
+        init {
+            require(kc.size == KDM_SIZE) { "Key derivation material must be $KDM_SIZE bytes" }
+        }
 
-            if (!kL.contentEquals(other.kL)) return false
-            if (!kR.contentEquals(other.kR)) return false
-            if (!c.contentEquals(other.c)) return false
+        override fun zeroize() {
+            kc.fill(0)
+        }
+    }
 
-            return true
+    // Holds A || c. An extended public key can only derive non-hardened descendant public keys. It
+    // holds no private key material, but its chain code together with any non-hardened child
+    // private key reveals the parent private key, so it is zeroized all the same.
+    private class ExtendedPublicKey(
+        @Size(XPUB_SIZE.toLong()) val ac: ByteArray = ByteArray(XPUB_SIZE)
+    ) : BipDerivationUseCase.PartialPublicDerivation {
+        init {
+            require(ac.size == XPUB_SIZE) { "Extended public key must be $XPUB_SIZE bytes" }
         }
 
-        override fun hashCode(): Int {
-            var result = kL.contentHashCode()
-            result = 31 * result + kR.contentHashCode()
-            result = 31 * result + c.contentHashCode()
-            return result
+        override fun zeroize() {
+            ac.fill(0)
         }
     }
 
-    private val TAG = Ed25519Bip32UseCase::class.simpleName
-    
-    private const val MASTER_SECRET_MAC_KEY = "ed25519 seed"
-    private const val MASTER_SECRET_KEY_DERIVATION_MAC = "HmacSHA512"
-    private const val MASTER_SECRET_CHAIN_CODE_DERIVATION_MAC = "HmacSHA256"
-    private const val MASTER_SECRET_CHAIN_CODE_DATA_PREFIX: Byte = 1
-    
-    private const val KEY_DERIVATION_MAC = "HmacSHA512"
-
-    private val ED25519_BASE_ORDER by lazy {
-        BigInteger(1, byteArrayOf(
-            0x10.toByte(), 0x00.toByte(), 0x00.toByte(), 0x00.toByte(),
-            0x00.toByte(), 0x00.toByte(), 0x00.toByte(), 0x00.toByte(),
-            0x00.toByte(), 0x00.toByte(), 0x00.toByte(), 0x00.toByte(),
-            0x00.toByte(), 0x00.toByte(), 0x00.toByte(), 0x00.toByte(),
-            0x14.toByte(), 0xDE.toByte(), 0xF9.toByte(), 0xDE.toByte(),
-            0xA2.toByte(), 0xF7.toByte(), 0x9C.toByte(), 0xD6.toByte(),
-            0x58.toByte(), 0x12.toByte(), 0x63.toByte(), 0x1A.toByte(),
-            0x5C.toByte(), 0xF5.toByte(), 0xD3.toByte(), 0xED.toByte()))
+    companion object {
+        private val TAG = Ed25519Bip32UseCase::class.simpleName
+
+        private const val KEY_SIZE = 32
+        private const val KDM_SIZE = 3 * KEY_SIZE
+        private const val XPUB_SIZE = 2 * KEY_SIZE
+
+        // Only the low 28 bytes of ZL are used when deriving a child kL
+        private const val ZL_SIZE = 28
+
+        private const val MASTER_SECRET_CHAIN_CODE_DATA_PREFIX: Byte = 1
+        private const val HARDENED_Z_PREFIX: Byte = 0
+        private const val HARDENED_CHAIN_CODE_PREFIX: Byte = 1
+        private const val NON_HARDENED_Z_PREFIX: Byte = 2
+        private const val NON_HARDENED_CHAIN_CODE_PREFIX: Byte = 3
     }
 
+    /**
+     * Derive the extended private key for bip32DerivationPath
+     * @return kL || kR. NOTE: this is a BIP32-Ed25519 extended private key, not a libsodium secret
+     *      key (seed || A); kL is used directly as the signing scalar, and kR as the nonce prefix.
+     */
     @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE)
     fun derivePrivateKey(
         seed: SeedDetails,
-        bip32DerivationPath: Bip32DerivationPath
+        bip32DerivationPath: Bip32DerivationPath,
+        derivationRoot: BipDerivationUseCase.PartialPublicDerivation? = null
     ): ByteArray {
-        Log.d(TAG, "Deriving master secret private key")
-        var node = deriveMasterSecret(seed.seed)
-        for (level in bip32DerivationPath.levels) {
-            Log.d(TAG, "Deriving child private key ${level.index} (hardened=${level.hardened})")
-            node = deriveChildPrivateKey(node, level.index, level.hardened)
+        require(derivationRoot !is ExtendedPublicKey) { "Private keys cannot be derived from an extended public key" }
+        Log.d(TAG, "Deriving private key from derivationRoot=${if (derivationRoot != null) "partial" else "root"}")
+        val kdm = deriveSecretKey(seed, bip32DerivationPath, derivationRoot as KeyDerivationMaterial?)
+        try {
+            return kdm.kc.copyOf(2 * KEY_SIZE)
+        } finally {
+            if (kdm !== derivationRoot) {
+                kdm.zeroize()
+            }
         }
-
-        TODO("wrong. This is the expanded private key, not the Sodium secret key.")
-        val privateKey = ByteArray(64)
-        node.kL.copyInto(privateKey, 0)
-
-        return privateKey
     }
 
     @Size(SignPayloadUseCase.ED25519_PUBLIC_KEY_SIZE)
     fun derivePublicKey(
         seed: SeedDetails,
-        bip32DerivationPath: Bip32DerivationPath
+        bip32DerivationPath: Bip32DerivationPath,
+        derivationRoot: BipDerivationUseCase.PartialPublicDerivation? = null
     ): ByteArray {
-        val privKey = derivePrivateKey(seed, bip32DerivationPath)
-        Log.d(TAG, "Deriving public key")
-        return derivePublicKey(privKey)
+        Log.d(TAG, "Deriving public key from derivationRoot=${derivationRootName(derivationRoot)}")
+        if (derivationRoot is ExtendedPublicKey) {
+            val xpub = deriveExtendedPublicKey(derivationRoot, bip32DerivationPath)
+            try {
+                return xpub.ac.copyOf(KEY_SIZE)
+            } finally {
+                if (xpub !== derivationRoot) {
+                    xpub.zeroize()
+                }
+            }
+        }
+
+        val kdm = deriveSecretKey(seed, bip32DerivationPath, derivationRoot as KeyDerivationMaterial?)
+        try {
+            val publicKey = ByteArray(KEY_SIZE)
+            scalarMultiplyByEd25519BasePoint(HmacDerivationContext.get(), kdm.kc, publicKey)
+            return publicKey
+        } finally {
+            if (kdm !== derivationRoot) {
+                kdm.zeroize()
+            }
+        }
+    }
+
+    fun derivePublicKeyPartialDerivation(
+        seed: SeedDetails,
+        bip32DerivationPath: Bip32DerivationPath,
+        derivationRoot: BipDerivationUseCase.PartialPublicDerivation? = null
+    ): BipDerivationUseCase.PartialPublicDerivation {
+        Log.d(TAG, "Deriving partial derivation from derivationRoot=${derivationRootName(derivationRoot)}")
+        if (derivationRoot is ExtendedPublicKey) {
+            return deriveExtendedPublicKey(derivationRoot, bip32DerivationPath)
+        }
+        return deriveSecretKey(seed, bip32DerivationPath, derivationRoot as KeyDerivationMaterial?)
+    }
+
+    /**
+     * Convert a partial derivation into an extended public key. All further derivations from the
+     * returned partial derivation must be non-hardened, and are performed without any private key
+     * material. The caller remains responsible for zeroizing partialDerivation.
+     */
+    fun toExtendedPublicKey(
+        partialDerivation: BipDerivationUseCase.PartialPublicDerivation
+    ): BipDerivationUseCase.PartialPublicDerivation {
+        return when (partialDerivation) {
+            is ExtendedPublicKey -> partialDerivation
+            is KeyDerivationMaterial -> {
+                val xpub = ExtendedPublicKey()
+                scalarMultiplyByEd25519BasePoint(HmacDerivationContext.get(), partialDerivation.kc, xpub.ac)
+                partialDerivation.kc.copyInto(xpub.ac, KEY_SIZE, 2 * KEY_SIZE, KDM_SIZE)
+                xpub
+            }
+            else -> throw IllegalArgumentException("Not a BIP32-Ed25519 partial derivation")
+        }
     }
 
-    private fun deriveMasterSecret(@Size(SeedDetails.SEED_LENGTH.toLong()) seed: ByteArray): KeyDerivationMaterial {
-        @Size(64) val privKey = deriveMasterPrivateKey(seed)
-        @Size(32) val chainCode = deriveMasterChainCode(seed)
-        return KeyDerivationMaterial(privKey.copyOf(32), privKey.copyOfRange(32, 64), chainCode)
+    private fun derivationRootName(derivationRoot: BipDerivationUseCase.PartialPublicDerivation?): String {
+        return when (derivationRoot) {
+            null -> "root"
+            is ExtendedPublicKey -> "xpub"
+            else -> "partial"
+        }
     }
 
-    @Size(64)
-    private fun deriveMasterPrivateKey(@Size(64) seed: ByteArray): ByteArray {
-        val hmac = Mac.getInstance(MASTER_SECRET_KEY_DERIVATION_MAC)
-        val keySpec = SecretKeySpec(MASTER_SECRET_MAC_KEY.encodeToByteArray(), MASTER_SECRET_KEY_DERIVATION_MAC)
-        @Size(64) var data: ByteArray = seed
-        do {
-            hmac.init(keySpec)
-            data = hmac.doFinal(data)
-        } while ((data[31].and(0b0010_0000.toByte())) != 0.toByte())
+    // The returned node is owned by the caller, unless it is derivationRoot (which is returned
+    // as-is for an empty path)
+    private fun deriveSecretKey(
+        seed: SeedDetails,
+        bip32DerivationPath: Bip32DerivationPath,
+        derivationRoot: KeyDerivationMaterial? = null
+    ): KeyDerivationMaterial {
+        val levels = bip32DerivationPath.levels
+        if (derivationRoot != null && levels.isEmpty()) {
+            return derivationRoot
+        }
+
+        val ctx = HmacDerivationContext.get()
+        val kdm = KeyDerivationMaterial()
+        var parent = kdm.kc
+        if (derivationRoot != null) {
+            parent = derivationRoot.kc
+        } else {
+            Log.d(TAG, "Deriving master secret private key")
+            deriveMasterSecret(ctx, seed.seed, kdm.kc)
+        }
+
+        try {
+            for (level in levels) {
+                Log.d(TAG, "Deriving child private key ${level.index} (hardened=${level.hardened})")
+                deriveChildPrivateKey(ctx, parent, level.index, level.hardened, kdm.kc)
+                parent = kdm.kc
+            }
+        } catch (e: BipDerivationUseCase.KeyDoesNotExistException) {
+            kdm.zeroize()
+            throw e
+        }
 
-        data[0] = data[0].and(0b1111_1000.toByte())
-        data[31] = data[31].and(0b0111_1111.toByte()).or(0b0100_0000.toByte())
+        return kdm
+    }
+
+    private fun deriveExtendedPublicKey(
+        derivationRoot: ExtendedPublicKey,
+        bip32DerivationPath: Bip32DerivationPath
+    ): ExtendedPublicKey {
+        val levels = bip32DerivationPath.levels
+        if (levels.isEmpty()) {
+            return derivationRoot
+        }
 
-        return data
+        val ctx = HmacDerivationContext.get()
+        val xpub = ExtendedPublicKey()
+        var parent = derivationRoot.ac
+        for (level in levels) {
+            Log.d(TAG, "Deriving child public key ${level.index} (hardened=${level.hardened})")
+            deriveChildPublicKey(ctx, parent, level.index, level.hardened, xpub.ac)
+            parent = xpub.ac
+        }
+        return xpub
     }
 
-    @Size(32)
-    private fun deriveMasterChainCode(@Size(64) seed: ByteArray): ByteArray {
-        val hmac = Mac.getInstance(MASTER_SECRET_CHAIN_CODE_DERIVATION_MAC)
-        val keySpec = SecretKeySpec(MASTER_SECRET_MAC_KEY.encodeToByteArray(), MASTER_SECRET_CHAIN_CODE_DERIVATION_MAC)
-        hmac.init(keySpec)
-        hmac.update(MASTER_SECRET_CHAIN_CODE_DATA_PREFIX)
-        return hmac.doFinal(seed)
+    private fun deriveMasterSecret(
+        ctx: HmacDerivationContext,
+        @Size(SeedDetails.SEED_LENGTH.toLong()) seed: ByteArray,
+        @Size(KDM_SIZE.toLong()) out: ByteArray
+    ) {
+        // kL || kR; rehash until the third highest bit of kL is clear
+        val hmac = ctx.masterSecretHmacSha512
+        hmac.update(seed)
+        hmac.doFinal(out, 0)
+        while ((out[31].toInt() and 0b0010_0000) != 0) {
+            hmac.update(out, 0, 2 * KEY_SIZE)
+            hmac.doFinal(out, 0)
+        }
+        out[0] = (out[0].toInt() and 0b1111_1000).toByte()
+        out[31] = ((out[31].toInt() and 0b0111_1111) or 0b0100_0000).toByte()
+
+        // c
+        val chainCodeHmac = ctx.masterSecretHmacSha256
+        chainCodeHmac.update(MASTER_SECRET_CHAIN_CODE_DATA_PREFIX)
+        chainCodeHmac.update(seed)
+        chainCodeHmac.doFinal(out, 2 * KEY_SIZE)
     }
 
+    // NOTE: parent and out may refer to the same buffer
     private fun deriveChildPrivateKey(
-        kdm: KeyDerivationMaterial,
+        ctx: HmacDerivationContext,
+        @Size(KDM_SIZE.toLong()) parent: ByteArray,
         @WalletContractV1.BipIndex index: Int,
-        hardened: Boolean
-    ): KeyDerivationMaterial {
-        val i: ByteArray
-        val zPrefix: Byte
-        val cPrefix: Byte
-        val data1: ByteArray
-        val data2: ByteArray?
+        hardened: Boolean,
+        @Size(KDM_SIZE.toLong()) out: ByteArray
+    ) {
+        // Hardened children commit to kL || kR; non-hardened children commit only to A, so that
+        // they can also be derived from the extended public key
+        val data: ByteArray
+        val dataLength: Int
         if (hardened) {
-            i = index.or(0x8000_0000.toInt()).toLittleEndianByteArray()
-            zPrefix = 0
-            cPrefix = 1
-            data1 = kdm.kL
-            data2 = kdm.kR
+            data = parent
+            dataLength = 2 * KEY_SIZE
         } else {
-            i = index.toLittleEndianByteArray()
-            zPrefix = 2
-            cPrefix = 3
-            data1 = derivePublicKey(kdm.kL)
-            data2 = null
-        }
-
-        val hmac = Mac.getInstance(KEY_DERIVATION_MAC)
-        val keySpec = SecretKeySpec(kdm.c, KEY_DERIVATION_MAC)
-
-        hmac.init(keySpec)
-        hmac.update(zPrefix)
-        hmac.update(data1)
-        hmac.update(data2) // May be null
-        hmac.update(i)
-        val z = hmac.doFinal()
-
-        val zLBI = bigIntegerFromUnsignedLittleEndianByteArray(z.copyOfRange(0, 28))
-        val kPLBI = bigIntegerFromUnsignedLittleEndianByteArray(kdm.kL)
-        val kLBI = zLBI.multiply(BigInteger.valueOf(8L)).plus(kPLBI)
-        if (isEd25519ScalarMultipleOfBaseOrder(kLBI)) {
-            throw BipDerivationUseCase.KeyDoesNotExistException("No child private key for index $index (hardened=$hardened)")
-        }
-        @Size(32) val kL = littleEndianByteArray32FromBigInteger(kLBI)
-        // NOTE: above math guarantees that kL will meet the requirements of a Ed25519 private key
-        // re: setting/clearing bits in kL[0] and kL[31]
-
-        val zRBI = bigIntegerFromUnsignedLittleEndianByteArray(z.copyOfRange(32, 64))
-        val kPRBI = bigIntegerFromUnsignedLittleEndianByteArray(kdm.kR)
-        val kRBI = zRBI.plus(kPRBI) // still needs to be mod 2**256
-        @Size(32) val kR = littleEndianByteArray32FromBigInteger(kRBI) // includes implicit mod 2**256
-
-        hmac.reset()
-        hmac.update(cPrefix)
-        hmac.update(data1)
-        hmac.update(data2) // May be null
-        hmac.update(i)
-
-        @Size(32) val c = hmac.doFinal().copyOfRange(32, 64)
-
-        return KeyDerivationMaterial(kL, kR, c)
-    }
+            data = ctx.parentPublicKeyScratch
+            scalarMultiplyByEd25519BasePoint(ctx, parent, data)
+            dataLength = KEY_SIZE
+        }
 
-    @Size(32)
-    private fun derivePublicKey(
-        @Size(32) privKey: ByteArray
-    ): ByteArray {
-        val pubKey = scalarMultiplyByEd25519BasePoint(privKey)
-        if (isEd25519IdentityPointEncoded(pubKey)) {
-            throw BipDerivationUseCase.KeyDoesNotExistException()
+        val z = ctx.scratch
+        val c = ctx.chainCodeScratch
+        val zL = ctx.zLimbs
+        val kL = ctx.kLLimbs
+        val kR = ctx.kRLimbs
+        try {
+            val i = if (hardened) index.or(0x8000_0000.toInt()) else index
+            val hmac = ctx.initHmacSha512WithChainCode(parent, 2 * KEY_SIZE)
+            hmac.update(if (hardened) HARDENED_Z_PREFIX else NON_HARDENED_Z_PREFIX)
+            hmac.update(data, 0, dataLength)
+            hmac.update(ctx.indexLittleEndian(i))
+            hmac.doFinal(z, 0)
+            // NOTE: re-key explicitly rather than relying on the provider's post-doFinal reset
+            ctx.initHmacSha512WithChainCode(parent, 2 * KEY_SIZE)
+            hmac.update(if (hardened) HARDENED_CHAIN_CODE_PREFIX else NON_HARDENED_CHAIN_CODE_PREFIX)
+            hmac.update(data, 0, dataLength)
+            hmac.update(ctx.indexLittleEndian(i))
+            hmac.doFinal(c, 0)
+
+            // kL = 8 * ZL[0..28] + kPL. The child key does not exist if this overflows 256 bits,
+            // or is a multiple of the base point order (i.e. the public key is the identity point).
+            Ed25519Scalar.load(z, 0, ZL_SIZE, zL)
+            Ed25519Scalar.mul8(zL, zL)
+            Ed25519Scalar.load(parent, 0, KEY_SIZE, kL)
+            val carry = Ed25519Scalar.add(zL, kL, kL)
+            Ed25519Scalar.reduceModL(kL, zL)
+            val exists = (carry == 0) and !Ed25519Scalar.isZero(zL)
+
+            // kR = (ZR + kPR) mod 2^256
+            Ed25519Scalar.load(z, KEY_SIZE, KEY_SIZE, zL)
+            Ed25519Scalar.load(parent, KEY_SIZE, KEY_SIZE, kR)
+            Ed25519Scalar.add(zL, kR, kR)
+
+            Ed25519Scalar.store(kL, out, 0)
+            Ed25519Scalar.store(kR, out, KEY_SIZE)
+            c.copyInto(out, 2 * KEY_SIZE, KEY_SIZE, 2 * KEY_SIZE)
+
+            if (!exists) {
+                throw BipDerivationUseCase.KeyDoesNotExistException("No child private key for index $index (hardened=$hardened)")
+            }
+        } finally {
+            ctx.clearScratch()
         }
-        return pubKey
     }
 
-    @Size(32)
-    private fun scalarMultiplyByEd25519BasePoint(
-        @Size(32) scalar: ByteArray
-    ): ByteArray {
-        val result = ByteArray(32)
-        TODO("Scalar multiplication by Ed25519 base point")
-        return result
+    // A = A_parent + [8 * ZL[0..28]]B. NOTE: parent and out may refer to the same buffer
+    private fun deriveChildPublicKey(
+        ctx: HmacDerivationContext,
+        @Size(XPUB_SIZE.toLong()) parent: ByteArray,
+        @WalletContractV1.BipIndex index: Int,
+        hardened: Boolean,
+        @Size(XPUB_SIZE.toLong()) out: ByteArray
+    ) {
+        require(!hardened) { "Hardened child keys cannot be derived from an extended public key" }
+
+        val z = ctx.scratch
+        val c = ctx.chainCodeScratch
+        val zL = ctx.zLimbs
+        val scalar = ctx.scalarScratch
+        val parentPublicKey = ctx.parentPublicKeyScratch
+        val tweak = ctx.pointScratch
+        val publicKey = ctx.publicKeyScratch
+        try {
+            parent.copyInto(parentPublicKey, 0, 0, KEY_SIZE)
+            val hmac = ctx.initHmacSha512WithChainCode(parent, KEY_SIZE)
+            hmac.update(NON_HARDENED_Z_PREFIX)
+            hmac.update(parentPublicKey)
+            hmac.update(ctx.indexLittleEndian(index))
+            hmac.doFinal(z, 0)
+            // NOTE: re-key explicitly rather than relying on the provider's post-doFinal reset
+            ctx.initHmacSha512WithChainCode(parent, KEY_SIZE)
+            hmac.update(NON_HARDENED_CHAIN_CODE_PREFIX)
+            hmac.update(parentPublicKey)
+            hmac.update(ctx.indexLittleEndian(index))
+            hmac.doFinal(c, 0)
+
+            // NOTE: 8 * ZL < 2^227 < L, so it needs no reduction
+            Ed25519Scalar.load(z, 0, ZL_SIZE, zL)
+            Ed25519Scalar.mul8(zL, zL)
+            Ed25519Scalar.store(zL, scalar, 0)
+            if (sodium.sodium.crypto_scalarmult_ed25519_base_noclamp(tweak, scalar) != 0 ||
+                sodium.sodium.crypto_core_ed25519_add(publicKey, parentPublicKey, tweak) != 0 ||
+                isEd25519IdentityPointEncoded(publicKey)) {
+                throw BipDerivationUseCase.KeyDoesNotExistException("No child public key for index $index")
+            }
+
+            publicKey.copyInto(out, 0)
+            c.copyInto(out, KEY_SIZE, KEY_SIZE, 2 * KEY_SIZE)
+        } finally {
+            ctx.clearScratch()
+        }
     }
 
-    private fun isEd25519ScalarMultipleOfBaseOrder(scalar: BigInteger): Boolean {
-        return (scalar.mod(ED25519_BASE_ORDER) == BigInteger.ZERO)
+    // out[0..32] = [kL]B, for the kL found at kL[0..32]. libsodium only uses the low 255 bits of
+    // the scalar, and kL may exceed that after many derivation levels, so kL is reduced modulo the
+    // base point order first; since B has order L, this does not change the resulting point.
+    // NOTE: uses only the scalar and point scratch of ctx, so out may be any other scratch buffer
+    private fun scalarMultiplyByEd25519BasePoint(
+        ctx: HmacDerivationContext,
+        @Size(min = KEY_SIZE.toLong()) kL: ByteArray,
+        @Size(min = KEY_SIZE.toLong()) out: ByteArray
+    ) {
+        val limbs = ctx.scalarLimbs
+        val scalar = ctx.scalarScratch
+        val point = ctx.pointScratch
+        try {
+            Ed25519Scalar.load(kL, 0, KEY_SIZE, limbs)
+            Ed25519Scalar.reduceModL(limbs, limbs)
+            Ed25519Scalar.store(limbs, scalar, 0)
+            if (sodium.sodium.crypto_scalarmult_ed25519_base_noclamp(point, scalar) != 0 ||
+                isEd25519IdentityPointEncoded(point)) {
+                throw BipDerivationUseCase.KeyDoesNotExistException()
+            }
+            point.copyInto(out, 0)
+        } finally {
+            limbs.fill(0)
+            scalar.fill(0)
+            point.fill(0)
+        }
     }
 
     // This function checks if the encoded point represents the identity point for Ed25519. Note
-    // that it assumes the point is fully normalized, as the output of
-    // scalarMultiplyByEd25519BasePoint is guaranteed to be.
+    // that it assumes the point is fully normalized, as the output of libsodium is guaranteed to be.
     private fun isEd25519IdentityPointEncoded(
-        @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE) encodedPoint: ByteArray
+        @Size(SignPayloadUseCase.ED25519_PUBLIC_KEY_SIZE) encodedPoint: ByteArray
     ): Boolean {
         if (encodedPoint[0] != 1.toByte()) return false
         for (i in 1..31) {
@@ -219,23 +387,4 @@ object Ed25519Bip32UseCase {
         }
         return true
     }
-
-    private fun bigIntegerFromUnsignedLittleEndianByteArray(b: ByteArray): BigInteger {
-        return BigInteger(1, b.reversedArray())
-    }
-
-    @Size(32)
-    private fun littleEndianByteArray32FromBigInteger(bi: BigInteger): ByteArray {
-        return bi.toByteArray().reversedArray().copyOf(32)
-    }
 }
-
-@Size(4)
-private fun Int.toLittleEndianByteArray(): ByteArray {
-    val b = ByteArray(4)
-    b[0] = toByte()
-    b[1] = (shr(8)).toByte()
-    b[2] = (shr(16)).toByte()
-    b[3] = (shr(24)).toByte()
-    return b
-}
\ No newline at end of file
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import androidx.annotation.Size
+
+/**
+ * Fixed-width arithmetic on 256-bit unsigned integers, as used for BIP32-Ed25519 scalars. Values
+ * are held as [LIMBS] little-endian 32-bit limbs. All operations process every limb
+ * unconditionally, and neither branch on nor index memory with limb values, so their timing does
+ * not depend on the (secret) values being operated on.
+ */
+internal object Ed25519Scalar {
+    const val LIMBS = 8
+    const val SIZE = 32
+
+    private const val LIMB_MASK = 0xFFFF_FFFFL
+
+    // The order of the Ed25519 base point, L = 2^252 + 27742317777372353535851937790883648493
+    private val L = intArrayOf(
+        0x5CF5D3ED, 0x5812631A, 0xA2F79CD6.toInt(), 0x14DEF9DE,
+        0x00000000, 0x00000000, 0x00000000, 0x10000000
+    )
+    private val L2 = IntArray(LIMBS).also { add(L, L, it) }
+    private val L4 = IntArray(LIMBS).also { add(L2, L2, it) }
+    private val L8 = IntArray(LIMBS).also { add(L4, L4, it) }
+
+    // Loads length (<= SIZE) little-endian bytes from src[offset], zero-extended to 256 bits
+    fun load(src: ByteArray, offset: Int, length: Int, @Size(LIMBS.toLong()) out: IntArray) {
+        require(length in 0..SIZE) { "length must be in the range [0, $SIZE]" }
+        out.fill(0)
+        for (i in 0 until length) {
+            val limb = i ushr 2
+            out[limb] = out[limb] or ((src[offset + i].toInt() and 0xFF) shl ((i and 3) * 8))
+        }
+    }
+
+    // Stores a as SIZE little-endian bytes to out[offset]
+    fun store(@Size(LIMBS.toLong()) a: IntArray, out: ByteArray, offset: Int) {
+        for (i in 0 until SIZE) {
+            out[offset + i] = (a[i ushr 2] ushr ((i and 3) * 8)).toByte()
+        }
+    }
+
+    // out = (a + b) mod 2^256; returns the carry out of the top limb (0 or 1). out may alias a or b.
+    fun add(@Size(LIMBS.toLong()) a: IntArray, @Size(LIMBS.toLong()) b: IntArray, @Size(LIMBS.toLong()) out: IntArray): Int {
+        var carry = 0L
+        for (i in 0 until LIMBS) {
+            val s = (a[i].toLong() and LIMB_MASK) + (b[i].toLong() and LIMB_MASK) + carry
+            out[i] = s.toInt()
+            carry = s ushr 32
+        }
+        return carry.toInt()
+    }
+
+    // out = (a - b) mod 2^256; returns the borrow out of the top limb (0 or 1). out may alias a or b.
+    fun sub(@Size(LIMBS.toLong()) a: IntArray, @Size(LIMBS.toLong()) b: IntArray, @Size(LIMBS.toLong()) out: IntArray): Int {
+        var borrow = 0L
+        for (i in 0 until LIMBS) {
+            val d = (a[i].toLong() and LIMB_MASK) - (b[i].toLong() and LIMB_MASK) - borrow
+            out[i] = d.toInt()
+            borrow = d ushr 63
+        }
+        return borrow.toInt()
+    }
+
+    // out = (8 * a) mod 2^256; returns the bits shifted out of the top limb. out may alias a.
+    fun mul8(@Size(LIMBS.toLong()) a: IntArray, @Size(LIMBS.toLong()) out: IntArray): Int {
+        var carry = 0
+        for (i in 0 until LIMBS) {
+            val v = a[i]
+            out[i] = (v shl 3) or carry
+            carry = v ushr 29
+        }
+        return carry
+    }
+
+    // out = if (mask == -1) a else b; mask must be 0 or -1. out may alias a or b.
+    fun select(mask: Int, @Size(LIMBS.toLong()) a: IntArray, @Size(LIMBS.toLong()) b: IntArray, @Size(LIMBS.toLong()) out: IntArray) {
+        for (i in 0 until LIMBS) {
+            out[i] = (a[i] and mask) or (b[i] and mask.inv())
+        }
+    }
+
+    // out = a mod L. Since 2^256 < 16L, this is four conditional subtractions (of 8L, 4L, 2L and
+    // L), each of which is always computed and then selected with a mask. out may alias a.
+    fun reduceModL(@Size(LIMBS.toLong()) a: IntArray, @Size(LIMBS.toLong()) out: IntArray) {
+        val t = IntArray(LIMBS)
+        a.copyInto(out)
+        for (m in arrayOf(L8, L4, L2, L)) {
+            val borrow = sub(out, m, t)
+            select(borrow - 1, t, out, out)
+        }
+        t.fill(0)
+    }
+
+    fun isZero(@Size(LIMBS.toLong()) a: IntArray): Boolean {
+        var acc = 0
+        for (v in a) {
+            acc = acc or v
+        }
+        return acc == 0
+    }
+}
@@ -6,136 +6,195 @@ package com.solanamobile.seedvaultimpl.usecase
 
 import android.util.Log
 import androidx.annotation.Size
-import com.goterl.lazysodium.LazySodiumAndroid
-import com.goterl.lazysodium.exceptions.SodiumException
 import com.solanamobile.seedvault.Bip32DerivationPath
 import com.solanamobile.seedvault.WalletContractV1
 import com.solanamobile.seedvaultimpl.model.SeedDetails
-import javax.crypto.Mac
-import javax.crypto.spec.SecretKeySpec
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
-class Ed25519Slip10UseCase @Inject constructor(private val sodium: LazySodiumAndroid) {
-    private data class KeyDerivationMaterial(
-        @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE) val k: ByteArray,
-        @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE) val c: ByteArray,
+class Ed25519Slip10UseCase @Inject constructor(
+    private val signatureEngine: SignatureEngine,
+    private val derivationNodeCache: DerivationNodeCache
+) {
+    // Holds k || c in a single buffer, so that derivations can be performed in place
+    private class KeyDerivationMaterial(
+        @Size(KDM_SIZE.toLong()) val kc: ByteArray = ByteArray(KDM_SIZE)
     ) : BipDerivationUseCase.PartialPublicDerivation {
-        override fun equals(other: Any?): Boolean {
-            if (this === other) return true
-            if (javaClass != other?.javaClass) return false
-
-            other as KeyDerivationMaterial
-
-            if (!k.contentEquals(other.k)) return false
-            if (!c.contentEquals(other.c)) return false
-
-            return true
+        init {
+            require(kc.size == KDM_SIZE) { "Key derivation material must be $KDM_SIZE bytes" }
         }
 
-        override fun hashCode(): Int {
-            var result = k.contentHashCode()
-            result = 31 * result + c.contentHashCode()
-            return result
+        override fun zeroize() {
+            kc.fill(0)
         }
     }
 
     companion object {
         private val TAG = Ed25519Slip10UseCase::class.simpleName
 
-        private const val MASTER_SECRET_MAC_KEY = "ed25519 seed"
-        private const val MAC = "HmacSHA512"
+        private const val KEY_SIZE = 32
+        private const val KDM_SIZE = 2 * KEY_SIZE
     }
 
     @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE)
     fun derivePrivateKey(
         seed: SeedDetails,
-        bip32DerivationPath: Bip32DerivationPath
+        bip32DerivationPath: Bip32DerivationPath,
+        seedId: Long? = null,
+        derivationRoot: BipDerivationUseCase.PartialPublicDerivation? = null
     ): ByteArray {
-        Log.d(TAG, "Deriving private key from root")
-        val kdm = deriveSecretKey(seed, bip32DerivationPath)
-        val keyPair = try {
-            sodium.cryptoSignSeedKeypair(kdm.k)
-        } catch (_: SodiumException) {
-            throw BipDerivationUseCase.KeyDoesNotExistException("Key does not exist for $bip32DerivationPath")
+        Log.d(TAG, "Deriving private key from derivationRoot=${if (derivationRoot != null) "partial" else "root"}")
+        val kdm = deriveSecretKey(seed, bip32DerivationPath, derivationRoot as KeyDerivationMaterial?, seedId)
+        try {
+            return secretKeyFromKdm(kdm)
+        } finally {
+            if (kdm !== derivationRoot) {
+                kdm.zeroize()
+            }
         }
-        return keyPair.secretKey.asBytes
     }
 
     @Size(SignPayloadUseCase.ED25519_PUBLIC_KEY_SIZE)
     fun derivePublicKey(
         seed: SeedDetails,
         bip32DerivationPath: Bip32DerivationPath,
+        seedId: Long? = null,
         derivationRoot: BipDerivationUseCase.PartialPublicDerivation? = null
     ): ByteArray {
         Log.d(TAG, "Deriving public key from derivationRoot=${if (derivationRoot != null) "partial" else "root"}")
-        val kdm = deriveSecretKey(seed, bip32DerivationPath, derivationRoot as KeyDerivationMaterial?)
-        val keyPair = try {
-            sodium.cryptoSignSeedKeypair(kdm.k)
-        } catch (_: SodiumException) {
-            throw BipDerivationUseCase.KeyDoesNotExistException("Key does not exist for $bip32DerivationPath")
+        val kdm = deriveSecretKey(seed, bip32DerivationPath, derivationRoot as KeyDerivationMaterial?, seedId)
+        val secretKey = try {
+            secretKeyFromKdm(kdm)
+        } finally {
+            if (kdm !== derivationRoot) {
+                kdm.zeroize()
+            }
+        }
+        try {
+            // The secret key is seed || public key
+            return secretKey.copyOfRange(KEY_SIZE, secretKey.size)
+        } finally {
+            secretKey.fill(0)
         }
-        return keyPair.publicKey.asBytes
     }
 
     @Size(SignPayloadUseCase.ED25519_PUBLIC_KEY_SIZE)
     fun derivePublicKeyPartialDerivation(
         seed: SeedDetails,
-        bip32DerivationPath: Bip32DerivationPath
+        bip32DerivationPath: Bip32DerivationPath,
+        seedId: Long? = null,
+        derivationRoot: BipDerivationUseCase.PartialPublicDerivation? = null
     ): BipDerivationUseCase.PartialPublicDerivation {
-        Log.d(TAG, "Deriving master secret partial public derivation")
-        return deriveSecretKey(seed, bip32DerivationPath)
+        Log.d(TAG, "Deriving partial derivation from derivationRoot=${if (derivationRoot != null) "partial" else "root"}")
+        // A partial derivation is itself an intermediate node, so it may be served from (and
+        // stored in) the derivation node cache
+        return deriveSecretKey(seed, bip32DerivationPath, derivationRoot as KeyDerivationMaterial?,
+            seedId, cacheLeaf = true)
+    }
+
+    @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE)
+    private fun secretKeyFromKdm(kdm: KeyDerivationMaterial): ByteArray {
+        // Every 32-byte k is a valid Ed25519 seed, so (unlike BIP32-Ed25519) every key exists.
+        // The signature engine requires an exactly-sized seed.
+        val k = kdm.kc.copyOf(KEY_SIZE)
+        try {
+            return signatureEngine.secretKeyFromSeed(k)
+        } finally {
+            k.fill(0)
+        }
     }
 
-    private fun deriveMasterSecret(@Size(SeedDetails.SEED_LENGTH.toLong()) seed: ByteArray): KeyDerivationMaterial {
-        val hmac = Mac.getInstance(MAC)
-        val keySpec = SecretKeySpec(MASTER_SECRET_MAC_KEY.encodeToByteArray(), MAC)
-        hmac.init(keySpec)
-        val data = hmac.doFinal(seed)
-        return KeyDerivationMaterial(data.copyOf(32), data.copyOfRange(32, 64))
+    private fun deriveMasterSecret(
+        ctx: HmacDerivationContext,
+        @Size(SeedDetails.SEED_LENGTH.toLong()) seed: ByteArray,
+        @Size(KDM_SIZE.toLong()) out: ByteArray
+    ) {
+        val hmac = ctx.masterSecretHmacSha512
+        hmac.update(seed)
+        hmac.doFinal(out, 0)
     }
 
+    // NOTE: when seedId is provided (and derivation does not start from a caller-supplied
+    // derivationRoot), intermediate nodes are looked up in and added to derivationNodeCache. The
+    // leaf node is only cached if cacheLeaf is true. The returned node is owned by the caller.
     private fun deriveSecretKey(
         seed: SeedDetails,
         bip32DerivationPath: Bip32DerivationPath,
-        derivationRoot: KeyDerivationMaterial? = null
+        derivationRoot: KeyDerivationMaterial? = null,
+        seedId: Long? = null,
+        cacheLeaf: Boolean = false
     ): KeyDerivationMaterial {
-        var node = derivationRoot ?: deriveMasterSecret(seed.seed)
-        for (level in bip32DerivationPath.levels) {
-            Log.d(TAG, "Deriving child private key ${level.index} (hardened=${level.hardened})")
-            node = deriveChildSecretKey(node, level.index, level.hardened)
+        if (derivationRoot != null && bip32DerivationPath.levels.isEmpty()) {
+            return derivationRoot
+        }
+        val kdm = KeyDerivationMaterial()
+        deriveSecretKeyInto(seed, bip32DerivationPath, derivationRoot, seedId, cacheLeaf, kdm.kc)
+        return kdm
+    }
+
+    // Derives the key derivation material for bip32DerivationPath in place into out, with no
+    // per-level allocations
+    private fun deriveSecretKeyInto(
+        seed: SeedDetails,
+        bip32DerivationPath: Bip32DerivationPath,
+        derivationRoot: KeyDerivationMaterial?,
+        seedId: Long?,
+        cacheLeaf: Boolean,
+        @Size(KDM_SIZE.toLong()) out: ByteArray
+    ) {
+        val ctx = HmacDerivationContext.get()
+        val levels = bip32DerivationPath.levels
+        val useCache = (derivationRoot == null && seedId != null)
+        val maxCachedDepth = if (cacheLeaf) levels.size else levels.size - 1
+
+        var depth = 0
+        var parent: ByteArray = out
+        if (derivationRoot != null) {
+            parent = derivationRoot.kc
+        } else {
+            // NOTE: a path with no cacheable prefix (e.g. a single level, when the leaf is not
+            // cached) cannot hit, so skip the lookup rather than counting a miss
+            val cached = if (useCache && maxCachedDepth >= 1) {
+                derivationNodeCache.getLongestPrefix(seedId!!, levels, maxCachedDepth)
+            } else {
+                null
+            }
+            if (cached != null) {
+                Log.d(TAG, "Resuming derivation from cached node at depth ${cached.first}")
+                depth = cached.first
+                cached.second.copyInto(out)
+                cached.second.fill(0)
+            } else {
+                deriveMasterSecret(ctx, seed.seed, out)
+            }
         }
 
-        return node
+        for (i in depth until levels.size) {
+            val level = levels[i]
+            Log.d(TAG, "Deriving child private key ${level.index} (hardened=${level.hardened})")
+            deriveChildSecretKey(ctx, parent, level.index, level.hardened, out)
+            parent = out
+            if (useCache && i < maxCachedDepth) {
+                derivationNodeCache.put(seedId!!, levels.subList(0, i + 1), out)
+            }
+        }
     }
 
+    // NOTE: parent and out may refer to the same buffer
     private fun deriveChildSecretKey(
-        kdm: KeyDerivationMaterial,
+        ctx: HmacDerivationContext,
+        @Size(KDM_SIZE.toLong()) parent: ByteArray,
         @WalletContractV1.BipIndex index: Int,
-        hardened: Boolean
-    ): KeyDerivationMaterial {
+        hardened: Boolean,
+        @Size(KDM_SIZE.toLong()) out: ByteArray
+    ) {
         require(hardened) { "Ed25519-SLIP10 does not support non-hardened keys" }
 
-        val hmac = Mac.getInstance(MAC)
-        val keySpec = SecretKeySpec(kdm.c, MAC)
-
-        hmac.init(keySpec)
+        val hmac = ctx.initHmacSha512WithChainCode(parent, KEY_SIZE)
         hmac.update(0.toByte())
-        hmac.update(kdm.k)
-        hmac.update(index.or(0x8000_0000.toInt()).toBigEndianByteArray())
-        val h = hmac.doFinal()
-
-        return KeyDerivationMaterial(h.copyOf(32), h.copyOfRange(32, 64))
+        hmac.update(parent, 0, KEY_SIZE)
+        hmac.update(ctx.indexBigEndian(index.or(0x8000_0000.toInt())))
+        hmac.doFinal(out, 0)
     }
 }
-
-@Size(4)
-private fun Int.toBigEndianByteArray(): ByteArray {
-    val b = ByteArray(4)
-    b[0] = (shr(24)).toByte()
-    b[1] = (shr(16)).toByte()
-    b[2] = (shr(8)).toByte()
-    b[3] = toByte()
-    return b
-}
\ No newline at end of file
@@ -13,6 +13,6 @@ object GetNameUseCase {
     }
 
     fun getName(a: Account): String {
-        return if (a.name.isNullOrBlank()) Base58EncodeUseCase(a.publicKey) else a.name
+        return if (a.name.isNullOrBlank()) a.publicKeyEncoded else a.name
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import androidx.annotation.Size
+import javax.crypto.Mac
+import javax.crypto.SecretKey
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Reusable, per-thread state for HMAC-based key derivation (SLIP-10 and BIP32-Ed25519). JCA
+ * provider lookup and [Mac] setup dominate the cost of short derivations, so each thread keeps its
+ * own pooled [Mac] instances and scratch buffers. The [Mac]s for the constant "ed25519 seed"
+ * master secret key are keyed once; a [Mac] returns to its keyed initial state after doFinal, so
+ * the precomputed HMAC key state is reused by every master secret derivation on this thread.
+ *
+ * NOTE: a context must not be held across a suspension point, since the coroutine may resume on a
+ * different thread.
+ */
+internal class HmacDerivationContext private constructor() {
+    // A SecretKey whose staging buffer is reused between Mac.init calls. Providers may retain the
+    // array returned by getEncoded (Conscrypt re-keys from it on reset and after doFinal), so it
+    // must return a copy; only the staging buffer is overwritten after init.
+    private class ReusableSecretKey(
+        private val algorithm: String,
+        @Size(CHAIN_CODE_SIZE.toLong()) val encoded: ByteArray
+    ) : SecretKey {
+        override fun getAlgorithm(): String = algorithm
+        override fun getFormat(): String = "RAW"
+        override fun getEncoded(): ByteArray = encoded.clone()
+    }
+
+    val hmacSha512: Mac = Mac.getInstance(HMAC_SHA512)
+
+    val masterSecretHmacSha512: Mac = Mac.getInstance(HMAC_SHA512).apply {
+        init(SecretKeySpec(MASTER_SECRET_MAC_KEY, HMAC_SHA512))
+    }
+
+    val masterSecretHmacSha256: Mac by lazy {
+        Mac.getInstance(HMAC_SHA256).apply {
+            init(SecretKeySpec(MASTER_SECRET_MAC_KEY, HMAC_SHA256))
+        }
+    }
+
+    private val chainCodeKey = ReusableSecretKey(HMAC_SHA512, ByteArray(CHAIN_CODE_SIZE))
+
+    @Size(4)
+    val index = ByteArray(4)
+
+    @Size(SCRATCH_SIZE.toLong())
+    val scratch = ByteArray(SCRATCH_SIZE)
+
+    // Additional scratch for BIP32-Ed25519 child derivation, which holds the chain code, scalars,
+    // and curve points of a step at the same time as scratch. Cleared along with scratch.
+    @Size(SCRATCH_SIZE.toLong())
+    val chainCodeScratch = ByteArray(SCRATCH_SIZE)
+
+    @Size(POINT_SIZE.toLong())
+    val parentPublicKeyScratch = ByteArray(POINT_SIZE)
+
+    @Size(POINT_SIZE.toLong())
+    val publicKeyScratch = ByteArray(POINT_SIZE)
+
+    @Size(POINT_SIZE.toLong())
+    val pointScratch = ByteArray(POINT_SIZE)
+
+    @Size(POINT_SIZE.toLong())
+    val scalarScratch = ByteArray(POINT_SIZE)
+
+    val zLimbs = IntArray(Ed25519Scalar.LIMBS)
+    val kLLimbs = IntArray(Ed25519Scalar.LIMBS)
+    val kRLimbs = IntArray(Ed25519Scalar.LIMBS)
+    val scalarLimbs = IntArray(Ed25519Scalar.LIMBS)
+
+    // Initialize hmacSha512 with the 32-byte chain code found at chainCode[offset]
+    fun initHmacSha512WithChainCode(@Size(min = CHAIN_CODE_SIZE.toLong()) chainCode: ByteArray, offset: Int): Mac {
+        chainCode.copyInto(chainCodeKey.encoded, 0, offset, offset + CHAIN_CODE_SIZE)
+        try {
+            hmacSha512.init(chainCodeKey)
+        } finally {
+            chainCodeKey.encoded.fill(0)
+        }
+        return hmacSha512
+    }
+
+    @Size(4)
+    fun indexBigEndian(i: Int): ByteArray {
+        index[0] = (i shr 24).toByte()
+        index[1] = (i shr 16).toByte()
+        index[2] = (i shr 8).toByte()
+        index[3] = i.toByte()
+        return index
+    }
+
+    @Size(4)
+    fun indexLittleEndian(i: Int): ByteArray {
+        index[0] = i.toByte()
+        index[1] = (i shr 8).toByte()
+        index[2] = (i shr 16).toByte()
+        index[3] = (i shr 24).toByte()
+        return index
+    }
+
+    fun clearScratch() {
+        scratch.fill(0)
+        chainCodeScratch.fill(0)
+        parentPublicKeyScratch.fill(0)
+        publicKeyScratch.fill(0)
+        pointScratch.fill(0)
+        scalarScratch.fill(0)
+        zLimbs.fill(0)
+        kLLimbs.fill(0)
+        kRLimbs.fill(0)
+        scalarLimbs.fill(0)
+    }
+
+    companion object {
+        const val HMAC_SHA512 = "HmacSHA512"
+        const val HMAC_SHA256 = "HmacSHA256"
+        const val CHAIN_CODE_SIZE = 32
+        const val SCRATCH_SIZE = 64
+        const val POINT_SIZE = 32
+
+        private val MASTER_SECRET_MAC_KEY = "ed25519 seed".encodeToByteArray()
+
+        private val threadLocalContext = ThreadLocal.withInitial { HmacDerivationContext() }
+
+        fun get(): HmacDerivationContext = threadLocalContext.get()!!
+    }
+}
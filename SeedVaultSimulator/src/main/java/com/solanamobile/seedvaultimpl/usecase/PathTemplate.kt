@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import com.solanamobile.seedvault.Bip32DerivationPath
+import com.solanamobile.seedvault.BipLevel
+import com.solanamobile.seedvault.WalletContractV1
+import com.solanamobile.seedvaultimpl.model.Authorization
+
+// A BIP32 path template, relative to a purpose-specific derivation root. Levels with a null index
+// are replaced by the account index.
+internal class PathTemplate private constructor(private val levels: List<Pair<Int?, Boolean>>) {
+    fun instantiate(@WalletContractV1.BipIndex accountIndex: Int): List<BipLevel> =
+        levels.map { (index, hardened) -> BipLevel(index ?: accountIndex, hardened) }
+
+    fun instantiate(
+        derivationRootPath: Bip32DerivationPath,
+        @WalletContractV1.BipIndex accountIndex: Int,
+        purpose: Authorization.Purpose
+    ): Bip32DerivationPath = Bip32DerivationPath.newBuilder()
+        .appendLevels(derivationRootPath.levels)
+        .appendLevels(instantiate(accountIndex))
+        .build()
+        .normalize(purpose)
+
+    companion object {
+        private const val ACCOUNT_INDEX_PLACEHOLDER = "X"
+
+        private const val BIP44_PURPOSE: Int = 44
+        private const val BIP44_COIN_TYPE_SOLANA: Int = 501
+
+        /**
+         * @throws IllegalArgumentException if template is not a valid path template
+         */
+        fun parse(template: String): PathTemplate {
+            val levels = template.split('/').map { element ->
+                val hardened = element.endsWith(WalletContractV1.BIP_URI_HARDENED_INDEX_IDENTIFIER)
+                val index = element.removeSuffix(WalletContractV1.BIP_URI_HARDENED_INDEX_IDENTIFIER)
+                (if (index == ACCOUNT_INDEX_PLACEHOLDER) null else index.toInt()) to hardened
+            }
+            require(levels.count { (index, _) -> index == null } == 1) {
+                "Path template '$template' must contain exactly one '$ACCOUNT_INDEX_PLACEHOLDER' level"
+            }
+            return PathTemplate(levels)
+        }
+
+        fun derivationRootForPurpose(purpose: Authorization.Purpose): Bip32DerivationPath {
+            return when (purpose) {
+                Authorization.Purpose.SIGN_SOLANA_TRANSACTIONS ->
+                    Bip32DerivationPath.newBuilder()
+                        .appendLevel(BipLevel(BIP44_PURPOSE, true))
+                        .appendLevel(BipLevel(BIP44_COIN_TYPE_SOLANA, true))
+                        .build().normalize(purpose)
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.util.Log
+import androidx.core.content.ContextCompat
+import com.solanamobile.seedvault.Bip32DerivationPath
+import com.solanamobile.seedvaultimpl.R
+import com.solanamobile.seedvaultimpl.data.SeedRepository
+import com.solanamobile.seedvaultimpl.model.Authorization
+import dagger.hilt.android.qualifiers.ApplicationContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * An opt-in (see R.bool.private_key_cache_enabled), strictly bounded cache of derived private
+ * signing keys, keyed by seed ID, purpose, normalized derivation path and requestor UID. Entries
+ * expire after [ENTRY_TTL_MS], and are zeroized whenever they leave the cache; expired keys are
+ * swept even if they are never looked up again. The cache is cleared when the screen turns off,
+ * when the owning seed is updated or deleted, or when any authorization is revoked.
+ *
+ * Keys are stored as opaque byte arrays; both [get] and [put] copy, so callers own (and are
+ * responsible for zeroizing) the arrays they pass in or receive.
+ */
+@Singleton
+class PrivateKeyCache @Inject constructor(
+    @ApplicationContext context: Context,
+    seedRepository: SeedRepository
+) {
+    private data class Key(
+        val seedId: Long,
+        val purpose: Authorization.Purpose,
+        val derivationPath: Bip32DerivationPath,
+        val requestorUid: Int
+    )
+
+    val isEnabled: Boolean = context.resources.getBoolean(R.bool.private_key_cache_enabled)
+
+    private val cache = ZeroizingTtlLruCache<Key>(MAX_ENTRIES, ENTRY_TTL_MS, Key::seedId)
+
+    private val screenOffReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            if (intent.action == Intent.ACTION_SCREEN_OFF) {
+                clear()
+            }
+        }
+    }
+
+    init {
+        if (isEnabled) {
+            ContextCompat.registerReceiver(context, screenOffReceiver,
+                IntentFilter(Intent.ACTION_SCREEN_OFF), ContextCompat.RECEIVER_NOT_EXPORTED)
+            cache.clearOnRepositoryChanges(seedRepository)
+        }
+    }
+
+    val stats: ZeroizingTtlLruCache.Stats
+        get() = cache.stats
+
+    /**
+     * @return a copy of the cached private key, or null if it is not cached (or the cache is not
+     *      enabled)
+     */
+    fun get(
+        seedId: Long,
+        purpose: Authorization.Purpose,
+        derivationPath: Bip32DerivationPath,
+        requestorUid: Int
+    ): ByteArray? {
+        if (!isEnabled) {
+            return null
+        }
+        return cache.get(Key(seedId, purpose, derivationPath, requestorUid))
+    }
+
+    fun put(
+        seedId: Long,
+        purpose: Authorization.Purpose,
+        derivationPath: Bip32DerivationPath,
+        requestorUid: Int,
+        privateKey: ByteArray
+    ) {
+        if (!isEnabled) {
+            return
+        }
+        cache.put(Key(seedId, purpose, derivationPath, requestorUid), privateKey)
+    }
+
+    fun clear(seedId: Long) {
+        cache.clear(seedId)
+        Log.d(TAG, "Cleared private key cache for seed $seedId")
+    }
+
+    fun clear() {
+        cache.clear()
+        Log.d(TAG, "Cleared private key cache")
+    }
+
+    companion object {
+        private val TAG = PrivateKeyCache::class.simpleName
+
+        private const val MAX_ENTRIES = 16
+        private const val ENTRY_TTL_MS = 30_000L
+    }
+}
@@ -5,18 +5,18 @@
 package com.solanamobile.seedvaultimpl.usecase
 
 import androidx.annotation.Size
-import com.goterl.lazysodium.LazySodiumAndroid
 import com.solanamobile.seedvaultimpl.model.Authorization
 import com.goterl.lazysodium.interfaces.Sign
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
-class SignPayloadUseCase @Inject constructor(private val sodium: LazySodiumAndroid) {
+class SignPayloadUseCase @Inject constructor(private val signatureEngine: SignatureEngine) {
     companion object {
         const val ED25519_SECRET_KEY_SIZE = Sign.ED25519_SECRETKEYBYTES.toLong()
         const val ED25519_PUBLIC_KEY_SIZE = Sign.ED25519_PUBLICKEYBYTES.toLong()
         const val ED25519_SIGNATURE_SIZE = Sign.ED25519_BYTES.toLong()
+        const val ED25519_SEED_SIZE = Sign.ED25519_SEEDBYTES.toLong()
     }
 
     fun signTransaction(
@@ -51,13 +51,59 @@ class SignPayloadUseCase @Inject constructor(private val sodium: LazySodiumAndro
         }
     }
 
+    /**
+     * Sign each transaction with the corresponding key, with a single [SignatureEngine.signBatch]
+     * call. Each key may be either an Ed25519 secret key or an Ed25519 seed, in which case it is
+     * expanded as part of the batch. As with [signTransaction], transactions are not yet validated.
+     * @return the signatures, in the same order as transactions
+     */
+    fun signTransactions(
+        purpose: Authorization.Purpose,
+        keys: List<ByteArray>,
+        transactions: List<ByteArray>
+    ): List<ByteArray> {
+        require(keys.size == transactions.size) { "Each transaction requires a key" }
+        require(transactions.all { it.isNotEmpty() }) { "Transaction cannot be empty" }
+
+        return when (purpose) {
+            Authorization.Purpose.SIGN_SOLANA_TRANSACTIONS -> {
+                require(keys.all { isValidEd25519Key(it) }) { "Invalid private key for signing Solana transactions" }
+                signatureEngine.signBatch(keys, transactions)
+            }
+        }
+    }
+
+    /**
+     * Sign each message with the corresponding key, with a single [SignatureEngine.signBatch] call.
+     * Each key may be either an Ed25519 secret key or an Ed25519 seed, in which case it is expanded
+     * as part of the batch. As with [signMessage], messages are not yet validated.
+     * @return the signatures, in the same order as messages
+     */
+    fun signMessages(
+        purpose: Authorization.Purpose,
+        keys: List<ByteArray>,
+        messages: List<ByteArray>
+    ): List<ByteArray> {
+        require(keys.size == messages.size) { "Each message requires a key" }
+        require(messages.all { it.isNotEmpty() }) { "Message cannot be empty" }
+
+        return when (purpose) {
+            Authorization.Purpose.SIGN_SOLANA_TRANSACTIONS -> {
+                require(keys.all { isValidEd25519Key(it) }) { "Invalid private key for signing Solana messages" }
+                signatureEngine.signBatch(keys, messages)
+            }
+        }
+    }
+
+    private fun isValidEd25519Key(key: ByteArray): Boolean {
+        return key.size == ED25519_SECRET_KEY_SIZE.toInt() || key.size == ED25519_SEED_SIZE.toInt()
+    }
+
     @Size(ED25519_SIGNATURE_SIZE)
     private fun signEd25519(
         @Size(ED25519_SECRET_KEY_SIZE) key: ByteArray,
         @Size(min=1) transaction: ByteArray
     ): ByteArray {
-        val signature = ByteArray(Sign.ED25519_BYTES)
-        sodium.cryptoSignDetached(signature, transaction, transaction.size.toLong(), key)
-        return signature
+        return signatureEngine.sign(key, transaction)
     }
-}
\ No newline at end of file
+}
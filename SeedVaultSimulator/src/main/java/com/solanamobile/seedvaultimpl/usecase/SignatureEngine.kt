@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import androidx.annotation.Size
+
+/**
+ * The Ed25519 primitives used to turn derived key material into keys and signatures. The engine in
+ * use is chosen by SignatureEngineProvider; tests may substitute their own binding.
+ *
+ * Secret keys are in the libsodium layout, i.e. seed || public key.
+ */
+interface SignatureEngine {
+    /**
+     * Expand an Ed25519 seed into a secret key
+     * @return the secret key (seed || public key); the caller is responsible for zeroizing it
+     */
+    @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE)
+    fun secretKeyFromSeed(
+        @Size(SignPayloadUseCase.ED25519_SEED_SIZE) seed: ByteArray
+    ): ByteArray
+
+    @Size(SignPayloadUseCase.ED25519_SIGNATURE_SIZE)
+    fun sign(
+        @Size(SignPayloadUseCase.ED25519_SECRET_KEY_SIZE) secretKey: ByteArray,
+        message: ByteArray
+    ): ByteArray
+
+    /**
+     * Sign each message with the corresponding key. Each key may be either a secret key, or a
+     * seed, in which case it is expanded as part of the batch.
+     * @return the signatures, in the same order as messages
+     */
+    fun signBatch(keys: List<ByteArray>, messages: List<ByteArray>): List<ByteArray> {
+        return keys.zip(messages) { key, message ->
+            if (key.size == SignPayloadUseCase.ED25519_SEED_SIZE.toInt()) {
+                val secretKey = secretKeyFromSeed(key)
+                try {
+                    sign(secretKey, message)
+                } finally {
+                    secretKey.fill(0)
+                }
+            } else {
+                sign(key, message)
+            }
+        }
+    }
+}
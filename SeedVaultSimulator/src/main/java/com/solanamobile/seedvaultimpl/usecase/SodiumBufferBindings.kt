@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import com.sun.jna.Native
+import com.sun.jna.Pointer
+
+/**
+ * Direct-mapped JNA bindings for the libsodium entry points used by
+ * [SodiumSignatureEngine.signBatch]. LazySodium's bindings take [ByteArray]s, which JNA copies in
+ * and out of native memory on every call; these take [Pointer]s into caller-owned direct
+ * ByteBuffers, so that the keys, payloads and signatures of a batch share one set of buffers.
+ *
+ * NOTE: this is not a native batch entry point. Each payload is still signed by its own
+ * crypto_sign_detached call; only the per-call array marshalling is avoided.
+ */
+internal object SodiumBufferBindings {
+    init {
+        Native.register(SodiumBufferBindings::class.java, "sodium")
+    }
+
+    @JvmStatic
+    external fun crypto_sign_seed_keypair(pk: Pointer, sk: Pointer, seed: Pointer): Int
+
+    @JvmStatic
+    external fun crypto_sign_detached(sig: Pointer, siglen: Pointer?, m: Pointer, mlen: Long, sk: Pointer): Int
+}
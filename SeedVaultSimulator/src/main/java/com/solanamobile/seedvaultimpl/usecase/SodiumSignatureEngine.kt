@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import com.goterl.lazysodium.LazySodiumAndroid
+import com.goterl.lazysodium.interfaces.Sign
+import com.sun.jna.Native
+import java.nio.ByteBuffer
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * A [SignatureEngine] backed by libsodium, through LazySodium's JNA bindings
+ */
+@Singleton
+class SodiumSignatureEngine @Inject constructor(
+    private val sodium: LazySodiumAndroid
+) : SignatureEngine {
+    override fun secretKeyFromSeed(seed: ByteArray): ByteArray {
+        require(seed.size == Sign.ED25519_SEEDBYTES) { "Seed must be ${Sign.ED25519_SEEDBYTES} bytes" }
+        return sodium.cryptoSignSeedKeypair(seed).secretKey.asBytes
+    }
+
+    override fun sign(secretKey: ByteArray, message: ByteArray): ByteArray {
+        val signature = ByteArray(Sign.ED25519_BYTES)
+        check(sodium.cryptoSignDetached(signature, message, message.size.toLong(), secretKey)) {
+            "Ed25519 signing failed"
+        }
+        return signature
+    }
+
+    // Packs all keys, messages and signatures into three direct buffers, and then signs each message
+    // with its own crypto_sign_detached call on addresses within them. This saves LazySodium's
+    // per-call copies of each array into and out of native memory; it does not reduce the number
+    // of native calls.
+    override fun signBatch(
+        keys: List<ByteArray>,
+        messages: List<ByteArray>
+    ): List<ByteArray> {
+        val n = messages.size
+        if (n == 0) {
+            return listOf()
+        }
+
+        val secretKeySize = SignPayloadUseCase.ED25519_SECRET_KEY_SIZE.toInt()
+        val seedSize = SignPayloadUseCase.ED25519_SEED_SIZE.toInt()
+        val publicKeySize = SignPayloadUseCase.ED25519_PUBLIC_KEY_SIZE.toInt()
+        val signatureSize = SignPayloadUseCase.ED25519_SIGNATURE_SIZE.toInt()
+
+        val keyBuffer = ByteBuffer.allocateDirect(n * secretKeySize + seedSize + publicKeySize)
+        val messageBuffer = ByteBuffer.allocateDirect(messages.sumOf { it.size })
+        val signatureBuffer = ByteBuffer.allocateDirect(n * signatureSize)
+        val keyPtr = Native.getDirectBufferPointer(keyBuffer)
+        val messagePtr = Native.getDirectBufferPointer(messageBuffer)
+        val signaturePtr = Native.getDirectBufferPointer(signatureBuffer)
+        // Scratch space at the end of keyBuffer, for expanding seeds
+        val seedPtr = keyPtr.share((n * secretKeySize).toLong())
+        val publicKeyPtr = keyPtr.share((n * secretKeySize + seedSize).toLong())
+
+        try {
+            var messageOffset = 0L
+            for (i in 0 until n) {
+                val key = keys[i]
+                val secretKeyPtr = keyPtr.share((i * secretKeySize).toLong())
+                if (key.size == seedSize) {
+                    keyBuffer.position(n * secretKeySize)
+                    keyBuffer.put(key)
+                    check(SodiumBufferBindings.crypto_sign_seed_keypair(publicKeyPtr, secretKeyPtr, seedPtr) == 0) {
+                        "Ed25519 key expansion failed"
+                    }
+                } else {
+                    keyBuffer.position(i * secretKeySize)
+                    keyBuffer.put(key)
+                }
+
+                val message = messages[i]
+                messageBuffer.put(message)
+                check(SodiumBufferBindings.crypto_sign_detached(
+                    signaturePtr.share((i * signatureSize).toLong()),
+                    null,
+                    messagePtr.share(messageOffset),
+                    message.size.toLong(),
+                    secretKeyPtr
+                ) == 0) { "Ed25519 signing failed" }
+                messageOffset += message.size
+            }
+
+            signatureBuffer.rewind()
+            return List(n) { ByteArray(signatureSize).also { signatureBuffer.get(it) } }
+        } finally {
+            keyPtr.clear(keyBuffer.capacity().toLong())
+        }
+    }
+}
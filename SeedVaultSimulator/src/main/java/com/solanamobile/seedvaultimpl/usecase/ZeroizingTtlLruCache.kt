@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import android.os.SystemClock
+import androidx.annotation.VisibleForTesting
+import com.solanamobile.seedvaultimpl.data.SeedRepository
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.job
+import kotlinx.coroutines.launch
+
+/**
+ * A bounded, TTL-limited LRU cache of secret byte arrays, each belonging to a seed. Values expire
+ * after ttlMs, and are zeroized whenever they leave the cache (by eviction, expiry, replacement or
+ * clearing). Expired entries are purged on every lookup and [put], and by a sweep scheduled for the
+ * earliest expiry, so an entry which is never looked up again does not outlive its TTL.
+ *
+ * Values are stored as opaque byte arrays; both lookups and [put] copy, so callers own (and are
+ * responsible for zeroizing) the arrays they pass in or receive.
+ *
+ * @param maxEntries the maximum number of entries, beyond which the least recently used is evicted
+ * @param ttlMs the lifetime of each entry, from when it is [put]
+ * @param seedIdOf returns the ID of the seed to which a key belongs
+ * @param clock the monotonic time source, in milliseconds
+ */
+class ZeroizingTtlLruCache<K : Any>(
+    private val maxEntries: Int,
+    private val ttlMs: Long,
+    private val seedIdOf: (K) -> Long,
+    private val clock: () -> Long = SystemClock::elapsedRealtime
+) {
+    data class Stats(
+        val hits: Long,
+        val misses: Long,
+        val evictions: Long,
+        val size: Int
+    ) {
+        val hitRate: Float
+            get() = if (hits + misses == 0L) 0f else hits.toFloat() / (hits + misses)
+    }
+
+    private class Entry(
+        val value: ByteArray,
+        val expiresAt: Long
+    )
+
+    private val ownerScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    private val lock = Any()
+    private var hits = 0L
+    private var misses = 0L
+    private var evictions = 0L
+    private var sweepJob: Job? = null
+    private var sweepAt = Long.MAX_VALUE
+
+    // NOTE: all accesses must be performed with lock held
+    private val entries = object : LinkedHashMap<K, Entry>(maxEntries, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, Entry>): Boolean {
+            if (size > maxEntries) {
+                eldest.value.value.fill(0)
+                evictions++
+                return true
+            }
+            return false
+        }
+    }
+
+    val stats: Stats
+        get() = synchronized(lock) { Stats(hits, misses, evictions, entries.size) }
+
+    /** @return a copy of the cached value for key, or null if it is not cached */
+    fun get(key: K): ByteArray? = getFirst(sequenceOf(key))?.second
+
+    /**
+     * Look up each of keys in turn, counting a single hit or miss for the whole lookup
+     * @return the first key which is cached, and a copy of its value; or null if none are cached
+     */
+    fun getFirst(keys: Sequence<K>): Pair<K, ByteArray>? {
+        synchronized(lock) {
+            purgeExpiredLocked()
+            for (key in keys) {
+                val entry = entries[key] ?: continue
+                hits++
+                return key to entry.value.copyOf()
+            }
+            misses++
+            return null
+        }
+    }
+
+    fun put(key: K, value: ByteArray) {
+        val entry = Entry(value.copyOf(), clock() + ttlMs)
+        synchronized(lock) {
+            purgeExpiredLocked()
+            entries.put(key, entry)?.value?.fill(0)
+            scheduleSweepLocked()
+        }
+    }
+
+    /** @return the stored (not copied) value for key, for tests to observe zeroization */
+    @VisibleForTesting
+    internal fun peekStoredValue(key: K): ByteArray? = synchronized(lock) { entries[key]?.value }
+
+    // NOTE: must be called with lock held
+    private fun purgeExpiredLocked() {
+        val now = clock()
+        val iter = entries.values.iterator()
+        while (iter.hasNext()) {
+            val e = iter.next()
+            if (e.expiresAt <= now) {
+                e.value.fill(0)
+                iter.remove()
+                evictions++
+            }
+        }
+    }
+
+    // NOTE: must be called with lock held
+    private fun scheduleSweepLocked() {
+        val earliest = entries.values.minOfOrNull { it.expiresAt }
+        if (earliest == null) {
+            cancelSweepLocked()
+            return
+        }
+        if (sweepJob != null && sweepAt <= earliest) {
+            return
+        }
+        sweepJob?.cancel()
+        sweepAt = earliest
+        sweepJob = ownerScope.launch {
+            delay(earliest - clock())
+            val job = coroutineContext.job
+            synchronized(lock) {
+                if (sweepJob === job) {
+                    sweepJob = null
+                    sweepAt = Long.MAX_VALUE
+                    purgeExpiredLocked()
+                    scheduleSweepLocked()
+                }
+            }
+        }
+    }
+
+    // NOTE: must be called with lock held
+    private fun cancelSweepLocked() {
+        sweepJob?.cancel()
+        sweepJob = null
+        sweepAt = Long.MAX_VALUE
+    }
+
+    fun clear(seedId: Long) {
+        synchronized(lock) {
+            val iter = entries.entries.iterator()
+            while (iter.hasNext()) {
+                val e = iter.next()
+                if (seedIdOf(e.key) == seedId) {
+                    e.value.value.fill(0)
+                    iter.remove()
+                }
+            }
+        }
+    }
+
+    fun clear() {
+        synchronized(lock) {
+            entries.values.forEach { e -> e.value.fill(0) }
+            entries.clear()
+            cancelSweepLocked()
+        }
+    }
+
+    /**
+     * Clear entries for a seed when it is updated or deleted, and clear all entries when any
+     * authorization is revoked, for as long as the process lives
+     */
+    fun clearOnRepositoryChanges(seedRepository: SeedRepository) {
+        ownerScope.launch {
+            seedRepository.changes.collect { change ->
+                when (change.category) {
+                    SeedRepository.ChangeNotification.Category.SEED -> {
+                        if (change.type != SeedRepository.ChangeNotification.Type.CREATE) {
+                            change.id?.let { clear(it) } ?: clear()
+                        }
+                    }
+                    SeedRepository.ChangeNotification.Category.AUTHORIZATION -> {
+                        // Authorization change notifications carry an auth token, not a seed ID.
+                        // Deauthorizations are rare; just drop everything.
+                        if (change.type == SeedRepository.ChangeNotification.Type.DELETE) {
+                            clear()
+                        }
+                    }
+                    SeedRepository.ChangeNotification.Category.ACCOUNT -> Unit
+                }
+            }
+        }
+    }
+}
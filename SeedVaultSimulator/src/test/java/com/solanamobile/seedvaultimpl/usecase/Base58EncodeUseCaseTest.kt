@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.math.BigInteger
+import kotlin.random.Random
+
+class Base58EncodeUseCaseTest {
+    private fun hex(s: String): ByteArray {
+        return ByteArray(s.length / 2) { s.substring(2 * it, 2 * it + 2).toInt(16).toByte() }
+    }
+
+    // A straightforward reference decoder, to check round trips against
+    private fun decode(encoded: String): ByteArray {
+        val leadingOnes = encoded.takeWhile { it == '1' }.length
+        var n = BigInteger.ZERO
+        for (c in encoded) {
+            val digit = ALPHABET.indexOf(c)
+            require(digit >= 0) { "Invalid base58 character '$c'" }
+            n = n.multiply(FIFTY_EIGHT).add(BigInteger.valueOf(digit.toLong()))
+        }
+        val body = if (n.signum() == 0) ByteArray(0) else n.toByteArray().let { b ->
+            if (b[0] == 0.toByte()) b.copyOfRange(1, b.size) else b
+        }
+        return ByteArray(leadingOnes) + body
+    }
+
+    @Test
+    fun emptyInput() {
+        assertEquals("", Base58EncodeUseCase(ByteArray(0)))
+    }
+
+    @Test
+    fun allZeroInput() {
+        assertEquals("1", Base58EncodeUseCase(ByteArray(1)))
+        assertEquals("1111", Base58EncodeUseCase(ByteArray(4)))
+        assertEquals("1".repeat(32), Base58EncodeUseCase(ByteArray(32)))
+        assertEquals("1".repeat(64), Base58EncodeUseCase(ByteArray(64)))
+    }
+
+    @Test
+    fun leadingZeros() {
+        // Both with (8 bytes) and without (6 bytes) a whole number of 32-bit limbs
+        assertEquals("11233QC4", Base58EncodeUseCase(hex("0000287fb4cd")))
+        assertEquals("1111233QC4", Base58EncodeUseCase(hex("00000000287fb4cd")))
+        assertEquals("1112", Base58EncodeUseCase(hex("00000001")))
+    }
+
+    @Test
+    fun knownVectors() {
+        assertEquals("2NEpo7TZRRrLZSi2U", Base58EncodeUseCase("Hello World!".encodeToByteArray()))
+        assertEquals(
+            "TokenkegQfeZyiNwAJbNbGKPFXCWuBvf9Ss623VQ5DA",
+            Base58EncodeUseCase(hex("06ddf6e1d765a193d9cbe146ceeb79ac1cb485ed5f5b37913a8cf5857eff00a9")))
+        assertEquals(
+            "JEKNVnkbo3jma5nREBBJCDoXFVeKkD56V3xKrvRmWxFG",
+            Base58EncodeUseCase(ByteArray(32) { -1 }))
+        assertEquals(
+            "11tJ93RwaVfE1PEMxd5rpZZuPtLCwbEaDCrNBhAy8Cv",
+            Base58EncodeUseCase(ByteArray(2) + ByteArray(30) { -1 }))
+        assertEquals(
+            "1GMkH3brNXiNNs1tiFZHu4yZSRrzJwxi5wB9bHFtMinfCXNnR1adh8Vo8NTheK4evneedH4qmvjeqcBBNAefgS",
+            Base58EncodeUseCase(ByteArray(64) { it.toByte() }))
+    }
+
+    @Test
+    fun roundTrip() {
+        val random = Random(58)
+        for (size in 0..70) {
+            repeat(8) { zeros ->
+                val bytes = ByteArray(size) { if (it < zeros) 0 else random.nextInt().toByte() }
+                assertArrayEquals("size=$size zeros=$zeros", bytes, decode(Base58EncodeUseCase(bytes)))
+            }
+        }
+    }
+
+    companion object {
+        private const val ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz"
+        private val FIFTY_EIGHT = BigInteger.valueOf(58)
+    }
+}
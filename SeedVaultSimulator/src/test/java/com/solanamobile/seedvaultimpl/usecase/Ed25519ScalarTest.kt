@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.math.BigInteger
+
+class Ed25519ScalarTest {
+    private fun limbs(value: BigInteger): IntArray {
+        val bytes = ByteArray(Ed25519Scalar.SIZE)
+        val be = value.toByteArray()
+        for (i in bytes.indices) {
+            // Little-endian, skipping any sign byte in the big-endian representation
+            bytes[i] = if (i < be.size) be[be.size - 1 - i] else 0
+        }
+        return IntArray(Ed25519Scalar.LIMBS).also { Ed25519Scalar.load(bytes, 0, bytes.size, it) }
+    }
+
+    private fun value(limbs: IntArray): BigInteger {
+        val bytes = ByteArray(Ed25519Scalar.SIZE)
+        Ed25519Scalar.store(limbs, bytes, 0)
+        bytes.reverse()
+        return BigInteger(1, bytes)
+    }
+
+    private fun reduceModL(value: BigInteger): BigInteger {
+        val out = IntArray(Ed25519Scalar.LIMBS)
+        Ed25519Scalar.reduceModL(limbs(value), out)
+        return value(out)
+    }
+
+    @Test
+    fun loadZeroExtendsShortInput() {
+        val bytes = ByteArray(28) { (it + 1).toByte() }
+        val a = IntArray(Ed25519Scalar.LIMBS) { -1 }
+        Ed25519Scalar.load(bytes, 0, bytes.size, a)
+        assertEquals(0, a[7])
+        val out = ByteArray(Ed25519Scalar.SIZE)
+        Ed25519Scalar.store(a, out, 0)
+        assertArrayEquals(bytes + ByteArray(4), out)
+    }
+
+    @Test
+    fun reduceModLKnownAnswers() {
+        assertEquals(BigInteger.ZERO, reduceModL(L))
+        assertEquals(BigInteger.ONE, reduceModL(L + BigInteger.ONE))
+        assertEquals(L - BigInteger.ONE, reduceModL(L - BigInteger.ONE))
+        assertEquals(BigInteger.ZERO, reduceModL(L * BigInteger.valueOf(15)))
+        assertEquals(BigInteger.valueOf(7), reduceModL(L * BigInteger.valueOf(8) + BigInteger.valueOf(7)))
+        assertEquals(
+            BigInteger("0ffffffffffffffffffffffffffffffec6ef5bf4737dcf70d6ec31748d98951c", 16),
+            reduceModL(MAX))
+        assertEquals(MAX.mod(L), reduceModL(MAX))
+    }
+
+    @Test
+    fun reduceModLInPlace() {
+        val a = limbs(L + BigInteger.TEN)
+        Ed25519Scalar.reduceModL(a, a)
+        assertEquals(BigInteger.TEN, value(a))
+    }
+
+    @Test
+    fun mul8KnownAnswers() {
+        val out = IntArray(Ed25519Scalar.LIMBS)
+
+        // 8 * (2^253 - 1) = 2^256 - 8, with nothing shifted out
+        assertEquals(0, Ed25519Scalar.mul8(limbs(BigInteger.ONE.shiftLeft(253) - BigInteger.ONE), out))
+        assertEquals(MAX - BigInteger.valueOf(7), value(out))
+
+        // 8 * (2^253 + 5) = 2^256 + 40; the top bit is shifted out
+        assertEquals(1, Ed25519Scalar.mul8(limbs(BigInteger.ONE.shiftLeft(253) + BigInteger.valueOf(5)), out))
+        assertEquals(BigInteger.valueOf(40), value(out))
+
+        // Carries propagate across every limb boundary
+        val a = limbs(BigInteger("e0000000".repeat(8), 16))
+        assertEquals(7, Ed25519Scalar.mul8(a, a))
+        assertEquals(BigInteger("00000007".repeat(7) + "00000000", 16), value(a))
+    }
+
+    @Test
+    fun addKnownAnswers() {
+        val out = IntArray(Ed25519Scalar.LIMBS)
+
+        assertEquals(0, Ed25519Scalar.add(limbs(L), limbs(L), out))
+        assertEquals(L.shiftLeft(1), value(out))
+
+        // (2^256 - 1) + 1 overflows to 0, with a carry out
+        assertEquals(1, Ed25519Scalar.add(limbs(MAX), limbs(BigInteger.ONE), out))
+        assertEquals(BigInteger.ZERO, value(out))
+
+        // 2^255 + 2^255 + 3 overflows to 3
+        val a = limbs(BigInteger.ONE.shiftLeft(255) + BigInteger.valueOf(3))
+        assertEquals(1, Ed25519Scalar.add(a, limbs(BigInteger.ONE.shiftLeft(255)), a))
+        assertEquals(BigInteger.valueOf(3), value(a))
+    }
+
+    @Test
+    fun subKnownAnswers() {
+        val out = IntArray(Ed25519Scalar.LIMBS)
+
+        assertEquals(1, Ed25519Scalar.sub(limbs(BigInteger.ZERO), limbs(BigInteger.ONE), out))
+        assertEquals(MAX, value(out))
+
+        assertEquals(0, Ed25519Scalar.sub(limbs(L), limbs(L - BigInteger.ONE), out))
+        assertEquals(BigInteger.ONE, value(out))
+    }
+
+    @Test
+    fun isZero() {
+        assertTrue(Ed25519Scalar.isZero(limbs(BigInteger.ZERO)))
+        assertFalse(Ed25519Scalar.isZero(limbs(BigInteger.ONE.shiftLeft(255))))
+    }
+
+    companion object {
+        private val L = BigInteger("1000000000000000000000000000000014def9dea2f79cd65812631a5cf5d3ed", 16)
+        private val MAX = BigInteger.ONE.shiftLeft(256) - BigInteger.ONE
+    }
+}
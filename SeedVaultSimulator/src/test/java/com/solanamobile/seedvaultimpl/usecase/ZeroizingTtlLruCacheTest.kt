@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvaultimpl.usecase
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class ZeroizingTtlLruCacheTest {
+    private var now = 0L
+
+    // Keys are (seedId, n) pairs
+    private val cache = ZeroizingTtlLruCache<Pair<Long, Int>>(
+        maxEntries = 2, ttlMs = 1000L, seedIdOf = { it.first }, clock = { now })
+
+    @Test
+    fun getReturnsCopy() {
+        cache.put(1L to 0, byteArrayOf(1, 2, 3))
+        val value = cache.get(1L to 0)!!
+        value.fill(0)
+        assertArrayEquals(byteArrayOf(1, 2, 3), cache.get(1L to 0))
+    }
+
+    @Test
+    fun putCopiesValue() {
+        val value = byteArrayOf(1, 2, 3)
+        cache.put(1L to 0, value)
+        value.fill(0)
+        assertArrayEquals(byteArrayOf(1, 2, 3), cache.get(1L to 0))
+    }
+
+    @Test
+    fun leastRecentlyUsedIsEvicted() {
+        cache.put(1L to 0, byteArrayOf(0))
+        cache.put(1L to 1, byteArrayOf(1))
+        cache.get(1L to 0)
+        cache.put(1L to 2, byteArrayOf(2))
+        assertNull(cache.get(1L to 1))
+        assertArrayEquals(byteArrayOf(0), cache.get(1L to 0))
+        assertEquals(1L, cache.stats.evictions)
+    }
+
+    @Test
+    fun entriesExpire() {
+        cache.put(1L to 0, byteArrayOf(0))
+        now = 999L
+        assertArrayEquals(byteArrayOf(0), cache.get(1L to 0))
+        now = 1000L
+        assertNull(cache.get(1L to 0))
+        assertEquals(0, cache.stats.size)
+    }
+
+    @Test
+    fun untouchedExpiredEntryIsZeroized() {
+        cache.put(1L to 0, byteArrayOf(1, 2, 3))
+        val stored = cache.peekStoredValue(1L to 0)!!
+        now = 1000L
+        cache.put(2L to 0, byteArrayOf(4))
+        assertArrayEquals(byteArrayOf(0, 0, 0), stored)
+        assertNull(cache.peekStoredValue(1L to 0))
+        assertEquals(1L, cache.stats.evictions)
+        assertEquals(1, cache.stats.size)
+    }
+
+    @Test
+    fun expiredEntryIsSweptWithoutAccess() {
+        // The sweep waits in real time, so use a real monotonic clock
+        val sweptCache = ZeroizingTtlLruCache<Pair<Long, Int>>(
+            maxEntries = 2, ttlMs = 50L, seedIdOf = { it.first }, clock = { System.nanoTime() / 1_000_000L })
+        sweptCache.put(1L to 0, byteArrayOf(1, 2, 3))
+        val stored = sweptCache.peekStoredValue(1L to 0)!!
+        Thread.sleep(1000L)
+        assertArrayEquals(byteArrayOf(0, 0, 0), stored)
+        assertEquals(0, sweptCache.stats.size)
+    }
+
+    @Test
+    fun clearBySeed() {
+        cache.put(1L to 0, byteArrayOf(0))
+        cache.put(2L to 0, byteArrayOf(1))
+        cache.clear(1L)
+        assertNull(cache.get(1L to 0))
+        assertArrayEquals(byteArrayOf(1), cache.get(2L to 0))
+    }
+
+    @Test
+    fun getFirstCountsOneHitOrMiss() {
+        cache.put(1L to 1, byteArrayOf(1))
+        val (key, value) = cache.getFirst(sequenceOf(1L to 2, 1L to 1, 1L to 0))!!
+        assertEquals(1L to 1, key)
+        assertArrayEquals(byteArrayOf(1), value)
+        assertNull(cache.getFirst(sequenceOf(1L to 3, 1L to 4)))
+        assertEquals(1L, cache.stats.hits)
+        assertEquals(1L, cache.stats.misses)
+    }
+}
@@ -365,8 +365,11 @@ class RunCtsTestsOnSimulator {
     internal inner class PermissionedAccountFetchPubKeysPrivilegedTestCase(override val id: String = "pafpktc") : CtsTestCase
     internal inner class Fetch1PubKeyTestCase(override val id: String = "f1pk") : AuthorizeWithBiometricsTestCase()
     internal inner class FetchMaxPubKeyTestCase(override val id: String = "fmaxpk") : AuthorizeWithBiometricsTestCase()
+    internal inner class FetchPubKeyRangeTestCase(override val id: String = "fpkr") : AuthorizeWithBiometricsTestCase()
     internal inner class ReauthorizeSeed12TestCase(override val id: String = "rs12") : AuthorizeWithBiometricsTestCase()
+    internal inner class Sign1LargeMessageWith1SignatureTestCase(override val id: String = "s1lm1s") : AuthorizeWithBiometricsTestCase()
     internal inner class Sign1MessageWith1SignatureTestCase(override val id: String = "s1m1s") : AuthorizeWithBiometricsTestCase()
+    internal inner class Sign1MessageWith1SignatureBatchTestCase(override val id: String = "s1m1sb") : AuthorizeWithBiometricsTestCase()
     internal inner class Sign1TransactionWith1SignatureTestCase(override val id: String = "s1t1s") : AuthorizeWithBiometricsTestCase()
     internal inner class SignMaxMessageWithMaxSignatureBip44TestCase(override val id: String = "smaxmmaxsb44") : AuthorizeWithBiometricsTestCase()
     internal inner class SignMaxMessageWithMaxSignatureTestCase(override val id: String = "smaxmmaxs") : AuthorizeWithBiometricsTestCase()
@@ -573,6 +576,7 @@ class RunCtsTestsOnSimulator {
         PermissionedAccountFetchPubKeysPrivilegedTestCase().takeIf { !IS_GENERIC_BUILD },
         Fetch1PubKeyTestCase(),
         FetchMaxPubKeyTestCase(),
+        FetchPubKeyRangeTestCase(),
         FetchTooManyPubKeyTestCase(),
         Sign1TransactionWith1SignatureTestCase(),
         SignMaxTransactionWithMaxSignatureTestCase(),
@@ -584,6 +588,8 @@ class RunCtsTestsOnSimulator {
         Sign1MessageWith1SignatureTestCase(),
         SignMaxMessageWithMaxSignatureTestCase(),
         SignMaxMessageWithMaxSignatureBip44TestCase(),
+        Sign1LargeMessageWith1SignatureTestCase(),
+        Sign1MessageWith1SignatureBatchTestCase(),
         SignMessageRequestsExceedLimitTestCase(),
         SignMessageSignaturesExceedLimitTestCase(),
         DenySignMessageTestCase(),
@@ -16,6 +16,7 @@ import com.solanamobile.seedvault.Bip32DerivationPath
 import com.solanamobile.seedvault.Bip44DerivationPath
 import com.solanamobile.seedvault.BipLevel
 import com.solanamobile.seedvault.SigningRequest
+import com.solanamobile.seedvault.SigningRequestBatch
 import com.solanamobile.seedvault.SigningResponse
 import com.solanamobile.seedvault.Wallet
 import com.solanamobile.seedvault.WalletContractV1
@@ -42,7 +43,8 @@ internal abstract class SignNMessagesMSignaturesTestCase(
     private val logger: TestSessionLogger,
     private val expectedException: Exception? = null,
     private val signingRequests: () -> List<SigningRequest>,
-    private val expectedSignatures: List<SigningResponse>? = null
+    private val expectedSignatures: List<SigningResponse>? = null,
+    private val sendAsBatch: Boolean = false
 ) : TestCaseImpl(
     preConditions = preConditions
 ), ActivityLauncherTestCase {
@@ -51,14 +53,22 @@ internal abstract class SignNMessagesMSignaturesTestCase(
 
     data class SignMessagesInput(
         @AuthToken val authToken: Long,
-        val requests: List<SigningRequest>
+        val requests: List<SigningRequest>,
+        val sendAsBatch: Boolean = false
     )
 
     class SignMessageIntentContract :
         ActivityResultContract<SignMessagesInput, Result<ArrayList<SigningResponse>>>() {
 
-        override fun createIntent(context: Context, input: SignMessagesInput): Intent =
-            Wallet.signMessages(context, input.authToken, ArrayList(input.requests))
+        override fun createIntent(context: Context, input: SignMessagesInput): Intent {
+            val intent = Wallet.signMessages(context, input.authToken, ArrayList(input.requests))
+            if (input.sendAsBatch) {
+                // Send the compact batch form, whether or not the SDK knows it to be supported
+                intent.removeExtra(WalletContractV1.EXTRA_SIGNING_REQUEST)
+                intent.putExtra(WalletContractV1.EXTRA_SIGNING_REQUEST_BATCH, SigningRequestBatch(input.requests))
+            }
+            return intent
+        }
 
         override fun parseResult(
             resultCode: Int,
@@ -145,7 +155,7 @@ internal abstract class SignNMessagesMSignaturesTestCase(
         completionSignal = signal
 
         val requests = signingRequests()
-        launcher.launch(SignMessagesInput(authToken, requests))
+        launcher.launch(SignMessagesInput(authToken, requests, sendAsBatch))
 
         try {
             signal.await()
@@ -226,6 +236,7 @@ internal abstract class SignNMessagesMSignaturesTestCase(
         }
 
         protected const val MESSAGE_SIZE = 512
+        protected const val LARGE_MESSAGE_SIZE = 64 * 1024
     }
 }
 
@@ -646,6 +657,91 @@ internal class SignMaxMessageWithMaxSignatureBip44TestCase @Inject constructor(
     }
 }
 
+internal class Sign1LargeMessageWith1SignatureTestCase @Inject constructor(
+    @ApplicationContext context: Context,
+    logger: TestSessionLogger,
+    knownSeed12AuthorizedChecker: KnownSeed12AuthorizedChecker,
+    hasSeedVaultPermissionChecker: HasSeedVaultPermissionChecker,
+) : SignNMessagesMSignaturesTestCase(
+    preConditions = listOf(hasSeedVaultPermissionChecker, knownSeed12AuthorizedChecker),
+    authorizedSeedsChecker = knownSeed12AuthorizedChecker,
+    logger = logger,
+    signingRequests = {
+        // Populate the supported features cache, so that Wallet.signMessages sends the message
+        // out-of-band when the implementation reports FEATURE_SIGNING_PAYLOADS_URI
+        Wallet.getSupportedFeatures(context)
+        listOf(
+            SigningRequest(
+                ByteArray(LARGE_MESSAGE_SIZE) { it.toByte() },
+                listOf(
+                    Bip32DerivationPath.newBuilder()
+                        .appendLevel(BipLevel(44, true))
+                        .appendLevel(BipLevel(501, true))
+                        .appendLevel(BipLevel(0, true))
+                        .build().toUri()
+                )
+            )
+        )
+    },
+    expectedSignatures = arrayListOf(
+        SigningResponse(
+            listOf(
+                byteArrayOf(
+                    -49, -37, -103, 37, -95, 126, -35, -1,
+                    12, -120, 14, -1, -6, -25, -123, -13,
+                    62, 4, -58, -119, 11, -85, -21, -11,
+                    -116, -42, 23, 53, -49, -19, -47, -11,
+                    -2, 127, -90, -127, -51, 78, 119, 72,
+                    45, 28, 103, -101, 5, -50, 49, -92,
+                    103, -115, 16, 15, 127, -116, -7, -92,
+                    -119, 65, 46, 100, -50, 86, -77, 0
+                )
+            ),
+            listOf(Uri.parse("bip32:/m/44'/501'/0'"))
+        )
+    )
+), ActivityLauncherTestCase {
+    override val id: String = "s1lm1s"
+    override val description: String = "Sign 1 message of ${LARGE_MESSAGE_SIZE / 1024} KiB with 1 signature"
+    override val instructions: String = "Approve message when prompted."
+}
+
+internal class Sign1MessageWith1SignatureBatchTestCase @Inject constructor(
+    @ApplicationContext context: Context,
+    logger: TestSessionLogger,
+    knownSeed12AuthorizedChecker: KnownSeed12AuthorizedChecker,
+    hasSeedVaultPermissionChecker: HasSeedVaultPermissionChecker,
+) : SignNMessagesMSignaturesTestCase(
+    preConditions = listOf(hasSeedVaultPermissionChecker, knownSeed12AuthorizedChecker),
+    authorizedSeedsChecker = knownSeed12AuthorizedChecker,
+    logger = logger,
+    signingRequests = {
+        signMMessagesWithNSignatures(context, 1, 1, false)
+    },
+    expectedSignatures = arrayListOf(
+        SigningResponse(
+            listOf(
+                byteArrayOf(
+                    -42, -48, 114, 114, -26, 18, -123, -63,
+                    123, 90, -55, -31, -97, -26, 72, 89,
+                    52, -81, 73, -39, -94, -46, -128, 66, 119,
+                    -100, 115, -26, -23, 86, 3, -17, 109,
+                    -105, -10, 46, -114, -38, -72, -67, 92,
+                    68, 59, -111, 80, -15, -4, 37, 32,
+                    -42, -11, 50, 71, 31, -7, -41, 100,
+                    -32, -124, 26, -119, 25, 121, 11
+                )
+            ),
+            listOf(Uri.parse("bip32:/m/44'/501'/0'"))
+        )
+    ),
+    sendAsBatch = true
+), ActivityLauncherTestCase {
+    override val id: String = "s1m1sb"
+    override val description: String = "Sign 1 message with 1 signature, sent as a ${WalletContractV1.EXTRA_SIGNING_REQUEST_BATCH}"
+    override val instructions: String = "Approve message when prompted."
+}
+
 internal class SignMessageRequestsExceedLimitTestCase @Inject constructor(
     @ApplicationContext private val context: Context,
     logger: TestSessionLogger,
@@ -29,6 +29,7 @@ internal object TestCorpusProvider {
         denySignMessageTestCase: DenySignMessageTestCase,
         denySignTransactionTestCase: DenySignTransactionTestCase,
         fetchMaxPubKeyTestCase: FetchMaxPubKeyTestCase,
+        fetchPubKeyRangeTestCase: FetchPubKeyRangeTestCase,
         fetchTooManyPubKeyTestCase: FetchTooManyPubKeyTestCase,
         fetch1PubKeyTestCase: Fetch1PubKeyTestCase,
         hasAuthorizedSeedsContentProviderTestCase: HasAuthorizedSeedsContentProviderTestCase,
@@ -48,7 +49,9 @@ internal object TestCorpusProvider {
         seed12AccountsContentProviderTestCase: KnownSeed12AccountsContentProviderTestCase,
         seed24AccountsContentProviderTestCase: KnownSeed24AccountsContentProviderTestCase,
         showSeedSettingsTestCase: ShowSeedSettingsTestCase,
+        sign1LargeMessageWith1SignatureTestCase: Sign1LargeMessageWith1SignatureTestCase,
         sign1MessageWith1SignatureTestCase: Sign1MessageWith1SignatureTestCase,
+        sign1MessageWith1SignatureBatchTestCase: Sign1MessageWith1SignatureBatchTestCase,
         sign1TransactionWith1SignatureTestCase: Sign1TransactionWith1SignatureTestCase,
         signMaxMessageWithMaxSignatureBip44TestCase: SignMaxMessageWithMaxSignatureBip44TestCase,
         signMaxMessageWithMaxSignatureTestCase: SignMaxMessageWithMaxSignatureTestCase,
@@ -78,6 +81,7 @@ internal object TestCorpusProvider {
             permissionedAccountFetchPubKeysTestCase,
             fetch1PubKeyTestCase,
             fetchMaxPubKeyTestCase,
+            fetchPubKeyRangeTestCase,
             fetchTooManyPubKeyTestCase,
             sign1TransactionWith1SignatureTestCase,
             signMaxTransactionWithMaxSignatureTestCase,
@@ -89,6 +93,8 @@ internal object TestCorpusProvider {
             sign1MessageWith1SignatureTestCase,
             signMaxMessageWithMaxSignatureTestCase,
             signMaxMessageWithMaxSignatureBip44TestCase,
+            sign1LargeMessageWith1SignatureTestCase,
+            sign1MessageWith1SignatureBatchTestCase,
             signMessageRequestsExceedLimitTestCase,
             signMessageSignaturesExceedLimitTestCase,
             denySignMessageTestCase,
@@ -41,6 +41,7 @@ class MainViewModel(
         if (!SeedVault.isAvailable(application, true)) {
             throw UnsupportedOperationException("Seed Vault is not available; please install the Seed Vault simulator")
         }
+        SeedVault.prewarm(application)
 
         viewModelScope.launch {
             observeSeedVaultContentChanges()
@@ -87,45 +88,32 @@ class MainViewModel(
 
         val seeds = mutableListOf<Seed>()
 
-        val authorizedSeedsCursor = withContext(Dispatchers.Default) {
-            Wallet.getAuthorizedSeeds(getApplication(),
-                WalletContractV1.AUTHORIZED_SEEDS_ALL_COLUMNS)!!
-        }
-        while (authorizedSeedsCursor.moveToNext()) {
-            val authToken = authorizedSeedsCursor.getLong(0)
-            val authPurpose = authorizedSeedsCursor.getInt(1)
-            val seedName = authorizedSeedsCursor.getString(2)
-            val isBackedUp =
-                if (authorizedSeedsCursor.columnCount == 4) authorizedSeedsCursor.getShort(3) else 0.toShort()
-            val accounts = mutableListOf<Account>()
-
-            val accountsCursor = withContext(Dispatchers.Default) {
-                Wallet.getAccounts(getApplication(), authToken,
-                    WalletContractV1.ACCOUNTS_ALL_COLUMNS,
-                    WalletContractV1.ACCOUNTS_ACCOUNT_IS_USER_WALLET, "1")!!
+        val authorizedSeeds = withContext(Dispatchers.Default) {
+            Wallet.getAuthorizedSeedList(getApplication())
+        }
+        for (authorizedSeed in authorizedSeeds) {
+            val authToken = authorizedSeed.authToken
+            val accounts = withContext(Dispatchers.Default) {
+                Wallet.getAccountList(getApplication(), authToken,
+                    ACCOUNT_LIST_PROJECTION,
+                    WalletContractV1.ACCOUNTS_ACCOUNT_IS_USER_WALLET, "1")
+            }.map { account ->
+                val publicKeyEncoded = account.publicKeyEncoded
+                Account(account.id,
+                    account.name.ifBlank { publicKeyEncoded.substring(0, 10) },
+                    account.derivationPath, publicKeyEncoded)
             }
-            while (accountsCursor.moveToNext()) {
-                val accountId = accountsCursor.getLong(0)
-                val derivationPath = Uri.parse(accountsCursor.getString(1))
-                val publicKeyEncoded = accountsCursor.getString(3)
-                val accountName = accountsCursor.getString(4)
-                accounts.add(Account(accountId,
-                    accountName.ifBlank { publicKeyEncoded.substring(0, 10) },
-                    derivationPath, publicKeyEncoded))
-            }
-            accountsCursor.close()
 
             seeds.add(
                 Seed(
                     authToken,
-                    seedName.ifBlank { authToken.toString() },
-                    authPurpose,
-                    isBackedUp == 1.toShort(),
+                    authorizedSeed.name.ifBlank { authToken.toString() },
+                    authorizedSeed.purpose,
+                    authorizedSeed.isBackedUp,
                     accounts
                 )
             )
         }
-        authorizedSeedsCursor.close()
 
         // Note: Add a synthetic entry to the implementation limits, to display and test the BIP32
         // path length limits (which are not a normal implementation limit)
@@ -608,6 +596,14 @@ class MainViewModel(
         private const val IMPLEMENTATION_LIMITS_MAX_BIP32_PATH_DEPTH = "MaxBip32PathDepth"
         private const val TRANSACTION_SIZE = 512
         private const val MESSAGE_SIZE = 512
+
+        // The raw public key is not displayed, so don't transfer it
+        private val ACCOUNT_LIST_PROJECTION = arrayOf(
+            WalletContractV1.ACCOUNTS_ACCOUNT_ID,
+            WalletContractV1.ACCOUNTS_BIP32_DERIVATION_PATH,
+            WalletContractV1.ACCOUNTS_PUBLIC_KEY_ENCODED,
+            WalletContractV1.ACCOUNTS_ACCOUNT_NAME
+        )
     }
 }
 
@@ -0,0 +1,6 @@
+# Preserve all public classes, and their public and protected fields and
+# methods.
+
+-keep public class com.solanamobile.seedvault.ktx.* {
+    public protected *;
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault.ktx
+
+import android.content.Context
+import android.database.ContentObserver
+import android.net.Uri
+import android.os.Build
+import android.util.ArrayMap
+import androidx.annotation.RequiresApi
+import com.solanamobile.seedvault.Account
+import com.solanamobile.seedvault.AuthorizedSeed
+import com.solanamobile.seedvault.WalletAsync
+import com.solanamobile.seedvault.WalletContractV1
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.future.await
+
+/**
+ * Suspending variants of the [com.solanamobile.seedvault.Wallet] content provider queries, updates
+ * and methods. These are thin wrappers around [WalletAsync]; cancelling the calling coroutine
+ * cancels the underlying request.
+ */
+@RequiresApi(Build.VERSION_CODES.R)
+object SuspendingWallet {
+    /** See [com.solanamobile.seedvault.Wallet.getAuthorizedSeedList] */
+    suspend fun getAuthorizedSeedList(
+        context: Context,
+        filterOnColumn: String? = null,
+        value: Any? = null
+    ): List<AuthorizedSeed> =
+        WalletAsync.getAuthorizedSeedList(context, filterOnColumn, value).await()
+
+    /** See [com.solanamobile.seedvault.Wallet.hasUnauthorizedSeedsForPurpose] */
+    suspend fun hasUnauthorizedSeedsForPurpose(
+        context: Context,
+        @WalletContractV1.Purpose purpose: Int
+    ): Boolean = WalletAsync.hasUnauthorizedSeedsForPurpose(context, purpose).await()
+
+    /** See [com.solanamobile.seedvault.Wallet.getAccountList] */
+    suspend fun getAccountList(
+        context: Context,
+        @WalletContractV1.AuthToken authToken: Long,
+        projection: Array<String> = WalletContractV1.ACCOUNTS_ALL_COLUMNS,
+        filterOnColumn: String? = null,
+        value: Any? = null
+    ): List<Account> =
+        WalletAsync.getAccountList(context, authToken, projection, filterOnColumn, value).await()
+
+    /** See [com.solanamobile.seedvault.Wallet.getImplementationLimitsForPurpose] */
+    suspend fun getImplementationLimitsForPurpose(
+        context: Context,
+        @WalletContractV1.Purpose purpose: Int
+    ): ArrayMap<String, Long> = WalletAsync.getImplementationLimitsForPurpose(context, purpose).await()
+
+    /** See [com.solanamobile.seedvault.Wallet.resolveDerivationPath] */
+    suspend fun resolveDerivationPath(
+        context: Context,
+        derivationPath: Uri,
+        @WalletContractV1.Purpose purpose: Int
+    ): Uri = WalletAsync.resolveDerivationPath(context, derivationPath, purpose).await()
+
+    /** See [com.solanamobile.seedvault.Wallet.deauthorizeSeed] */
+    suspend fun deauthorizeSeed(
+        context: Context,
+        @WalletContractV1.AuthToken authToken: Long
+    ) {
+        WalletAsync.deauthorizeSeed(context, authToken).await()
+    }
+
+    /** See [com.solanamobile.seedvault.Wallet.updateAccountName] */
+    suspend fun updateAccountName(
+        context: Context,
+        @WalletContractV1.AuthToken authToken: Long,
+        @WalletContractV1.AccountId id: Long,
+        name: String?
+    ) {
+        WalletAsync.updateAccountName(context, authToken, id, name).await()
+    }
+
+    /** See [com.solanamobile.seedvault.Wallet.updateAccountIsUserWallet] */
+    suspend fun updateAccountIsUserWallet(
+        context: Context,
+        @WalletContractV1.AuthToken authToken: Long,
+        @WalletContractV1.AccountId id: Long,
+        isUserWallet: Boolean
+    ) {
+        WalletAsync.updateAccountIsUserWallet(context, authToken, id, isUserWallet).await()
+    }
+
+    /** See [com.solanamobile.seedvault.Wallet.updateAccountIsValid] */
+    suspend fun updateAccountIsValid(
+        context: Context,
+        @WalletContractV1.AuthToken authToken: Long,
+        @WalletContractV1.AccountId id: Long,
+        isValid: Boolean
+    ) {
+        WalletAsync.updateAccountIsValid(context, authToken, id, isValid).await()
+    }
+
+    /**
+     * A [Flow] of the [Uri]s reported as changed by the Seed Vault Wallet content provider, at or
+     * below [uri]. A [ContentObserver] is registered while the [Flow] is collected. If the
+     * collector falls behind, only the most recent change is retained.
+     */
+    fun changes(
+        context: Context,
+        uri: Uri = WalletContractV1.WALLET_PROVIDER_CONTENT_URI_BASE
+    ): Flow<Uri> = callbackFlow {
+        val contentResolver = context.applicationContext.contentResolver
+        val observer = object : ContentObserver(null) {
+            override fun onChange(selfChange: Boolean, changedUri: Uri?) {
+                trySend(changedUri ?: uri)
+            }
+        }
+        contentResolver.registerContentObserver(uri, true, observer)
+        awaitClose { contentResolver.unregisterContentObserver(observer) }
+    }.buffer(capacity = 1, onBufferOverflow = BufferOverflow.DROP_OLDEST)
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault.ktx
+
+import android.content.Context
+import android.content.Intent
+import android.os.Build
+import androidx.activity.result.contract.ActivityResultContract
+import androidx.annotation.RequiresApi
+import com.solanamobile.seedvault.Wallet
+import com.solanamobile.seedvault.WalletBatch
+
+/**
+ * An [ActivityResultContract] which launches the next step of a [WalletBatch]. The contract is
+ * stateless, since it is recreated along with the Activity; the caller owns the in-flight batch
+ * (typically in a ViewModel, so that it survives configuration changes), applies each raw
+ * [StepResult] to it, and launches it again until it is complete, for e.g.:
+ *
+ * ```
+ * class SigningViewModel : ViewModel() {
+ *     var batch: WalletBatch? = null
+ * }
+ *
+ * val launcher = registerForActivityResult(WalletBatchContract()) { result ->
+ *     // The batch does not survive process death; a result without one is stale
+ *     val batch = viewModel.batch ?: return@registerForActivityResult
+ *     try {
+ *         batch.onResult(result)
+ *     } catch (e: Wallet.ActionFailedException) {
+ *         onFailed(e)
+ *         return@registerForActivityResult
+ *     }
+ *     if (batch.isComplete) onSigned(batch.signingResponses) else launcher.launch(batch)
+ * }
+ *
+ * viewModel.batch = WalletBatch.signTransactions(context, authToken, purpose, signingRequests)
+ * launcher.launch(viewModel.batch!!)
+ * ```
+ *
+ * A failed step can be retried by launching the same batch again.
+ */
+@RequiresApi(Build.VERSION_CODES.R)
+class WalletBatchContract : ActivityResultContract<WalletBatch, WalletBatchContract.StepResult>() {
+    /**
+     * The raw outcome of one step of a [WalletBatch], to be passed to [WalletBatch.onResult]
+     * @param resultCode the result code returned by the Seed Vault
+     * @param data the result [Intent] returned by the Seed Vault, if any
+     */
+    data class StepResult(
+        val resultCode: Int,
+        val data: Intent?
+    )
+
+    override fun createIntent(context: Context, input: WalletBatch): Intent {
+        return input.createNextIntent(context)
+    }
+
+    override fun parseResult(resultCode: Int, intent: Intent?): StepResult {
+        return StepResult(resultCode, intent)
+    }
+}
+
+/**
+ * Apply the outcome of the step most recently launched with [WalletBatchContract] to this batch
+ * @throws Wallet.ActionFailedException if the step failed
+ */
+@RequiresApi(Build.VERSION_CODES.R)
+@Throws(Wallet.ActionFailedException::class)
+fun WalletBatch.onResult(result: WalletBatchContract.StepResult) {
+    onResult(result.resultCode, result.data)
+}
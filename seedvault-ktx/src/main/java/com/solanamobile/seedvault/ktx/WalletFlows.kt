@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault.ktx
+
+import android.content.Context
+import android.database.ContentObserver
+import android.net.Uri
+import android.os.Build
+import androidx.annotation.RequiresApi
+import com.solanamobile.seedvault.Account
+import com.solanamobile.seedvault.AuthorizedSeed
+import com.solanamobile.seedvault.WalletContractV1
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.onSubscription
+import kotlinx.coroutines.flow.shareIn
+
+/**
+ * Live views of the Seed Vault Wallet content provider tables. All [Flow]s returned from here share
+ * a single [ContentObserver], registered while any of them is being collected. Change notifications
+ * are debounced, and conflated while a re-query is in progress, so that a burst of changes results
+ * in a single re-query per [Flow].
+ */
+@RequiresApi(Build.VERSION_CODES.R)
+object WalletFlows {
+    /** The default quiet period after a change notification before re-querying */
+    const val DEFAULT_DEBOUNCE_MS = 50L
+
+    // Keep the shared ContentObserver registered briefly after the last collector goes away, so
+    // that e.g. a configuration change does not unregister and re-register it
+    private const val SHARED_OBSERVER_STOP_TIMEOUT_MS = 5000L
+
+    // Emitted to each new subscriber, to trigger the initial query
+    private val INITIAL_QUERY = Uri.EMPTY
+
+    private val sharingScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    @Volatile
+    private var sharedChanges: SharedFlow<Uri>? = null
+
+    /**
+     * A row-level difference between two successive query results
+     * @param rows the rows of the latest query result
+     * @param addedIds the IDs of rows present in [rows] but not in the previous result
+     * @param removedIds the IDs of rows present in the previous result but not in [rows]
+     * @param changedIds the IDs of rows present in both, whose contents differ
+     */
+    data class RowDiff<T>(
+        val rows: List<T>,
+        val addedIds: Set<Long>,
+        val removedIds: Set<Long>,
+        val changedIds: Set<Long>
+    ) {
+        /** true if any rows were added, removed or changed */
+        val hasChanges: Boolean
+            get() = addedIds.isNotEmpty() || removedIds.isNotEmpty() || changedIds.isNotEmpty()
+    }
+
+    /**
+     * A [Flow] of the known accounts for the specified auth token. The first emission contains all
+     * matching accounts as [RowDiff.addedIds]; subsequent emissions occur only when the matching
+     * accounts change. The [Flow] fails with [IllegalArgumentException] if authToken is, or becomes,
+     * invalid for this app.
+     * @param context the [Context] in which to perform requests
+     * @param authToken the auth token for which to get known accounts
+     * @param filterOnColumn the optional column on which to filter (one of
+     *      [WalletContractV1.ACCOUNTS_ALL_COLUMNS])
+     * @param value the value of filterOnColumn which all returned rows must match
+     * @param debounceMs the quiet period after a change notification before re-querying
+     */
+    fun accountsFlow(
+        context: Context,
+        @WalletContractV1.AuthToken authToken: Long,
+        filterOnColumn: String? = null,
+        value: Any? = null,
+        debounceMs: Long = DEFAULT_DEBOUNCE_MS
+    ): Flow<RowDiff<Account>> = rowDiffFlow(
+        context,
+        debounceMs,
+        { uri -> isForTable(uri, WalletContractV1.ACCOUNTS_TABLE, WalletContractV1.AUTHORIZED_SEEDS_TABLE) },
+        {
+            SuspendingWallet.getAccountList(context, authToken,
+                WalletContractV1.ACCOUNTS_ALL_COLUMNS, filterOnColumn, value)
+        },
+        Account::getId
+    )
+
+    /**
+     * A [Flow] of the authorized seeds for the current app, keyed by auth token. The first emission
+     * contains all authorized seeds as [RowDiff.addedIds]; subsequent emissions occur only when the
+     * authorized seeds change.
+     * @param context the [Context] in which to perform requests
+     * @param debounceMs the quiet period after a change notification before re-querying
+     */
+    fun authorizedSeedsFlow(
+        context: Context,
+        debounceMs: Long = DEFAULT_DEBOUNCE_MS
+    ): Flow<RowDiff<AuthorizedSeed>> = rowDiffFlow(
+        context,
+        debounceMs,
+        { uri -> isForTable(uri, WalletContractV1.AUTHORIZED_SEEDS_TABLE) },
+        { SuspendingWallet.getAuthorizedSeedList(context) },
+        { authorizedSeed -> authorizedSeed.authToken }
+    )
+
+    @OptIn(FlowPreview::class)
+    private fun <T> rowDiffFlow(
+        context: Context,
+        debounceMs: Long,
+        isRelevant: (Uri) -> Boolean,
+        query: suspend () -> List<T>,
+        idOf: (T) -> Long
+    ): Flow<RowDiff<T>> {
+        require(debounceMs >= 0) { "debounceMs must be >= 0" }
+        val triggers = getSharedChanges(context)
+            .onSubscription { emit(INITIAL_QUERY) }
+            .filter { uri -> uri === INITIAL_QUERY || isRelevant(uri) }
+            .debounce { uri -> if (uri === INITIAL_QUERY) 0L else debounceMs }
+            .conflate()
+
+        return flow {
+            var previous: Map<Long, T>? = null
+            triggers.collect {
+                val rows = query()
+                val current = LinkedHashMap<Long, T>(rows.size)
+                rows.forEach { row -> current[idOf(row)] = row }
+
+                val diff = diff(previous, current, rows)
+                if (previous == null || diff.hasChanges) {
+                    emit(diff)
+                }
+                previous = current
+            }
+        }
+    }
+
+    private fun <T> diff(previous: Map<Long, T>?, current: Map<Long, T>, rows: List<T>): RowDiff<T> {
+        if (previous == null) {
+            return RowDiff(rows, current.keys.toSet(), emptySet(), emptySet())
+        }
+
+        val added = mutableSetOf<Long>()
+        val changed = mutableSetOf<Long>()
+        for ((id, row) in current) {
+            val previousRow = previous[id]
+            if (previousRow == null) {
+                added.add(id)
+            } else if (previousRow != row) {
+                changed.add(id)
+            }
+        }
+        val removed = previous.keys.filterTo(mutableSetOf()) { id -> !current.containsKey(id) }
+        return RowDiff(rows, added, removed, changed)
+    }
+
+    private fun isForTable(uri: Uri, vararg tables: String): Boolean {
+        // A notification for the provider as a whole applies to every table
+        val table = uri.pathSegments.firstOrNull() ?: return true
+        return table in tables
+    }
+
+    private fun getSharedChanges(context: Context): SharedFlow<Uri> {
+        sharedChanges?.let { return it }
+        synchronized(this) {
+            return sharedChanges ?: observeChanges(context.applicationContext)
+                .shareIn(sharingScope, SharingStarted.WhileSubscribed(SHARED_OBSERVER_STOP_TIMEOUT_MS))
+                .also { sharedChanges = it }
+        }
+    }
+
+    // Unlike SuspendingWallet.changes, no notifications are dropped here; conflation happens per
+    // collector, after filtering for the notifications it cares about
+    private fun observeChanges(context: Context): Flow<Uri> = callbackFlow {
+        val contentResolver = context.contentResolver
+        val observer = object : ContentObserver(null) {
+            override fun onChange(selfChange: Boolean, uri: Uri?) {
+                trySend(uri ?: WalletContractV1.WALLET_PROVIDER_CONTENT_URI_BASE)
+            }
+        }
+        contentResolver.registerContentObserver(
+            WalletContractV1.WALLET_PROVIDER_CONTENT_URI_BASE, true, observer)
+        awaitClose { contentResolver.unregisterContentObserver(observer) }
+    }.buffer(Channel.UNLIMITED)
+}
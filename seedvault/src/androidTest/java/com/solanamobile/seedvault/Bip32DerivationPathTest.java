@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import android.net.Uri;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+// Checks that the single pass canonical parser agrees with the general Uri parser, and defers to it
+// for every input that is not in canonical form
+@RunWith(AndroidJUnit4.class)
+public class Bip32DerivationPathTest {
+    @Test
+    public void canonicalInputsParseIdentically() {
+        final String[] inputs = {
+                "bip32:/m",
+                "bip32:/m/0",
+                "bip32:/m/44'/501'",
+                "bip32:/m/44'/501'/0'/0'",
+                "bip32:/m/2147483647/2147483647'",
+                "bip32:/m/1/2/3/4/5/6/7/8/9/10/11/12/13/14/15/16/17/18/19/20",
+        };
+        for (String input : inputs) {
+            final Uri uri = Uri.parse(input);
+            final Bip32DerivationPath canonical = Bip32DerivationPath.parseCanonical(uri, input);
+            assertNotNull(input, canonical);
+            assertEquals(input, Bip32DerivationPath.parse(uri), canonical);
+            assertEquals(input, input, canonical.toUri().toString());
+        }
+    }
+
+    @Test
+    public void nonCanonicalInputsDeferToParse() {
+        final String[][] inputs = {
+                // input, equivalent canonical form
+                { "bip32:/m/044'/501'", "bip32:/m/44'/501'" },
+                { "bip32:/m/00", "bip32:/m/0" },
+                { "bip32:/m/44%27/501%27", "bip32:/m/44'/501'" },
+                { "bip32:/m/44'/501'/", "bip32:/m/44'/501'" },
+        };
+        for (String[] input : inputs) {
+            final Uri uri = Uri.parse(input[0]);
+            assertNull(input[0], Bip32DerivationPath.parseCanonical(uri, input[0]));
+            final Bip32DerivationPath expected = Bip32DerivationPath.parse(Uri.parse(input[1]));
+            assertEquals(input[0], expected, Bip32DerivationPath.parse(uri));
+            assertEquals(input[0], expected, Bip32DerivationPath.fromUri(uri));
+        }
+    }
+
+    @Test
+    public void invalidInputsAreRejected() {
+        final String[] inputs = {
+                "bip32:/m/44'?account=0",
+                "bip32:/m/44'#0",
+                "bip32:/m/2147483648",
+                "bip32:/m/2147483648'",
+                "bip32:/m/99999999999",
+                "bip32:/m/44''",
+        };
+        for (String input : inputs) {
+            final Uri uri = Uri.parse(input);
+            assertNull(input, Bip32DerivationPath.parseCanonical(uri, input));
+            assertThrows(input, UnsupportedOperationException.class,
+                    () -> Bip32DerivationPath.parse(uri));
+            assertThrows(input, UnsupportedOperationException.class,
+                    () -> Bip32DerivationPath.fromUri(uri));
+        }
+    }
+
+    @Test
+    public void shallowCanonicalPathsAreInterned() {
+        final String input = "bip32:/m/44'/501'/7777'";
+        final Bip32DerivationPath first = Bip32DerivationPath.fromUri(Uri.parse(input));
+        assertSame(first, Bip32DerivationPath.fromUri(Uri.parse(input)));
+
+        final Bip32DerivationPath built = Bip32DerivationPath.newBuilder()
+                .appendLevel(new BipLevel(44, true))
+                .appendLevel(new BipLevel(501, true))
+                .appendLevel(new BipLevel(7777, true))
+                .build();
+        assertSame(first, built.intern());
+
+        final Bip32DerivationPath nonCanonical =
+                Bip32DerivationPath.fromUri(Uri.parse("bip32:/m/44'/501'/07777'"));
+        assertEquals(first, nonCanonical);
+        assertSame(first, nonCanonical.intern());
+    }
+
+    @Test
+    public void deepPathsAreNotInterned() {
+        final String input = "bip32:/m/44'/501'/8888'/0'";
+        final Bip32DerivationPath first = Bip32DerivationPath.fromUri(Uri.parse(input));
+        final Bip32DerivationPath second = Bip32DerivationPath.fromUri(Uri.parse(input));
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable data class representing a row of the {@link WalletContractV1#ACCOUNTS_TABLE}.
+ * <p>An {@link Account} read with a projection that omits some
+ * {@link WalletContractV1#ACCOUNTS_ALL_COLUMNS} columns throws {@link IllegalStateException} from
+ * the getters of the omitted columns. The derivation path {@link Uri} is parsed on first use.</p>
+ */
+@RequiresApi(api = Build.VERSION_CODES.M) // library minSdk is 17
+public class Account {
+    // Column indices, resolved once per Cursor; -1 for columns not in the projection
+    static final class ColumnIndices {
+        final int id;
+        final int derivationPath;
+        final int publicKeyRaw;
+        final int publicKeyEncoded;
+        final int name;
+        final int isUserWallet;
+        final int isValid;
+
+        ColumnIndices(@NonNull Cursor c) {
+            id = c.getColumnIndex(WalletContractV1.ACCOUNTS_ACCOUNT_ID);
+            derivationPath = c.getColumnIndex(WalletContractV1.ACCOUNTS_BIP32_DERIVATION_PATH);
+            publicKeyRaw = c.getColumnIndex(WalletContractV1.ACCOUNTS_PUBLIC_KEY_RAW);
+            publicKeyEncoded = c.getColumnIndex(WalletContractV1.ACCOUNTS_PUBLIC_KEY_ENCODED);
+            name = c.getColumnIndex(WalletContractV1.ACCOUNTS_ACCOUNT_NAME);
+            isUserWallet = c.getColumnIndex(WalletContractV1.ACCOUNTS_ACCOUNT_IS_USER_WALLET);
+            isValid = c.getColumnIndex(WalletContractV1.ACCOUNTS_ACCOUNT_IS_VALID);
+        }
+    }
+
+    private static final long NO_ID = -1;
+
+    @WalletContractV1.AccountId
+    private final long mId;
+
+    @Nullable
+    private final String mDerivationPathString;
+
+    @Nullable
+    private volatile Uri mDerivationPath;
+
+    @Nullable
+    private final byte[] mPublicKey;
+
+    @Nullable
+    private final String mPublicKeyEncoded;
+
+    @Nullable
+    private final String mName;
+
+    // 1 for true, 0 for false, -1 if not in the projection
+    private final byte mIsUserWallet;
+    private final byte mIsValid;
+
+    /**
+     * Construct a new {@link Account}
+     * @param id the ID of this account
+     * @param derivationPath the {@link WalletContractV1#BIP32_URI_SCHEME} derivation path of this
+     *      account
+     * @param publicKey the public key of this account
+     * @param publicKeyEncoded the purpose-specific encoding of publicKey
+     * @param name the name of this account (may be blank)
+     * @param isUserWallet whether this account is a user wallet
+     * @param isValid whether this account is valid
+     */
+    public Account(
+            @WalletContractV1.AccountId long id,
+            @NonNull Uri derivationPath,
+            @NonNull byte[] publicKey,
+            @NonNull String publicKeyEncoded,
+            @NonNull String name,
+            boolean isUserWallet,
+            boolean isValid) {
+        mId = id;
+        mDerivationPathString = derivationPath.toString();
+        mDerivationPath = derivationPath;
+        mPublicKey = publicKey.clone();
+        mPublicKeyEncoded = publicKeyEncoded;
+        mName = name;
+        mIsUserWallet = isUserWallet ? (byte)1 : (byte)0;
+        mIsValid = isValid ? (byte)1 : (byte)0;
+    }
+
+    // Takes ownership of publicKey
+    private Account(
+            long id,
+            @Nullable String derivationPathString,
+            @Nullable byte[] publicKey,
+            @Nullable String publicKeyEncoded,
+            @Nullable String name,
+            byte isUserWallet,
+            byte isValid) {
+        mId = id;
+        mDerivationPathString = derivationPathString;
+        mPublicKey = publicKey;
+        mPublicKeyEncoded = publicKeyEncoded;
+        mName = name;
+        mIsUserWallet = isUserWallet;
+        mIsValid = isValid;
+    }
+
+    // Reads the current row of a cursor. Only the columns present in the projection are read.
+    @NonNull
+    static Account fromCursor(@NonNull Cursor c, @NonNull ColumnIndices columns) {
+        return new Account(
+                (columns.id != -1) ? c.getLong(columns.id) : NO_ID,
+                (columns.derivationPath != -1) ? c.getString(columns.derivationPath) : null,
+                (columns.publicKeyRaw != -1) ? c.getBlob(columns.publicKeyRaw) : null,
+                (columns.publicKeyEncoded != -1) ? c.getString(columns.publicKeyEncoded) : null,
+                (columns.name != -1) ? c.getString(columns.name) : null,
+                (columns.isUserWallet != -1) ? (byte)(c.getShort(columns.isUserWallet) != 0 ? 1 : 0) : -1,
+                (columns.isValid != -1) ? (byte)(c.getShort(columns.isValid) != 0 ? 1 : 0) : -1);
+    }
+
+    /** @return the ID of this account */
+    @WalletContractV1.AccountId
+    public long getId() {
+        if (mId == NO_ID) {
+            throw new IllegalStateException("Account ID was not in the projection");
+        }
+        return mId;
+    }
+
+    /** @return the {@link WalletContractV1#BIP32_URI_SCHEME} derivation path of this account */
+    @NonNull
+    public Uri getDerivationPath() {
+        Uri derivationPath = mDerivationPath;
+        if (derivationPath == null) {
+            if (mDerivationPathString == null) {
+                throw new IllegalStateException("Derivation path was not in the projection");
+            }
+            // Benign race; Uri.parse is idempotent
+            derivationPath = Uri.parse(mDerivationPathString);
+            mDerivationPath = derivationPath;
+        }
+        return derivationPath;
+    }
+
+    /** @return a copy of the public key of this account */
+    @NonNull
+    public byte[] getPublicKey() {
+        if (mPublicKey == null) {
+            throw new IllegalStateException("Raw public key was not in the projection");
+        }
+        return mPublicKey.clone();
+    }
+
+    /**
+     * @return the purpose-specific encoding of the public key of this account (for e.g., Base58
+     *      for {@link WalletContractV1#PURPOSE_SIGN_SOLANA_TRANSACTION})
+     */
+    @NonNull
+    public String getPublicKeyEncoded() {
+        if (mPublicKeyEncoded == null) {
+            throw new IllegalStateException("Encoded public key was not in the projection");
+        }
+        return mPublicKeyEncoded;
+    }
+
+    /** @return the name of this account (may be blank) */
+    @NonNull
+    public String getName() {
+        if (mName == null) {
+            throw new IllegalStateException("Account name was not in the projection");
+        }
+        return mName;
+    }
+
+    /** @return see {@link WalletContractV1#ACCOUNTS_ACCOUNT_IS_USER_WALLET} */
+    public boolean isUserWallet() {
+        if (mIsUserWallet == -1) {
+            throw new IllegalStateException("User wallet flag was not in the projection");
+        }
+        return mIsUserWallet == 1;
+    }
+
+    /** @return see {@link WalletContractV1#ACCOUNTS_ACCOUNT_IS_VALID} */
+    public boolean isValid() {
+        if (mIsValid == -1) {
+            throw new IllegalStateException("Valid flag was not in the projection");
+        }
+        return mIsValid == 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Account that = (Account) o;
+        return mId == that.mId && mIsUserWallet == that.mIsUserWallet && mIsValid == that.mIsValid && Objects.equals(mDerivationPathString, that.mDerivationPathString) && Arrays.equals(mPublicKey, that.mPublicKey) && Objects.equals(mName, that.mName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(mId, mDerivationPathString, mName, mIsUserWallet, mIsValid);
+        result = 31 * result + Arrays.hashCode(mPublicKey);
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "Account{" +
+                "mId=" + mId +
+                ", mDerivationPath=" + mDerivationPathString +
+                ", mPublicKeyEncoded=" + mPublicKeyEncoded +
+                ", mName=" + mName +
+                ", mIsUserWallet=" + mIsUserWallet +
+                ", mIsValid=" + mIsValid +
+                '}';
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.database.Cursor;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.Objects;
+
+/**
+ * An immutable data class representing a row of the {@link WalletContractV1#AUTHORIZED_SEEDS_TABLE}
+ */
+@RequiresApi(api = Build.VERSION_CODES.M) // library minSdk is 17
+public class AuthorizedSeed {
+    // Column indices, resolved once per Cursor
+    static final class ColumnIndices {
+        final int authToken;
+        final int purpose;
+        final int name;
+        final int isBackedUp; // -1 if not in the projection
+
+        ColumnIndices(@NonNull Cursor c) {
+            authToken = c.getColumnIndexOrThrow(WalletContractV1.AUTHORIZED_SEEDS_AUTH_TOKEN);
+            purpose = c.getColumnIndexOrThrow(WalletContractV1.AUTHORIZED_SEEDS_AUTH_PURPOSE);
+            name = c.getColumnIndexOrThrow(WalletContractV1.AUTHORIZED_SEEDS_SEED_NAME);
+            isBackedUp = c.getColumnIndex(WalletContractV1.AUTHORIZED_SEEDS_IS_BACKED_UP);
+        }
+    }
+
+    /** The auth token of this authorized seed */
+    @WalletContractV1.AuthToken
+    public final long authToken;
+
+    /** The {@code WalletContractV1.PURPOSE_*} purpose for which this seed is authorized */
+    @WalletContractV1.Purpose
+    public final int purpose;
+
+    /** The name of this seed (may be blank) */
+    @NonNull
+    public final String name;
+
+    /**
+     * Whether this seed is backed up. This is only reported to apps holding the
+     * {@link WalletContractV1#PERMISSION_ACCESS_SEED_VAULT_PRIVILEGED} permission, and is false for
+     * all other apps.
+     */
+    public final boolean isBackedUp;
+
+    /**
+     * Construct a new {@link AuthorizedSeed}
+     * @param authToken the auth token of this authorized seed
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose of this authorized seed
+     * @param name the name of this seed (may be blank)
+     * @param isBackedUp whether this seed is backed up
+     */
+    public AuthorizedSeed(
+            @WalletContractV1.AuthToken long authToken,
+            @WalletContractV1.Purpose int purpose,
+            @NonNull String name,
+            boolean isBackedUp) {
+        this.authToken = authToken;
+        this.purpose = purpose;
+        this.name = name;
+        this.isBackedUp = isBackedUp;
+    }
+
+    // Reads the current row of a cursor with the AUTHORIZED_SEEDS_ALL_COLUMNS projection (from
+    // which AUTHORIZED_SEEDS_IS_BACKED_UP may be absent, for unprivileged apps)
+    @NonNull
+    static AuthorizedSeed fromCursor(@NonNull Cursor c, @NonNull ColumnIndices columns) {
+        return new AuthorizedSeed(
+                c.getLong(columns.authToken),
+                c.getInt(columns.purpose),
+                c.getString(columns.name),
+                columns.isBackedUp != -1 && c.getShort(columns.isBackedUp) != 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AuthorizedSeed that = (AuthorizedSeed) o;
+        return authToken == that.authToken && purpose == that.purpose && isBackedUp == that.isBackedUp && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(authToken, purpose, name, isBackedUp);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "AuthorizedSeed{" +
+                "authToken=" + authToken +
+                ", purpose=" + purpose +
+                ", name='" + name + '\'' +
+                ", isBackedUp=" + isBackedUp +
+                '}';
+    }
+}
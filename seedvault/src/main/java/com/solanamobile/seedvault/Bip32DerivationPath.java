@@ -8,14 +8,17 @@ import android.net.Uri;
 import android.os.Build;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.Size;
+import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An immutable BIP32 derivation path (see
@@ -61,7 +64,30 @@ public class Bip32DerivationPath extends BipDerivationPath {
         }
     }
 
-    private final List<BipLevel> mLevels;
+    /**
+     * The bit of a packed level (see {@link #getPackedLevel(int)}) which indicates that the level is
+     * hardened. The remaining bits hold the level index.
+     */
+    public static final int PACKED_LEVEL_HARDENED_BIT = 0x80000000;
+
+    // Paths no deeper than this (for e.g. m/44'/501'/0') are shared prefixes of most requested
+    // paths, and are eligible for the intern pool
+    private static final int INTERN_MAX_DEPTH = 3;
+    private static final int INTERN_POOL_MAX_SIZE = 256;
+
+    // Maps from canonical URI string to the interned instance for that path
+    private static final ConcurrentHashMap<String, Bip32DerivationPath> sInternPool =
+            new ConcurrentHashMap<>();
+
+    // Each level is packed as its index, ORed with PACKED_LEVEL_HARDENED_BIT if hardened
+    @NonNull
+    private final int[] mLevels;
+
+    @Nullable
+    private volatile Uri mUri;
+
+    @Nullable
+    private volatile List<BipLevel> mLevelList;
 
     /**
      * Construct a {@link Bip32DerivationPath}
@@ -70,11 +96,30 @@ public class Bip32DerivationPath extends BipDerivationPath {
      *      {@link WalletContractV1#BIP32_URI_MAX_DEPTH} entries
      */
     public Bip32DerivationPath(@NonNull @Size(max=WalletContractV1.BIP32_URI_MAX_DEPTH) Collection<BipLevel> levels) {
-        if (levels.size() > WalletContractV1.BIP32_URI_MAX_DEPTH) {
+        this(packLevels(levels), null);
+    }
+
+    // Takes ownership of levels. uri, if not null, must be the canonical Uri for levels.
+    private Bip32DerivationPath(@NonNull int[] levels, @Nullable Uri uri) {
+        if (levels.length > WalletContractV1.BIP32_URI_MAX_DEPTH) {
             throw new IndexOutOfBoundsException("BIP32 max supported depth (" + WalletContractV1.BIP32_URI_MAX_DEPTH + ") exceeded");
         }
 
-        mLevels = new ArrayList<>(levels);
+        mLevels = levels;
+        mUri = uri;
+    }
+
+    /**
+     * Create a {@link Bip32DerivationPath} from packed levels (see {@link #getPackedLevel(int)})
+     * @param packedLevels the packed levels of the derivation path
+     * @return a new {@link Bip32DerivationPath}
+     * @throws IndexOutOfBoundsException if packedLevels contains more than
+     *      {@link WalletContractV1#BIP32_URI_MAX_DEPTH} entries
+     */
+    @NonNull
+    public static Bip32DerivationPath fromPackedLevels(
+            @NonNull @Size(max=WalletContractV1.BIP32_URI_MAX_DEPTH) int... packedLevels) {
+        return new Bip32DerivationPath(packedLevels.clone(), null);
     }
 
     /**
@@ -84,41 +129,167 @@ public class Bip32DerivationPath extends BipDerivationPath {
     @NonNull
     @Size(max=WalletContractV1.BIP32_URI_MAX_DEPTH)
     public List<BipLevel> getLevels() {
-        return Collections.unmodifiableList(mLevels);
+        List<BipLevel> levelList = mLevelList;
+        if (levelList == null) {
+            final ArrayList<BipLevel> levels = new ArrayList<>(mLevels.length);
+            for (int packedLevel : mLevels) {
+                levels.add(new BipLevel(packedLevel & ~PACKED_LEVEL_HARDENED_BIT,
+                        (packedLevel & PACKED_LEVEL_HARDENED_BIT) != 0));
+            }
+            // Benign race; the list is equivalent regardless of which thread builds it
+            levelList = Collections.unmodifiableList(levels);
+            mLevelList = levelList;
+        }
+        return levelList;
+    }
+
+    /**
+     * Get the number of levels in this {@link Bip32DerivationPath}
+     * @return the number of levels, in the range [0, {@link WalletContractV1#BIP32_URI_MAX_DEPTH}]
+     */
+    public int getDepth() {
+        return mLevels.length;
+    }
+
+    /**
+     * Get a level of this {@link Bip32DerivationPath} in packed form, without allocating a
+     * {@link BipLevel}
+     * @param i the level, in the range [0, {@link #getDepth()})
+     * @return the index of level i, ORed with {@link #PACKED_LEVEL_HARDENED_BIT} if it is hardened
+     * @throws IndexOutOfBoundsException if i is not in the range [0, {@link #getDepth()})
+     */
+    public int getPackedLevel(int i) {
+        return mLevels[i];
     }
 
     @Override
     @NonNull
     public Uri toUri() {
-        final Uri.Builder builder = new Uri.Builder();
-
-        builder.scheme(WalletContractV1.BIP32_URI_SCHEME);
-        builder.appendPath(WalletContractV1.BIP32_URI_MASTER_KEY_INDICATOR);
+        Uri uri = mUri;
+        if (uri == null) {
+            // Benign race; Uri.parse is idempotent
+            uri = Uri.parse(toCanonicalString());
+            mUri = uri;
+        }
+        return uri;
+    }
 
-        for (BipLevel level : mLevels) {
-            final String pathElement;
-            if (level.hardened) {
-                pathElement = level.index + WalletContractV1.BIP_URI_HARDENED_INDEX_IDENTIFIER;
-            } else {
-                pathElement = String.valueOf(level.index);
+    @NonNull
+    private String toCanonicalString() {
+        final StringBuilder sb = new StringBuilder(8 + 12 * mLevels.length);
+        sb.append(WalletContractV1.BIP32_URI_SCHEME).append(":/")
+                .append(WalletContractV1.BIP32_URI_MASTER_KEY_INDICATOR);
+        for (int packedLevel : mLevels) {
+            sb.append('/').append(packedLevel & ~PACKED_LEVEL_HARDENED_BIT);
+            if ((packedLevel & PACKED_LEVEL_HARDENED_BIT) != 0) {
+                sb.append(WalletContractV1.BIP_URI_HARDENED_INDEX_IDENTIFIER);
             }
-
-            builder.appendPath(pathElement);
         }
-
-        return builder.build();
+        return sb.toString();
     }
 
     /**
      * Create a {@link Bip32DerivationPath} from the specified {@link Uri}. It must follow the
-     * format defined in {@link WalletContractV1#BIP32_URI_SCHEME}.
+     * format defined in {@link WalletContractV1#BIP32_URI_SCHEME}. Frequently used shallow paths
+     * (for e.g. m/44'/501') are returned from an intern pool, and so may be shared.
      * @param bip32Uri a {@link WalletContractV1#BIP32_URI_SCHEME} {@link Uri}
-     * @return a new {@link Bip32DerivationPath}
+     * @return a {@link Bip32DerivationPath}
      * @throws UnsupportedOperationException if bip32Uri is not a valid
      *      {@link WalletContractV1#BIP32_URI_SCHEME} {@link Uri}
      */
     @NonNull
     public static Bip32DerivationPath fromUri(@NonNull Uri bip32Uri) {
+        final String uriString = bip32Uri.toString();
+        final Bip32DerivationPath interned = sInternPool.get(uriString);
+        if (interned != null) {
+            return interned;
+        }
+
+        Bip32DerivationPath path = parseCanonical(bip32Uri, uriString);
+        if (path == null) {
+            path = parse(bip32Uri);
+        }
+
+        if (path.mUri != null && path.mLevels.length <= INTERN_MAX_DEPTH) {
+            path = path.intern();
+        }
+        return path;
+    }
+
+    /**
+     * Get the canonical instance of this {@link Bip32DerivationPath} from the intern pool, adding
+     * this instance to the pool if there is none and the pool is not full. As with
+     * {@link String#intern()}, this allows frequently used paths to share a single instance.
+     * @return an equal {@link Bip32DerivationPath}, which may be this instance
+     */
+    @NonNull
+    public Bip32DerivationPath intern() {
+        final String uriString = toUri().toString();
+        final Bip32DerivationPath interned = sInternPool.get(uriString);
+        if (interned != null) {
+            return interned;
+        }
+        if (sInternPool.size() >= INTERN_POOL_MAX_SIZE) {
+            return this;
+        }
+        final Bip32DerivationPath existing = sInternPool.putIfAbsent(uriString, this);
+        return (existing != null) ? existing : this;
+    }
+
+    // Single pass parser for URIs of the canonical form "bip32:/m/44'/501'" (as produced by
+    // toUri()), operating directly on the URI string. Returns null for any other form (including
+    // invalid URIs), which should then be handled by parse(). The returned path retains bip32Uri
+    // as its canonical Uri.
+    @VisibleForTesting
+    @Nullable
+    static Bip32DerivationPath parseCanonical(@NonNull Uri bip32Uri, @NonNull String s) {
+        final String prefix = WalletContractV1.BIP32_URI_SCHEME + ":/" +
+                WalletContractV1.BIP32_URI_MASTER_KEY_INDICATOR;
+        if (!s.startsWith(prefix)) {
+            return null;
+        }
+
+        final int len = s.length();
+        final int[] levels = new int[WalletContractV1.BIP32_URI_MAX_DEPTH];
+        int depth = 0;
+        int pos = prefix.length();
+        while (pos < len) {
+            if (s.charAt(pos++) != '/' || depth == levels.length) {
+                return null;
+            }
+
+            final int start = pos;
+            long index = 0;
+            while (pos < len) {
+                final char ch = s.charAt(pos);
+                if (ch < '0' || ch > '9') {
+                    break;
+                }
+                index = index * 10 + (ch - '0');
+                if (index > Integer.MAX_VALUE) {
+                    return null;
+                }
+                pos++;
+            }
+            final int numDigits = pos - start;
+            if (numDigits == 0 || (numDigits > 1 && s.charAt(start) == '0')) {
+                return null; // not canonical
+            }
+
+            int packedLevel = (int)index;
+            if (pos < len && s.charAt(pos) == '\'') {
+                packedLevel |= PACKED_LEVEL_HARDENED_BIT;
+                pos++;
+            }
+            levels[depth++] = packedLevel;
+        }
+
+        return new Bip32DerivationPath(Arrays.copyOf(levels, depth), bip32Uri);
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static Bip32DerivationPath parse(@NonNull Uri bip32Uri) {
         if (!bip32Uri.isHierarchical()) {
             throw new UnsupportedOperationException("BIP32 URI must be hierarchical");
         }
@@ -144,8 +315,11 @@ public class Bip32DerivationPath extends BipDerivationPath {
             throw new UnsupportedOperationException("BIP32 URI path must start with a master key indicator");
         }
 
-        final Builder builder = newBuilder();
+        if (path.size() - 1 > WalletContractV1.BIP32_URI_MAX_DEPTH) {
+            throw new IndexOutOfBoundsException("BIP32 max supported depth (" + WalletContractV1.BIP32_URI_MAX_DEPTH + ") exceeded");
+        }
 
+        final int[] levels = new int[path.size() - 1];
         for (int i = 1; i < path.size(); i++) {
             final String pathElement = path.get(i);
             final boolean hardened = pathElement.endsWith(WalletContractV1.BIP_URI_HARDENED_INDEX_IDENTIFIER);
@@ -157,10 +331,28 @@ public class Bip32DerivationPath extends BipDerivationPath {
                 throw new UnsupportedOperationException("Path element [" + i + "](" + pathElement + ") could not be parsed as a BIP32 level");
             }
 
-            builder.appendLevel(new BipLevel(index, hardened));
+            levels[i - 1] = packLevel(new BipLevel(index, hardened));
+        }
+
+        return new Bip32DerivationPath(levels, null);
+    }
+
+    private static int packLevel(@NonNull BipLevel level) {
+        return level.hardened ? (level.index | PACKED_LEVEL_HARDENED_BIT) : level.index;
+    }
+
+    @NonNull
+    private static int[] packLevels(@NonNull Collection<BipLevel> levels) {
+        if (levels.size() > WalletContractV1.BIP32_URI_MAX_DEPTH) {
+            throw new IndexOutOfBoundsException("BIP32 max supported depth (" + WalletContractV1.BIP32_URI_MAX_DEPTH + ") exceeded");
         }
 
-        return builder.build();
+        final int[] packedLevels = new int[levels.size()];
+        int i = 0;
+        for (BipLevel level : levels) {
+            packedLevels[i++] = packLevel(level);
+        }
+        return packedLevels;
     }
 
     /**
@@ -176,7 +368,7 @@ public class Bip32DerivationPath extends BipDerivationPath {
     @NonNull
     public String toString() {
         return "Bip32DerivationPath{" +
-                "mLevels=" + mLevels +
+                "mLevels=" + getLevels() +
                 '}';
     }
 
@@ -192,12 +384,12 @@ public class Bip32DerivationPath extends BipDerivationPath {
      * @return true if this instance is an ancestor of descendant, else false
      */
     public boolean isAncestorOf(@NonNull Bip32DerivationPath descendant) {
-        if (descendant.mLevels.size() <= mLevels.size()) {
+        if (descendant.mLevels.length <= mLevels.length) {
             return false;
         }
 
-        for (int i = 0; i < mLevels.size(); i++) {
-            if (!mLevels.get(i).equals(descendant.mLevels.get(i))) {
+        for (int i = 0; i < mLevels.length; i++) {
+            if (mLevels[i] != descendant.mLevels[i]) {
                 return false;
             }
         }
@@ -210,11 +402,11 @@ public class Bip32DerivationPath extends BipDerivationPath {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Bip32DerivationPath that = (Bip32DerivationPath) o;
-        return Objects.equals(mLevels, that.mLevels);
+        return Arrays.equals(mLevels, that.mLevels);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(mLevels);
+        return Arrays.hashCode(mLevels);
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A process-wide cache of the results of {@link SeedVault#isAvailable(Context, boolean)},
+ * {@link SeedVault#resolveComponentForIntent(Context, Intent)} and of the implementation limits
+ * (as used by {@link Wallet#getSupportedFeatures(Context)}). These depend only on the installed
+ * packages and on the {@link SeedVault.AccessType} of this app, so the cache is cleared whenever a
+ * package is added, replaced, changed or removed, and resolutions are keyed by access type (which
+ * is re-checked on every call, so that a newly granted permission takes effect immediately).
+ */
+@RequiresApi(api = Build.VERSION_CODES.M) // library minSdk is 17
+final class ComponentResolutionCache {
+    private ComponentResolutionCache() {}
+
+    private static final class Key {
+        @NonNull
+        final Intent filter;
+
+        @NonNull
+        final SeedVault.AccessType accessType;
+
+        Key(@NonNull Intent intent, @NonNull SeedVault.AccessType accessType) {
+            this.filter = intent.cloneFilter();
+            this.accessType = accessType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return accessType == that.accessType && filter.filterEquals(that.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * filter.filterHashCode() + accessType.hashCode();
+        }
+    }
+
+    private static final Map<Key, ComponentName> sResolutions = new ConcurrentHashMap<>();
+
+    // Indexed by allowSimulated ? 1 : 0; null if not yet known
+    private static final Boolean[] sIsAvailable = new Boolean[2];
+
+    // Keyed by purpose; null if not yet known
+    private static Map<Integer, ImplementationLimits> sImplementationLimits; // guarded by ComponentResolutionCache.class
+
+    // Incremented on every invalidation. A result is only stored if no invalidation occurred while
+    // it was being computed, so that a stale result can never overwrite an invalidation.
+    private static final AtomicInteger sGeneration = new AtomicInteger();
+
+    private static boolean sReceiverRegistered; // guarded by ComponentResolutionCache.class
+
+    /** @return the current generation, to be passed to {@code put*} once a result is computed */
+    static int getGeneration(@NonNull Context context) {
+        registerReceiverIfNeeded(context);
+        return sGeneration.get();
+    }
+
+    @Nullable
+    static ComponentName getResolution(
+            @NonNull Intent intent,
+            @NonNull SeedVault.AccessType accessType) {
+        return sResolutions.get(new Key(intent, accessType));
+    }
+
+    static synchronized void putResolution(
+            int generation,
+            @NonNull Intent intent,
+            @NonNull SeedVault.AccessType accessType,
+            @NonNull ComponentName component) {
+        if (sGeneration.get() == generation) {
+            sResolutions.put(new Key(intent, accessType), component);
+        }
+    }
+
+    @Nullable
+    static synchronized Boolean getIsAvailable(boolean allowSimulated) {
+        return sIsAvailable[allowSimulated ? 1 : 0];
+    }
+
+    static synchronized void putIsAvailable(int generation, boolean allowSimulated, boolean isAvailable) {
+        if (sGeneration.get() == generation) {
+            sIsAvailable[allowSimulated ? 1 : 0] = isAvailable;
+        }
+    }
+
+    @Nullable
+    static synchronized Map<Integer, ImplementationLimits> getImplementationLimits() {
+        return sImplementationLimits;
+    }
+
+    static synchronized void putImplementationLimits(
+            int generation,
+            @NonNull Map<Integer, ImplementationLimits> implementationLimits) {
+        if (sGeneration.get() == generation) {
+            sImplementationLimits = implementationLimits;
+        }
+    }
+
+    static synchronized void invalidate() {
+        sGeneration.incrementAndGet();
+        sResolutions.clear();
+        sIsAvailable[0] = null;
+        sIsAvailable[1] = null;
+        sImplementationLimits = null;
+    }
+
+    private static synchronized void registerReceiverIfNeeded(@NonNull Context context) {
+        if (sReceiverRegistered) {
+            return;
+        }
+
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+
+        final BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate();
+            }
+        };
+
+        // Registered against the application Context, for the lifetime of the process
+        final Context appContext = context.getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            appContext.registerReceiver(receiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            appContext.registerReceiver(receiver, filter);
+        }
+        sReceiverRegistered = true;
+    }
+}
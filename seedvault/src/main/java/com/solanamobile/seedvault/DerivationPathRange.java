@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.net.Uri;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable, compact encoding of a range of {@link WalletContractV1#BIP32_URI_SCHEME} or
+ * {@link WalletContractV1#BIP44_URI_SCHEME} derivation paths which differ only in the index of a
+ * single level (for e.g., accounts {@code m/44'/501'/0'} through {@code m/44'/501'/99'}). See
+ * {@link WalletContractV1#BIP_URI_RANGE_LEVEL_PARAMETER} for the {@link Uri} encoding.
+ */
+@RequiresApi(api = Build.VERSION_CODES.M) // library minSdk is 17
+public class DerivationPathRange {
+    /**
+     * The maximum number of derivation paths to which {@link #expandAll(List)} will expand its
+     * input. This is far above the implementation limits of any Seed Vault implementation, and
+     * bounds the memory used by a malformed or malicious range.
+     */
+    public static final int MAX_EXPANDED_DERIVATION_PATHS = 65536;
+
+    @NonNull
+    private final BipDerivationPath mTemplate;
+
+    @NonNull
+    private final List<BipLevel> mLevels;
+
+    private final int mLevel;
+    private final int mStart;
+    private final int mCount;
+    private final int mStride;
+
+    @Nullable
+    private volatile Uri mUri;
+
+    /**
+     * Construct a new {@link DerivationPathRange}
+     * @param template a {@link WalletContractV1#BIP32_URI_SCHEME} or
+     *      {@link WalletContractV1#BIP44_URI_SCHEME} derivation path. The index of the variable level
+     *      is ignored, but its hardened-ness is preserved.
+     * @param level the (0-based) position of the variable level in template
+     * @param start the index of the variable level in the first derivation path of this range
+     * @param count the number of derivation paths in this range
+     * @param stride the step between indices of the variable level in successive derivation paths
+     * @throws IllegalArgumentException if level is not a level of template, if count or stride are
+     *      less than 1, or if start is negative or any index in this range exceeds 2^31-1
+     * @throws UnsupportedOperationException if template is not a valid
+     *      {@link WalletContractV1#BIP32_URI_SCHEME} or {@link WalletContractV1#BIP44_URI_SCHEME}
+     *      derivation path, or is itself a range
+     */
+    public DerivationPathRange(
+            @NonNull Uri template,
+            int level,
+            @WalletContractV1.BipIndex int start,
+            int count,
+            int stride) {
+        if (isRange(template)) {
+            throw new UnsupportedOperationException("template must not be a derivation path range");
+        }
+        mTemplate = BipDerivationPath.fromUri(template);
+        mLevels = getLevels(mTemplate);
+        if (level < 0 || level >= mLevels.size()) {
+            throw new IllegalArgumentException("level must be in the range [0, " + mLevels.size() + ")");
+        } else if (start < 0) {
+            throw new IllegalArgumentException("start must be >= 0");
+        } else if (count < 1) {
+            throw new IllegalArgumentException("count must be >= 1");
+        } else if (stride < 1) {
+            throw new IllegalArgumentException("stride must be >= 1");
+        } else if (start + (long)(count - 1) * stride > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("range exceeds the maximum BIP index");
+        }
+        mLevel = level;
+        mStart = start;
+        mCount = count;
+        mStride = stride;
+    }
+
+    /**
+     * Test whether a derivation path {@link Uri} encodes a {@link DerivationPathRange}
+     * @param uri a derivation path {@link Uri}
+     * @return true if uri has a {@link WalletContractV1#BIP_URI_RANGE_LEVEL_PARAMETER} query
+     *      parameter, else false
+     */
+    public static boolean isRange(@NonNull Uri uri) {
+        return uri.isHierarchical()
+                && uri.getQueryParameter(WalletContractV1.BIP_URI_RANGE_LEVEL_PARAMETER) != null;
+    }
+
+    /**
+     * Get the number of derivation paths denoted by a derivation path {@link Uri}, without expanding
+     * it
+     * @param uri a derivation path {@link Uri}
+     * @return the count of the range if uri encodes a {@link DerivationPathRange}, else 1
+     * @throws UnsupportedOperationException if uri encodes an invalid {@link DerivationPathRange}
+     */
+    public static int getDerivationPathCount(@NonNull Uri uri) {
+        if (!isRange(uri)) {
+            return 1;
+        }
+        final int count = getIntQueryParameter(uri, WalletContractV1.BIP_URI_RANGE_COUNT_PARAMETER, -1);
+        if (count < 1) {
+            throw new UnsupportedOperationException("Derivation path range count must be >= 1");
+        }
+        return count;
+    }
+
+    /**
+     * Create a {@link DerivationPathRange} from the specified {@link Uri}. It must follow the
+     * format defined in {@link WalletContractV1#BIP_URI_RANGE_LEVEL_PARAMETER}.
+     * @param uri a derivation path range {@link Uri}
+     * @return a new {@link DerivationPathRange}
+     * @throws UnsupportedOperationException if uri is not a valid derivation path range
+     */
+    @NonNull
+    public static DerivationPathRange fromUri(@NonNull Uri uri) {
+        if (!isRange(uri)) {
+            throw new UnsupportedOperationException("Uri is not a derivation path range");
+        }
+
+        final int level = getIntQueryParameter(uri, WalletContractV1.BIP_URI_RANGE_LEVEL_PARAMETER, -1);
+        final int count = getIntQueryParameter(uri, WalletContractV1.BIP_URI_RANGE_COUNT_PARAMETER, -1);
+        final int stride = getIntQueryParameter(uri, WalletContractV1.BIP_URI_RANGE_STRIDE_PARAMETER, 1);
+        final Uri template = uri.buildUpon().clearQuery().build();
+        final List<BipLevel> levels = getLevels(BipDerivationPath.fromUri(template));
+        if (level < 0 || level >= levels.size()) {
+            throw new UnsupportedOperationException("Derivation path range level must be in the range [0, " + levels.size() + ")");
+        }
+
+        try {
+            return new DerivationPathRange(template, level, levels.get(level).index, count, stride);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedOperationException("Invalid derivation path range: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Expand a list of derivation path {@link Uri}s, replacing each {@link DerivationPathRange} with
+     * the derivation paths it denotes. This can be used to send a request to a Seed Vault
+     * implementation which does not support {@link WalletContractV1#FEATURE_DERIVATION_PATH_RANGES}.
+     * @param uris a list of derivation path {@link Uri}s, some of which may be ranges
+     * @return a new list of derivation path {@link Uri}s, none of which are ranges
+     * @throws UnsupportedOperationException if any of uris is an invalid derivation path range, or
+     *      if uris expand to more than {@link #MAX_EXPANDED_DERIVATION_PATHS} derivation paths
+     */
+    @NonNull
+    public static ArrayList<Uri> expandAll(@NonNull List<Uri> uris) {
+        long total = 0;
+        for (Uri uri : uris) {
+            total += getDerivationPathCount(uri);
+            if (total > MAX_EXPANDED_DERIVATION_PATHS) {
+                throw new UnsupportedOperationException("Derivation paths expand to more than "
+                        + MAX_EXPANDED_DERIVATION_PATHS + " derivation paths");
+            }
+        }
+
+        final ArrayList<Uri> expanded = new ArrayList<>((int) total);
+        for (Uri uri : uris) {
+            if (isRange(uri)) {
+                final DerivationPathRange range = fromUri(uri);
+                for (int i = 0; i < range.mCount; i++) {
+                    expanded.add(range.getDerivationPath(i).toUri());
+                }
+            } else {
+                expanded.add(uri);
+            }
+        }
+        return expanded;
+    }
+
+    /** @return the number of derivation paths in this range */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Get a derivation path in this range
+     * @param i the position of the derivation path in this range, in the range [0, count)
+     * @return a {@link Bip32DerivationPath} or {@link Bip44DerivationPath}, matching the type of the
+     *      template
+     * @throws IndexOutOfBoundsException if i is not in the range [0, count)
+     */
+    @NonNull
+    public BipDerivationPath getDerivationPath(int i) {
+        if (i < 0 || i >= mCount) {
+            throw new IndexOutOfBoundsException("i must be in the range [0, " + mCount + ")");
+        }
+
+        final int index = mStart + i * mStride;
+        if (mTemplate instanceof Bip32DerivationPath) {
+            final Bip32DerivationPath template = (Bip32DerivationPath) mTemplate;
+            final int[] packedLevels = new int[template.getDepth()];
+            for (int j = 0; j < packedLevels.length; j++) {
+                packedLevels[j] = template.getPackedLevel(j);
+            }
+            packedLevels[mLevel] = index
+                    | (packedLevels[mLevel] & Bip32DerivationPath.PACKED_LEVEL_HARDENED_BIT);
+            return Bip32DerivationPath.fromPackedLevels(packedLevels);
+        } else {
+            final BipLevel[] levels = mLevels.toArray(new BipLevel[3]);
+            levels[mLevel] = new BipLevel(index, levels[mLevel].hardened);
+            return new Bip44DerivationPath(levels[0], levels[1], levels[2]);
+        }
+    }
+
+    /** @return a new list of all derivation paths in this range, in order */
+    @NonNull
+    public List<BipDerivationPath> getDerivationPaths() {
+        final ArrayList<BipDerivationPath> derivationPaths = new ArrayList<>(mCount);
+        for (int i = 0; i < mCount; i++) {
+            derivationPaths.add(getDerivationPath(i));
+        }
+        return derivationPaths;
+    }
+
+    /**
+     * Convert this {@link DerivationPathRange} into a {@link Uri}
+     * @return a {@link Uri} encoding this derivation path range
+     */
+    @NonNull
+    public Uri toUri() {
+        Uri uri = mUri;
+        if (uri == null) {
+            final Uri.Builder builder = getDerivationPath(0).toUri().buildUpon()
+                    .appendQueryParameter(WalletContractV1.BIP_URI_RANGE_LEVEL_PARAMETER, String.valueOf(mLevel))
+                    .appendQueryParameter(WalletContractV1.BIP_URI_RANGE_COUNT_PARAMETER, String.valueOf(mCount));
+            if (mStride != 1) {
+                builder.appendQueryParameter(WalletContractV1.BIP_URI_RANGE_STRIDE_PARAMETER, String.valueOf(mStride));
+            }
+            // Benign race; the Uri is equivalent regardless of which thread builds it
+            uri = builder.build();
+            mUri = uri;
+        }
+        return uri;
+    }
+
+    @NonNull
+    private static List<BipLevel> getLevels(@NonNull BipDerivationPath derivationPath) {
+        if (derivationPath instanceof Bip32DerivationPath) {
+            return ((Bip32DerivationPath) derivationPath).getLevels();
+        } else if (derivationPath instanceof Bip44DerivationPath) {
+            return ((Bip44DerivationPath) derivationPath).getLevels();
+        } else {
+            throw new UnsupportedOperationException("Unknown BIP derivation path type");
+        }
+    }
+
+    private static int getIntQueryParameter(@NonNull Uri uri, @NonNull String name, int defaultValue) {
+        final String value = uri.getQueryParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new UnsupportedOperationException("Derivation path range parameter " + name + " must be an integer");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DerivationPathRange that = (DerivationPathRange) o;
+        return mLevel == that.mLevel && mStart == that.mStart && mCount == that.mCount && mStride == that.mStride && getDerivationPath(0).equals(that.getDerivationPath(0));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getDerivationPath(0), mLevel, mStart, mCount, mStride);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "DerivationPathRange{" +
+                "mTemplate=" + mTemplate +
+                ", mLevel=" + mLevel +
+                ", mStart=" + mStart +
+                ", mCount=" + mCount +
+                ", mStride=" + mStride +
+                '}';
+    }
+}
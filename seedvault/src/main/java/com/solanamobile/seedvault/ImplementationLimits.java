@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.database.Cursor;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.Objects;
+
+/**
+ * An immutable data class representing a row of the
+ * {@link WalletContractV1#IMPLEMENTATION_LIMITS_TABLE}
+ */
+@RequiresApi(api = Build.VERSION_CODES.M) // library minSdk is 17
+public class ImplementationLimits {
+    /** The {@code WalletContractV1.PURPOSE_*} purpose to which these limits apply */
+    @WalletContractV1.Purpose
+    public final int purpose;
+
+    /** See {@link WalletContractV1#IMPLEMENTATION_LIMITS_MAX_SIGNING_REQUESTS} */
+    public final int maxSigningRequests;
+
+    /** See {@link WalletContractV1#IMPLEMENTATION_LIMITS_MAX_REQUESTED_SIGNATURES} */
+    public final int maxRequestedSignatures;
+
+    /** See {@link WalletContractV1#IMPLEMENTATION_LIMITS_MAX_REQUESTED_PUBLIC_KEYS} */
+    public final int maxRequestedPublicKeys;
+
+    /** See {@link WalletContractV1#IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES} */
+    public final int supportedFeatures;
+
+    /**
+     * Construct a new {@link ImplementationLimits}
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose to which these limits apply
+     * @param maxSigningRequests the maximum number of signing requests per Intent
+     * @param maxRequestedSignatures the maximum number of signatures per signing request
+     * @param maxRequestedPublicKeys the maximum number of public keys per Intent
+     */
+    public ImplementationLimits(
+            @WalletContractV1.Purpose int purpose,
+            int maxSigningRequests,
+            int maxRequestedSignatures,
+            int maxRequestedPublicKeys) {
+        this(purpose, maxSigningRequests, maxRequestedSignatures, maxRequestedPublicKeys, 0);
+    }
+
+    /**
+     * Construct a new {@link ImplementationLimits}
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose to which these limits apply
+     * @param maxSigningRequests the maximum number of signing requests per Intent
+     * @param maxRequestedSignatures the maximum number of signatures per signing request
+     * @param maxRequestedPublicKeys the maximum number of public keys per Intent
+     * @param supportedFeatures a bitmask of {@code WalletContractV1.FEATURE_*} flags
+     */
+    public ImplementationLimits(
+            @WalletContractV1.Purpose int purpose,
+            int maxSigningRequests,
+            int maxRequestedSignatures,
+            int maxRequestedPublicKeys,
+            int supportedFeatures) {
+        this.purpose = purpose;
+        this.maxSigningRequests = maxSigningRequests;
+        this.maxRequestedSignatures = maxRequestedSignatures;
+        this.maxRequestedPublicKeys = maxRequestedPublicKeys;
+        this.supportedFeatures = supportedFeatures;
+    }
+
+    /**
+     * Test whether the Seed Vault implementation supports a feature
+     * @param feature one of the {@code WalletContractV1.FEATURE_*} flags
+     * @return true if feature is supported, else false
+     */
+    public boolean isFeatureSupported(int feature) {
+        return (supportedFeatures & feature) == feature;
+    }
+
+    // Reads the current row of a cursor with the IMPLEMENTATION_LIMITS_ALL_COLUMNS projection (from
+    // which IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES is absent for older Seed Vault implementations)
+    @NonNull
+    static ImplementationLimits fromCursor(@NonNull Cursor c) {
+        final int supportedFeaturesIndex =
+                c.getColumnIndex(WalletContractV1.IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES);
+        return new ImplementationLimits(
+                c.getInt(c.getColumnIndexOrThrow(WalletContractV1.IMPLEMENTATION_LIMITS_AUTH_PURPOSE)),
+                c.getShort(c.getColumnIndexOrThrow(WalletContractV1.IMPLEMENTATION_LIMITS_MAX_SIGNING_REQUESTS)),
+                c.getShort(c.getColumnIndexOrThrow(WalletContractV1.IMPLEMENTATION_LIMITS_MAX_REQUESTED_SIGNATURES)),
+                c.getShort(c.getColumnIndexOrThrow(WalletContractV1.IMPLEMENTATION_LIMITS_MAX_REQUESTED_PUBLIC_KEYS)),
+                (supportedFeaturesIndex != -1) ? c.getInt(supportedFeaturesIndex) : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImplementationLimits that = (ImplementationLimits) o;
+        return purpose == that.purpose && maxSigningRequests == that.maxSigningRequests && maxRequestedSignatures == that.maxRequestedSignatures && maxRequestedPublicKeys == that.maxRequestedPublicKeys && supportedFeatures == that.supportedFeatures;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(purpose, maxSigningRequests, maxRequestedSignatures, maxRequestedPublicKeys, supportedFeatures);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ImplementationLimits{" +
+                "purpose=" + purpose +
+                ", maxSigningRequests=" + maxSigningRequests +
+                ", maxRequestedSignatures=" + maxRequestedSignatures +
+                ", maxRequestedPublicKeys=" + maxRequestedPublicKeys +
+                ", supportedFeatures=" + supportedFeatures +
+                '}';
+    }
+}
@@ -9,6 +9,7 @@ import static android.content.pm.PermissionInfo.PROTECTION_MASK_BASE;
 import static android.content.pm.PermissionInfo.PROTECTION_SIGNATURE;
 
 import android.annotation.SuppressLint;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageInfo;
@@ -85,13 +86,27 @@ public class SeedVault {
     }
 
     /**
-     * Check whether an implementation of the Seed Vault is available on this device
+     * Check whether an implementation of the Seed Vault is available on this device. The result is
+     * cached for the lifetime of the process, until a package is added, replaced, changed or
+     * removed.
      * @param context the {@link Context} in which to perform this request
      * @param allowSimulated if true, a simulated implementation of the Seed Vault is permissible.
      *      Otherwise, the implementation must be secure.
      * @return true if a secure implementation of the Seed Vault is available, else false
      */
     public static boolean isAvailable(@NonNull Context context, boolean allowSimulated) {
+        final Boolean cached = ComponentResolutionCache.getIsAvailable(allowSimulated);
+        if (cached != null) {
+            return cached;
+        }
+
+        final int generation = ComponentResolutionCache.getGeneration(context);
+        final boolean isAvailable = checkIsAvailable(context, allowSimulated);
+        ComponentResolutionCache.putIsAvailable(generation, allowSimulated, isAvailable);
+        return isAvailable;
+    }
+
+    private static boolean checkIsAvailable(@NonNull Context context, boolean allowSimulated) {
         final PackageInfo pi;
         try {
             pi = context.getPackageManager().getPackageInfo(WalletContractV1.PACKAGE_SEED_VAULT,
@@ -206,9 +221,16 @@ public class SeedVault {
             throw new IllegalArgumentException("component should not be set prior to resolution");
         }
 
+        final SeedVault.AccessType accessType = SeedVault.getAccessType(context);
+        final ComponentName cached = ComponentResolutionCache.getResolution(intent, accessType);
+        if (cached != null) {
+            intent.setComponent(cached);
+            return;
+        }
+
+        final int generation = ComponentResolutionCache.getGeneration(context);
         List<ResolveInfo> resolved = context.getPackageManager().queryIntentActivities(intent, 0);
 
-        final SeedVault.AccessType accessType = SeedVault.getAccessType(context);
         final String heldPermission;
         switch (accessType) {
             case STANDARD:
@@ -232,7 +254,10 @@ public class SeedVault {
         // attempt to also handle Seed Vault intents.
         for (final ResolveInfo ri : resolved) {
             if (heldPermission.equals(ri.activityInfo.permission)) {
-                intent.setClassName(ri.activityInfo.packageName, ri.activityInfo.name);
+                final ComponentName component = new ComponentName(
+                        ri.activityInfo.packageName, ri.activityInfo.name);
+                ComponentResolutionCache.putResolution(generation, intent, accessType, component);
+                intent.setComponent(component);
                 return;
             }
         }
@@ -242,4 +267,67 @@ public class SeedVault {
         // an error.
         throw new IllegalStateException("No target activity found for " + intent.getAction());
     }
+
+    /**
+     * Populate the caches used by {@link #isAvailable(Context, boolean)},
+     * {@link #resolveComponentForIntent(Context, Intent)} and
+     * {@link Wallet#getSupportedFeatures(Context)} on a background thread, so that the first Seed
+     * Vault {@link Intent} sent by this app does not wait on the {@link PackageManager}, and can
+     * use the optional features of the Seed Vault implementation. This is typically invoked once,
+     * during app startup. It has no effect if this app does not have access to the Seed Vault.
+     * @param context the {@link Context} in which to perform this request
+     */
+    public static void prewarm(@NonNull Context context) {
+        final Context appContext = context.getApplicationContext();
+        final Thread t = new Thread(() -> {
+            isAvailable(appContext, false);
+            isAvailable(appContext, true);
+
+            final AccessType accessType = getAccessType(appContext);
+            if (!accessType.isGranted()) {
+                return;
+            }
+
+            final String[] packageScopedActions = {
+                    WalletContractV1.ACTION_AUTHORIZE_SEED_ACCESS,
+                    WalletContractV1.ACTION_SIGN_TRANSACTION,
+                    WalletContractV1.ACTION_SIGN_MESSAGE,
+                    WalletContractV1.ACTION_GET_PUBLIC_KEY,
+            };
+            for (String action : packageScopedActions) {
+                prewarmResolution(appContext, new Intent()
+                        .setPackage(WalletContractV1.PACKAGE_SEED_VAULT)
+                        .setAction(action));
+            }
+            prewarmResolution(appContext, new Intent().setAction(WalletContractV1.ACTION_CREATE_SEED));
+            prewarmResolution(appContext, new Intent().setAction(WalletContractV1.ACTION_IMPORT_SEED));
+            if (accessType == AccessType.PRIVILEGED
+                    && Build.VERSION.SDK_INT >= MIN_API_FOR_SEED_VAULT_PRIVILEGED) {
+                prewarmResolution(appContext, new Intent().setAction(WalletContractV1.ACTION_SEED_SETTINGS));
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                prewarmImplementationLimits(appContext);
+            }
+        }, "SeedVaultPrewarm");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void prewarmResolution(@NonNull Context context, @NonNull Intent intent) {
+        try {
+            resolveComponentForIntent(context, intent);
+        } catch (IllegalStateException ignored) {
+            // No handler; resolution will be retried (and the error reported) on first real use
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    private static void prewarmImplementationLimits(@NonNull Context context) {
+        try {
+            Wallet.getCachedImplementationLimits(context);
+        } catch (SecurityException | IllegalArgumentException ignored) {
+            // Provider unavailable; signing requests will not use any optional features until the
+            // query succeeds
+        }
+    }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.content.ClipData;
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Serves {@link SigningRequest} payloads to the Seed Vault implementation out-of-band, as described
+ * by {@link WalletContractV1#EXTRA_SIGNING_PAYLOADS_URI}. Large payloads are read through a pipe
+ * opened on a {@code content://} Uri (to which the Intent grants temporary read permission), rather
+ * than being parcelled inline, which keeps them clear of the Binder transaction size limit.
+ * <p>This provider is declared (not exported) by the library manifest, under the authority
+ * {@code <applicationId>.seedvault.signingpayloads}. It is an implementation detail of
+ * {@link Wallet}, and should not be used directly.</p>
+ */
+public final class SigningPayloadProvider extends ContentProvider {
+    private static final String TAG = SigningPayloadProvider.class.getSimpleName();
+
+    // Below this total payload size, the overhead of opening a pipe outweighs the cost of
+    // parcelling the payloads inline
+    static final int MIN_TOTAL_PAYLOAD_SIZE = 64 * 1024;
+
+    private static final String AUTHORITY_SUFFIX = ".seedvault.signingpayloads";
+    private static final String MIME_TYPE = "application/octet-stream";
+
+    // Payloads remain readable for this long, so that the Seed Vault implementation can re-read
+    // them (e.g. if its activity is recreated) while the user reviews the request
+    private static final long PAYLOAD_TTL_MS = 10 * 60 * 1000L;
+    private static final int MAX_PAYLOADS = 8;
+
+    private static final class Payloads {
+        @NonNull
+        final byte[] data;
+        final long expiresAt;
+
+        Payloads(@NonNull byte[] data, long expiresAt) {
+            this.data = data;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // NOTE: all accesses must be synchronized on sPayloads
+    private static final LinkedHashMap<String, Payloads> sPayloads = new LinkedHashMap<>();
+
+    /**
+     * Move the payloads of signingRequests out of intent, to be served by this provider, when they
+     * are large enough to benefit
+     * @param context the {@link Context} in which the Intent will be sent
+     * @param intent the {@link Intent} to which to add the payload Uri, offsets and lengths, and a
+     *      read permission grant for the Uri
+     * @param signingRequests the {@link SigningRequest}s whose payloads should be moved
+     * @return {@link SigningRequest}s with the same derivation paths and empty payloads, to be sent
+     *      in place of signingRequests; or null if the payloads should be sent inline (because they
+     *      are too small to benefit), in which case intent is not modified
+     */
+    @Nullable
+    static ArrayList<SigningRequest> putPayloads(
+            @NonNull Context context,
+            @NonNull Intent intent,
+            @NonNull List<SigningRequest> signingRequests) {
+        long totalSize = 0;
+        for (SigningRequest signingRequest : signingRequests) {
+            totalSize += signingRequest.payload.length;
+        }
+        if (totalSize < MIN_TOTAL_PAYLOAD_SIZE || totalSize > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        final byte[] data = new byte[(int) totalSize];
+        final int[] offsets = new int[signingRequests.size()];
+        final int[] lengths = new int[signingRequests.size()];
+        int offset = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            final byte[] payload = signingRequests.get(i).payload;
+            System.arraycopy(payload, 0, data, offset, payload.length);
+            offsets[i] = offset;
+            lengths[i] = payload.length;
+            offset += payload.length;
+        }
+
+        final String token = UUID.randomUUID().toString();
+        final long now = SystemClock.elapsedRealtime();
+        synchronized (sPayloads) {
+            purgeExpiredLocked(now);
+            sPayloads.put(token, new Payloads(data, now + PAYLOAD_TTL_MS));
+            final Iterator<String> iter = sPayloads.keySet().iterator();
+            while (sPayloads.size() > MAX_PAYLOADS) {
+                iter.next();
+                iter.remove();
+            }
+        }
+
+        final Uri uri = new Uri.Builder()
+                .scheme("content")
+                .authority(context.getPackageName() + AUTHORITY_SUFFIX)
+                .appendPath(token)
+                .build();
+        intent.putExtra(WalletContractV1.EXTRA_SIGNING_PAYLOADS_URI, uri)
+                .putExtra(WalletContractV1.EXTRA_SIGNING_PAYLOAD_OFFSETS, offsets)
+                .putExtra(WalletContractV1.EXTRA_SIGNING_PAYLOAD_LENGTHS, lengths)
+                .setClipData(ClipData.newRawUri(null, uri))
+                .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+
+        final ArrayList<SigningRequest> placeholders = new ArrayList<>(signingRequests.size());
+        final byte[] emptyPayload = new byte[0];
+        for (SigningRequest signingRequest : signingRequests) {
+            placeholders.add(new SigningRequest(emptyPayload, signingRequest.getRequestedSignatures()));
+        }
+        return placeholders;
+    }
+
+    // NOTE: must be called with sPayloads held
+    private static void purgeExpiredLocked(long now) {
+        final Iterator<Map.Entry<String, Payloads>> iter = sPayloads.entrySet().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().getValue().expiresAt <= now) {
+                iter.remove();
+            }
+        }
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode)
+            throws FileNotFoundException {
+        if (!"r".equals(mode)) {
+            throw new SecurityException("Signing payloads are read-only");
+        }
+
+        final List<String> pathSegments = uri.getPathSegments();
+        final Payloads payloads;
+        synchronized (sPayloads) {
+            purgeExpiredLocked(SystemClock.elapsedRealtime());
+            payloads = (pathSegments.size() == 1) ? sPayloads.get(pathSegments.get(0)) : null;
+        }
+        if (payloads == null) {
+            throw new FileNotFoundException("No signing payloads for " + uri);
+        }
+
+        return openPipeHelper(uri, MIME_TYPE, null, payloads.data,
+                (output, u, mimeType, opts, data) -> {
+                    // NOTE: output is closed by openPipeHelper once this returns; don't close it
+                    final FileOutputStream out = new FileOutputStream(output.getFileDescriptor());
+                    try {
+                        out.write(data);
+                        out.flush();
+                    } catch (IOException e) {
+                        // The reader closed the pipe early; it will see a short read
+                        Log.w(TAG, "Failed writing signing payloads for " + u, e);
+                    }
+                });
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return MIME_TYPE;
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
+                        @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        throw new UnsupportedOperationException("Signing payloads are read-only");
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException("Signing payloads are read-only");
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException("Signing payloads are read-only");
+    }
+}
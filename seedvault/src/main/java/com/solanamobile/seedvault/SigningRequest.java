@@ -34,13 +34,29 @@ public class SigningRequest implements Parcelable {
     /**
      * Construct a new {@link SigningRequest}
      * @param payload the transaction payload to sign
-     * @param requestedSignatures the derivation paths which which to sign payload
+     * @param requestedSignatures the derivation paths which which to sign payload. These may
+     *      include {@link DerivationPathRange}s.
      */
     public SigningRequest(@NonNull byte[] payload, @NonNull List<Uri> requestedSignatures) {
         this.payload = payload.clone();
         mRequestedSignatures = new ArrayList<>(requestedSignatures);
     }
 
+    // Takes ownership of payload and requestedSignatures, without copying them
+    private SigningRequest(@NonNull ArrayList<Uri> requestedSignatures, @NonNull byte[] payload) {
+        this.payload = payload;
+        mRequestedSignatures = requestedSignatures;
+    }
+
+    /**
+     * Create a {@link SigningRequest} which takes ownership of payload and requestedSignatures. For
+     * use when unparcelling, where the arrays are already private to the new instance.
+     */
+    @NonNull
+    static SigningRequest wrap(@NonNull byte[] payload, @NonNull ArrayList<Uri> requestedSignatures) {
+        return new SigningRequest(requestedSignatures, payload);
+    }
+
     protected SigningRequest(Parcel in) {
         final byte[] p = in.createByteArray();
         if (p != null) {
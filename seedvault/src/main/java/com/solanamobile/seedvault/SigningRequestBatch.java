@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.net.Uri;
+import android.os.BadParcelableException;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A batch of {@link SigningRequest}s, parcelled compactly for
+ * {@link WalletContractV1#EXTRA_SIGNING_REQUEST_BATCH}. Each distinct BIP derivation path is written
+ * once, to a table shared by all {@link SigningRequest}s in the batch, which reference it by index.
+ */
+@RequiresApi(api = Build.VERSION_CODES.M) // library minSdk is 17
+public class SigningRequestBatch implements Parcelable {
+    @NonNull
+    private final ArrayList<SigningRequest> mSigningRequests;
+    private List<SigningRequest> signingRequests; // unmodifiable view of mSigningRequests
+
+    /**
+     * Construct a new {@link SigningRequestBatch}
+     * @param signingRequests the {@link SigningRequest}s in this batch
+     */
+    public SigningRequestBatch(@NonNull List<SigningRequest> signingRequests) {
+        mSigningRequests = new ArrayList<>(signingRequests);
+    }
+
+    protected SigningRequestBatch(Parcel in) {
+        ArrayList<Uri> derivationPaths = in.createTypedArrayList(Uri.CREATOR);
+        if (derivationPaths == null) {
+            derivationPaths = new ArrayList<>();
+        }
+
+        final int size = in.readInt();
+        mSigningRequests = new ArrayList<>(Math.max(size, 0));
+        for (int i = 0; i < size; i++) {
+            byte[] payload = in.createByteArray();
+            if (payload == null) {
+                payload = new byte[0];
+            }
+
+            final int[] indices = in.createIntArray();
+            final ArrayList<Uri> requestedSignatures =
+                    new ArrayList<>(indices != null ? indices.length : 0);
+            if (indices != null) {
+                for (int index : indices) {
+                    if (index < 0 || index >= derivationPaths.size()) {
+                        throw new BadParcelableException("Derivation path index " + index +
+                                " out of range [0, " + derivationPaths.size() + ")");
+                    }
+                    // NOTE: repeated derivation paths share a single Uri instance
+                    requestedSignatures.add(derivationPaths.get(index));
+                }
+            }
+
+            mSigningRequests.add(SigningRequest.wrap(payload, requestedSignatures));
+        }
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        final HashMap<Uri, Integer> indexOf = new HashMap<>();
+        final ArrayList<Uri> derivationPaths = new ArrayList<>();
+        final int[][] indices = new int[mSigningRequests.size()][];
+        for (int i = 0; i < indices.length; i++) {
+            final List<Uri> requestedSignatures = mSigningRequests.get(i).getRequestedSignatures();
+            indices[i] = new int[requestedSignatures.size()];
+            for (int j = 0; j < indices[i].length; j++) {
+                final Uri derivationPath = requestedSignatures.get(j);
+                Integer index = indexOf.get(derivationPath);
+                if (index == null) {
+                    index = derivationPaths.size();
+                    indexOf.put(derivationPath, index);
+                    derivationPaths.add(derivationPath);
+                }
+                indices[i][j] = index;
+            }
+        }
+
+        dest.writeTypedList(derivationPaths);
+        dest.writeInt(mSigningRequests.size());
+        for (int i = 0; i < indices.length; i++) {
+            dest.writeByteArray(mSigningRequests.get(i).payload);
+            dest.writeIntArray(indices[i]);
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<SigningRequestBatch> CREATOR = new Creator<>() {
+        @Override
+        public SigningRequestBatch createFromParcel(Parcel in) {
+            return new SigningRequestBatch(in);
+        }
+
+        @Override
+        public SigningRequestBatch[] newArray(int size) {
+            return new SigningRequestBatch[size];
+        }
+    };
+
+    /**
+     * Get the {@link SigningRequest}s in this batch
+     * @return an unmodifiable {@link List} of {@link SigningRequest}s
+     */
+    @NonNull
+    public List<SigningRequest> getSigningRequests() {
+        if (signingRequests == null) {
+            signingRequests = Collections.unmodifiableList(mSigningRequests);
+        }
+        return signingRequests;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SigningRequestBatch that = (SigningRequestBatch) o;
+        return mSigningRequests.equals(that.mSigningRequests);
+    }
+
+    @Override
+    public int hashCode() {
+        return mSigningRequests.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SigningRequestBatch{" +
+                "mSigningRequests=" + mSigningRequests +
+                '}';
+    }
+}
@@ -14,6 +14,7 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.util.ArrayMap;
 
 import androidx.annotation.NonNull;
@@ -21,7 +22,10 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Programming interfaces for {@link WalletContractV1}
@@ -312,10 +316,9 @@ public final class Wallet {
         Intent intent = new Intent()
                 .setPackage(WalletContractV1.PACKAGE_SEED_VAULT)
                 .setAction(WalletContractV1.ACTION_SIGN_TRANSACTION)
-                .putExtra(WalletContractV1.EXTRA_AUTH_TOKEN, authToken)
-                .putParcelableArrayListExtra(WalletContractV1.EXTRA_SIGNING_REQUEST,
-                        signingRequests);
+                .putExtra(WalletContractV1.EXTRA_AUTH_TOKEN, authToken);
         SeedVault.resolveComponentForIntent(context, intent);
+        putSigningRequests(context, intent, expandSigningRequestRangesIfUnsupported(signingRequests));
         return intent;
     }
 
@@ -406,10 +409,9 @@ public final class Wallet {
         Intent intent = new Intent()
                 .setPackage(WalletContractV1.PACKAGE_SEED_VAULT)
                 .setAction(WalletContractV1.ACTION_SIGN_MESSAGE)
-                .putExtra(WalletContractV1.EXTRA_AUTH_TOKEN, authToken)
-                .putParcelableArrayListExtra(WalletContractV1.EXTRA_SIGNING_REQUEST,
-                        signingRequests);
+                .putExtra(WalletContractV1.EXTRA_AUTH_TOKEN, authToken);
         SeedVault.resolveComponentForIntent(context, intent);
+        putSigningRequests(context, intent, expandSigningRequestRangesIfUnsupported(signingRequests));
         return intent;
     }
 
@@ -479,7 +481,10 @@ public final class Wallet {
      * @param context the {@link Context} in which to perform this request
      * @param authToken the auth token for the seed with which to request a public key
      * @param derivationPaths an {@link ArrayList} of {@link BipDerivationPath}s representing the
-     *      accounts from which to request the public keys
+     *      accounts from which to request the public keys. These may include
+     *      {@link DerivationPathRange}s, which are expanded before sending unless the Seed Vault
+     *      implementation is already known (see {@link #getSupportedFeatures(Context)}) to support
+     *      {@link WalletContractV1#FEATURE_DERIVATION_PATH_RANGES}.
      * @return an {@link Intent} suitable for usage with
      *      {@link Activity#startActivityForResult(Intent, int)}
      * @throws IllegalArgumentException if derivationPaths is empty
@@ -501,7 +506,7 @@ public final class Wallet {
                 .setAction(WalletContractV1.ACTION_GET_PUBLIC_KEY)
                 .putExtra(WalletContractV1.EXTRA_AUTH_TOKEN, authToken)
                 .putParcelableArrayListExtra(WalletContractV1.EXTRA_DERIVATION_PATH,
-                        derivationPaths);
+                        expandRangesIfUnsupported(derivationPaths));
         SeedVault.resolveComponentForIntent(context, intent);
         return intent;
     }
@@ -598,6 +603,76 @@ public final class Wallet {
                 null);
     }
 
+    /**
+     * Get the authorized seeds for the current app
+     * @param context the {@link Context} in which to perform this request
+     * @return an immutable list of {@link AuthorizedSeed}s
+     * @throws UnsupportedOperationException if the authorized seeds could not be queried
+     */
+    @NonNull
+    public static List<AuthorizedSeed> getAuthorizedSeedList(@NonNull Context context) {
+        return getAuthorizedSeedList(context, null, null);
+    }
+
+    /**
+     * Get the authorized seeds for the current app which match the provided query
+     * @param context the {@link Context} in which to perform this request
+     * @param filterOnColumn the column from {@link WalletContractV1#AUTHORIZED_SEEDS_ALL_COLUMNS}
+     *      on which to filter
+     * @param value the value of filterOnColumn which all returned rows must match
+     * @return an immutable list of {@link AuthorizedSeed}s
+     * @throws IllegalArgumentException if filterOnColumn is not a column in
+     *      {@link WalletContractV1#AUTHORIZED_SEEDS_ALL_COLUMNS}, or if value cannot be interpreted
+     *      as an appropriate type to match against filterOnColumn values.
+     * @throws UnsupportedOperationException if the authorized seeds could not be queried
+     */
+    @NonNull
+    public static List<AuthorizedSeed> getAuthorizedSeedList(
+            @NonNull Context context,
+            @Nullable String filterOnColumn,
+            @Nullable Object value) {
+        return getAuthorizedSeedList(context, filterOnColumn, value, null);
+    }
+
+    /**
+     * Get the authorized seeds for the current app which match the provided query
+     * @param context the {@link Context} in which to perform this request
+     * @param filterOnColumn the column from {@link WalletContractV1#AUTHORIZED_SEEDS_ALL_COLUMNS}
+     *      on which to filter
+     * @param value the value of filterOnColumn which all returned rows must match
+     * @param cancellationSignal a signal with which to cancel this request, or null
+     * @return an immutable list of {@link AuthorizedSeed}s
+     * @throws IllegalArgumentException if filterOnColumn is not a column in
+     *      {@link WalletContractV1#AUTHORIZED_SEEDS_ALL_COLUMNS}, or if value cannot be interpreted
+     *      as an appropriate type to match against filterOnColumn values.
+     * @throws UnsupportedOperationException if the authorized seeds could not be queried
+     * @throws android.os.OperationCanceledException if cancellationSignal was canceled
+     */
+    @NonNull
+    public static List<AuthorizedSeed> getAuthorizedSeedList(
+            @NonNull Context context,
+            @Nullable String filterOnColumn,
+            @Nullable Object value,
+            @Nullable CancellationSignal cancellationSignal) {
+        final Bundle queryArgs = createSingleColumnQuery(
+                WalletContractV1.AUTHORIZED_SEEDS_ALL_COLUMNS, filterOnColumn, value);
+        try (Cursor c = context.getContentResolver().query(
+                WalletContractV1.AUTHORIZED_SEEDS_CONTENT_URI,
+                WalletContractV1.AUTHORIZED_SEEDS_ALL_COLUMNS,
+                queryArgs,
+                cancellationSignal)) {
+            if (c == null) {
+                throw new UnsupportedOperationException("Failed to get authorized seeds");
+            }
+            final AuthorizedSeed.ColumnIndices columns = new AuthorizedSeed.ColumnIndices(c);
+            final ArrayList<AuthorizedSeed> authorizedSeeds = new ArrayList<>(c.getCount());
+            while (c.moveToNext()) {
+                authorizedSeeds.add(AuthorizedSeed.fromCursor(c, columns));
+            }
+            return Collections.unmodifiableList(authorizedSeeds);
+        }
+    }
+
     /**
      * Deauthorize the specified seed for the current app
      * @param context the {@link Context} in which to perform this request
@@ -735,6 +810,95 @@ public final class Wallet {
                 null);
     }
 
+    /**
+     * Get the known accounts for the specified auth token
+     * @param context the {@link Context} in which to perform this request
+     * @param authToken the auth token for which to retrieve accounts
+     * @return an immutable list of {@link Account}s
+     * @throws IllegalArgumentException if auth token is not valid for this app
+     * @throws UnsupportedOperationException if the accounts could not be queried
+     */
+    @NonNull
+    public static List<Account> getAccountList(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken) {
+        return getAccountList(context, authToken, WalletContractV1.ACCOUNTS_ALL_COLUMNS, null, null);
+    }
+
+    /**
+     * Get the known accounts for the specified auth token which match the provided query. Only the
+     * columns in projection are transferred and read; the {@link Account} getters for all other
+     * columns throw {@link IllegalStateException}.
+     * @param context the {@link Context} in which to perform this request
+     * @param authToken the auth token for which to retrieve accounts
+     * @param projection the subset of the columns in {@link WalletContractV1#ACCOUNTS_ALL_COLUMNS}
+     *      to read
+     * @param filterOnColumn the column from {@link WalletContractV1#ACCOUNTS_ALL_COLUMNS} on which
+     *      to filter
+     * @param value the value of filterOnColumn which all returned rows must match
+     * @return an immutable list of {@link Account}s
+     * @throws IllegalArgumentException if auth token is not valid for this app, if filterOnColumn
+     *      is not a column in {@link WalletContractV1#ACCOUNTS_ALL_COLUMNS}, or if value cannot be
+     *      interpreted as an appropriate type to match against filterOnColumn values.
+     * @throws UnsupportedOperationException if the accounts could not be queried
+     */
+    @NonNull
+    public static List<Account> getAccountList(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @NonNull String[] projection,
+            @Nullable String filterOnColumn,
+            @Nullable Object value) {
+        return getAccountList(context, authToken, projection, filterOnColumn, value, null);
+    }
+
+    /**
+     * Get the known accounts for the specified auth token which match the provided query. Only the
+     * columns in projection are transferred and read; the {@link Account} getters for all other
+     * columns throw {@link IllegalStateException}.
+     * @param context the {@link Context} in which to perform this request
+     * @param authToken the auth token for which to retrieve accounts
+     * @param projection the subset of the columns in {@link WalletContractV1#ACCOUNTS_ALL_COLUMNS}
+     *      to read
+     * @param filterOnColumn the column from {@link WalletContractV1#ACCOUNTS_ALL_COLUMNS} on which
+     *      to filter
+     * @param value the value of filterOnColumn which all returned rows must match
+     * @param cancellationSignal a signal with which to cancel this request, or null
+     * @return an immutable list of {@link Account}s
+     * @throws IllegalArgumentException if auth token is not valid for this app, if filterOnColumn
+     *      is not a column in {@link WalletContractV1#ACCOUNTS_ALL_COLUMNS}, or if value cannot be
+     *      interpreted as an appropriate type to match against filterOnColumn values.
+     * @throws UnsupportedOperationException if the accounts could not be queried
+     * @throws android.os.OperationCanceledException if cancellationSignal was canceled
+     */
+    @NonNull
+    public static List<Account> getAccountList(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @NonNull String[] projection,
+            @Nullable String filterOnColumn,
+            @Nullable Object value,
+            @Nullable CancellationSignal cancellationSignal) {
+        final Bundle queryArgs = createSingleColumnQuery(
+                WalletContractV1.ACCOUNTS_ALL_COLUMNS, filterOnColumn, value);
+        queryArgs.putLong(WalletContractV1.EXTRA_AUTH_TOKEN, authToken);
+        try (Cursor c = context.getContentResolver().query(
+                WalletContractV1.ACCOUNTS_CONTENT_URI,
+                projection,
+                queryArgs,
+                cancellationSignal)) {
+            if (c == null) {
+                throw new UnsupportedOperationException("Failed to get accounts for AuthToken=" + authToken);
+            }
+            final Account.ColumnIndices columns = new Account.ColumnIndices(c);
+            final ArrayList<Account> accounts = new ArrayList<>(c.getCount());
+            while (c.moveToNext()) {
+                accounts.add(Account.fromCursor(c, columns));
+            }
+            return Collections.unmodifiableList(accounts);
+        }
+    }
+
     /**
      * Request a {@link Cursor} containing account metadata for the specified known account for the
      * given auth token. The projection should be a subset of the columns in
@@ -923,6 +1087,137 @@ public final class Wallet {
         return implementationLimitsMap;
     }
 
+    /**
+     * Get the optional features supported by the Seed Vault implementation for all purposes. The
+     * result is cached for the lifetime of the process, until a package is added, replaced, changed
+     * or removed.
+     * <p>NOTE: signing requests only take advantage of optional features once this cache has been
+     * populated, either by this method or by {@link SeedVault#prewarm(Context)}; they never wait on
+     * a query of the Seed Vault.</p>
+     * @param context the {@link Context} in which to perform this request
+     * @return a bitmask of {@code WalletContractV1.FEATURE_*} flags
+     */
+    public static int getSupportedFeatures(@NonNull Context context) {
+        return intersectSupportedFeatures(getCachedImplementationLimits(context).values());
+    }
+
+    // Like getSupportedFeatures, but never queries the Seed Vault. On a cache miss, no optional
+    // features are assumed to be supported.
+    private static int getSupportedFeaturesIfCached() {
+        final Map<Integer, ImplementationLimits> cached =
+                ComponentResolutionCache.getImplementationLimits();
+        return (cached != null) ? intersectSupportedFeatures(cached.values()) : 0;
+    }
+
+    private static int intersectSupportedFeatures(
+            @NonNull Collection<ImplementationLimits> implementationLimits) {
+        if (implementationLimits.isEmpty()) {
+            return 0;
+        }
+
+        // A feature is only supported if it is supported for every purpose
+        int supportedFeatures = ~0;
+        for (ImplementationLimits limits : implementationLimits) {
+            supportedFeatures &= limits.supportedFeatures;
+        }
+        return supportedFeatures;
+    }
+
+    /**
+     * Get the implementation limits for all purposes, from a process-wide cache which is valid until
+     * a package is added, replaced, changed or removed
+     * @param context the {@link Context} in which to perform this request, on a cache miss
+     * @return an unmodifiable {@link Map} from {@code WalletContractV1.PURPOSE_*} purpose to
+     *      {@link ImplementationLimits}
+     */
+    @NonNull
+    static Map<Integer, ImplementationLimits> getCachedImplementationLimits(@NonNull Context context) {
+        final Map<Integer, ImplementationLimits> cached = ComponentResolutionCache.getImplementationLimits();
+        if (cached != null) {
+            return cached;
+        }
+
+        final int generation = ComponentResolutionCache.getGeneration(context);
+        final ArrayMap<Integer, ImplementationLimits> implementationLimits = new ArrayMap<>(1);
+        try (Cursor c = context.getContentResolver().query(
+                WalletContractV1.IMPLEMENTATION_LIMITS_CONTENT_URI,
+                WalletContractV1.IMPLEMENTATION_LIMITS_ALL_COLUMNS,
+                null,
+                null)) {
+            while (c != null && c.moveToNext()) {
+                final ImplementationLimits limits = ImplementationLimits.fromCursor(c);
+                implementationLimits.put(limits.purpose, limits);
+            }
+        }
+        final Map<Integer, ImplementationLimits> result = Collections.unmodifiableMap(implementationLimits);
+        ComponentResolutionCache.putImplementationLimits(generation, result);
+        return result;
+    }
+
+    @NonNull
+    private static ArrayList<Uri> expandRangesIfUnsupported(
+            @NonNull ArrayList<Uri> derivationPaths) {
+        if (!containsRange(derivationPaths) || (getSupportedFeaturesIfCached()
+                & WalletContractV1.FEATURE_DERIVATION_PATH_RANGES) != 0) {
+            return derivationPaths;
+        }
+        return DerivationPathRange.expandAll(derivationPaths);
+    }
+
+    @NonNull
+    private static ArrayList<SigningRequest> expandSigningRequestRangesIfUnsupported(
+            @NonNull ArrayList<SigningRequest> signingRequests) {
+        boolean containsRange = false;
+        for (SigningRequest signingRequest : signingRequests) {
+            containsRange |= containsRange(signingRequest.getRequestedSignatures());
+        }
+        if (!containsRange || (getSupportedFeaturesIfCached()
+                & WalletContractV1.FEATURE_DERIVATION_PATH_RANGES) != 0) {
+            return signingRequests;
+        }
+
+        final ArrayList<SigningRequest> expanded = new ArrayList<>(signingRequests.size());
+        for (SigningRequest signingRequest : signingRequests) {
+            expanded.add(new SigningRequest(signingRequest.payload,
+                    DerivationPathRange.expandAll(signingRequest.getRequestedSignatures())));
+        }
+        return expanded;
+    }
+
+    // Uses the compact EXTRA_SIGNING_REQUEST_BATCH form, and moves large payloads out-of-band, when
+    // the implementation is already known to support them. On a cache miss, the requests are sent
+    // inline in the EXTRA_SIGNING_REQUEST form understood by all implementations.
+    private static void putSigningRequests(
+            @NonNull Context context,
+            @NonNull Intent intent,
+            @NonNull ArrayList<SigningRequest> signingRequests) {
+        final int supportedFeatures = getSupportedFeaturesIfCached();
+        if ((supportedFeatures & WalletContractV1.FEATURE_SIGNING_PAYLOADS_URI) != 0) {
+            final ArrayList<SigningRequest> placeholders =
+                    SigningPayloadProvider.putPayloads(context, intent, signingRequests);
+            if (placeholders != null) {
+                signingRequests = placeholders;
+            }
+        }
+
+        if ((supportedFeatures & WalletContractV1.FEATURE_SIGNING_REQUEST_BATCH) != 0) {
+            intent.putExtra(WalletContractV1.EXTRA_SIGNING_REQUEST_BATCH,
+                    new SigningRequestBatch(signingRequests));
+        } else {
+            intent.putParcelableArrayListExtra(WalletContractV1.EXTRA_SIGNING_REQUEST,
+                    signingRequests);
+        }
+    }
+
+    private static boolean containsRange(@NonNull List<Uri> derivationPaths) {
+        for (Uri derivationPath : derivationPaths) {
+            if (DerivationPathRange.isRange(derivationPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Resolve the provided BIP derivation path {@link Uri} with scheme
      * {@link WalletContractV1#BIP32_URI_SCHEME} or {@link WalletContractV1#BIP44_URI_SCHEME} and
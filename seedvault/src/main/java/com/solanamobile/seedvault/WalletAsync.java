@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous variants of the {@link Wallet} content provider queries, updates and methods. Each
+ * returns a {@link CompletableFuture}, which completes on one of a small, shared pool of background
+ * threads (so callers should not block on it from those threads).
+ * <p>Identical queries that are in flight at the same time share a single IPC. Cancelling the
+ * returned {@link CompletableFuture} detaches that caller; once every caller sharing a query has
+ * cancelled, the query itself is cancelled via {@link CancellationSignal}. Updates are never
+ * shared, and can only be cancelled before they start.</p>
+ * <p>Only the typed query variants (for e.g. {@link Wallet#getAccountList(Context, long)}) are
+ * provided, since a {@link android.database.Cursor} cannot safely be shared between callers.</p>
+ */
+@RequiresApi(api = Build.VERSION_CODES.R) // library minSdk is 17
+public final class WalletAsync {
+    private WalletAsync() {}
+
+    private static final int NUM_THREADS = 2;
+    private static final long THREAD_KEEP_ALIVE_S = 30;
+
+    private static final ThreadPoolExecutor sExecutor = createExecutor();
+
+    // Maps from a query key to the in-flight instance of that query
+    private static final HashMap<String, InFlightQuery<?>> sInFlightQueries = new HashMap<>();
+
+    private interface Query<T> {
+        T run(@NonNull CancellationSignal cancellationSignal) throws Exception;
+    }
+
+    private static final class InFlightQuery<T> {
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        int numCallers; // guarded by sInFlightQueries
+    }
+
+    /** See {@link Wallet#getAuthorizedSeedList(Context)} */
+    @NonNull
+    public static CompletableFuture<List<AuthorizedSeed>> getAuthorizedSeedList(
+            @NonNull Context context) {
+        return getAuthorizedSeedList(context, null, null);
+    }
+
+    /** See {@link Wallet#getAuthorizedSeedList(Context, String, Object)} */
+    @NonNull
+    public static CompletableFuture<List<AuthorizedSeed>> getAuthorizedSeedList(
+            @NonNull Context context,
+            @Nullable String filterOnColumn,
+            @Nullable Object value) {
+        final Context appContext = context.getApplicationContext();
+        return coalesce("getAuthorizedSeedList/" + filterOnColumn + "/" + value,
+                signal -> Wallet.getAuthorizedSeedList(appContext, filterOnColumn, value, signal));
+    }
+
+    /** See {@link Wallet#hasUnauthorizedSeedsForPurpose(Context, int)} */
+    @NonNull
+    public static CompletableFuture<Boolean> hasUnauthorizedSeedsForPurpose(
+            @NonNull Context context,
+            @WalletContractV1.Purpose int purpose) {
+        final Context appContext = context.getApplicationContext();
+        return coalesce("hasUnauthorizedSeedsForPurpose/" + purpose,
+                signal -> Wallet.hasUnauthorizedSeedsForPurpose(appContext, purpose));
+    }
+
+    /** See {@link Wallet#getAccountList(Context, long)} */
+    @NonNull
+    public static CompletableFuture<List<Account>> getAccountList(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken) {
+        return getAccountList(context, authToken, WalletContractV1.ACCOUNTS_ALL_COLUMNS, null, null);
+    }
+
+    /** See {@link Wallet#getAccountList(Context, long, String[], String, Object)} */
+    @NonNull
+    public static CompletableFuture<List<Account>> getAccountList(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @NonNull String[] projection,
+            @Nullable String filterOnColumn,
+            @Nullable Object value) {
+        final Context appContext = context.getApplicationContext();
+        final String[] projectionCopy = projection.clone();
+        return coalesce("getAccountList/" + authToken + "/" + Arrays.toString(projectionCopy) +
+                        "/" + filterOnColumn + "/" + value,
+                signal -> Wallet.getAccountList(appContext, authToken, projectionCopy,
+                        filterOnColumn, value, signal));
+    }
+
+    /** See {@link Wallet#getImplementationLimitsForPurpose(Context, int)} */
+    @NonNull
+    public static CompletableFuture<ArrayMap<String, Long>> getImplementationLimitsForPurpose(
+            @NonNull Context context,
+            @WalletContractV1.Purpose int purpose) {
+        final Context appContext = context.getApplicationContext();
+        // NOTE: the result is mutable, so each caller receives its own copy
+        return coalesce("getImplementationLimitsForPurpose/" + purpose,
+                signal -> Wallet.getImplementationLimitsForPurpose(appContext, purpose))
+                .thenApply(ArrayMap::new);
+    }
+
+    /** See {@link Wallet#resolveDerivationPath(Context, Uri, int)} */
+    @NonNull
+    public static CompletableFuture<Uri> resolveDerivationPath(
+            @NonNull Context context,
+            @NonNull Uri derivationPath,
+            @WalletContractV1.Purpose int purpose) {
+        final Context appContext = context.getApplicationContext();
+        return coalesce("resolveDerivationPath/" + purpose + "/" + derivationPath,
+                signal -> Wallet.resolveDerivationPath(appContext, derivationPath, purpose));
+    }
+
+    /**
+     * See {@link Wallet#deauthorizeSeed(Context, long)}. The returned {@link CompletableFuture}
+     * completes exceptionally with {@link Wallet.NotModifiedException} if the seed was not
+     * authorized for this app.
+     */
+    @NonNull
+    public static CompletableFuture<Void> deauthorizeSeed(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken) {
+        final Context appContext = context.getApplicationContext();
+        return submit(() -> {
+            Wallet.deauthorizeSeed(appContext, authToken);
+            return null;
+        });
+    }
+
+    /**
+     * See {@link Wallet#updateAccountName(Context, long, long, String)}. The returned
+     * {@link CompletableFuture} completes exceptionally with {@link Wallet.NotModifiedException} if
+     * ID does not represent a known account.
+     */
+    @NonNull
+    public static CompletableFuture<Void> updateAccountName(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @WalletContractV1.AccountId long id,
+            @Nullable String name) {
+        final Context appContext = context.getApplicationContext();
+        return submit(() -> {
+            Wallet.updateAccountName(appContext, authToken, id, name);
+            return null;
+        });
+    }
+
+    /**
+     * See {@link Wallet#updateAccountIsUserWallet(Context, long, long, boolean)}. The returned
+     * {@link CompletableFuture} completes exceptionally with {@link Wallet.NotModifiedException} if
+     * ID does not represent a known account.
+     */
+    @NonNull
+    public static CompletableFuture<Void> updateAccountIsUserWallet(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @WalletContractV1.AccountId long id,
+            boolean isUserWallet) {
+        final Context appContext = context.getApplicationContext();
+        return submit(() -> {
+            Wallet.updateAccountIsUserWallet(appContext, authToken, id, isUserWallet);
+            return null;
+        });
+    }
+
+    /**
+     * See {@link Wallet#updateAccountIsValid(Context, long, long, boolean)}. The returned
+     * {@link CompletableFuture} completes exceptionally with {@link Wallet.NotModifiedException} if
+     * ID does not represent a known account.
+     */
+    @NonNull
+    public static CompletableFuture<Void> updateAccountIsValid(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @WalletContractV1.AccountId long id,
+            boolean isValid) {
+        final Context appContext = context.getApplicationContext();
+        return submit(() -> {
+            Wallet.updateAccountIsValid(appContext, authToken, id, isValid);
+            return null;
+        });
+    }
+
+    @NonNull
+    private static <T> CompletableFuture<T> coalesce(@NonNull String key, @NonNull Query<T> query) {
+        final InFlightQuery<T> inFlight;
+        final boolean isNew;
+        synchronized (sInFlightQueries) {
+            @SuppressWarnings("unchecked")
+            InFlightQuery<T> existing = (InFlightQuery<T>) sInFlightQueries.get(key);
+            isNew = (existing == null);
+            if (isNew) {
+                existing = new InFlightQuery<>();
+                sInFlightQueries.put(key, existing);
+            }
+            existing.numCallers++;
+            inFlight = existing;
+        }
+
+        if (isNew) {
+            sExecutor.execute(() -> {
+                T result = null;
+                Throwable error = null;
+                try {
+                    inFlight.cancellationSignal.throwIfCanceled();
+                    result = query.run(inFlight.cancellationSignal);
+                } catch (Throwable t) {
+                    error = t;
+                }
+                // Stop sharing this query before completing it, so that a caller which observes
+                // the result and then queries again is guaranteed a fresh query
+                synchronized (sInFlightQueries) {
+                    sInFlightQueries.remove(key, inFlight);
+                }
+                if (error != null) {
+                    inFlight.result.completeExceptionally(error);
+                } else {
+                    inFlight.result.complete(result);
+                }
+            });
+        }
+
+        final CompletableFuture<T> caller = new CompletableFuture<>();
+        inFlight.result.whenComplete((result, error) -> {
+            if (error != null) {
+                caller.completeExceptionally(error);
+            } else {
+                caller.complete(result);
+            }
+        });
+        caller.whenComplete((result, error) -> {
+            if (!caller.isCancelled()) {
+                return;
+            }
+            final boolean cancelQuery;
+            synchronized (sInFlightQueries) {
+                cancelQuery = (--inFlight.numCallers == 0);
+                if (cancelQuery) {
+                    sInFlightQueries.remove(key, inFlight);
+                }
+            }
+            if (cancelQuery) {
+                inFlight.cancellationSignal.cancel();
+            }
+        });
+        return caller;
+    }
+
+    @NonNull
+    private static <T> CompletableFuture<T> submit(@NonNull Callable<T> update) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        sExecutor.execute(() -> {
+            if (future.isDone()) {
+                return; // cancelled before starting
+            }
+            try {
+                future.complete(update.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    @NonNull
+    private static ThreadPoolExecutor createExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = r -> {
+            final Thread t = new Thread(r, "WalletAsync-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(NUM_THREADS, NUM_THREADS,
+                THREAD_KEEP_ALIVE_S, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A signing or public key request which may exceed the Seed Vault implementation limits, split into
+ * the minimum number of requests which satisfy them. Each request (or "step") is sent as a separate
+ * Activity launch; the responses are reassembled in the order of the original request.
+ * <p>The split is computed from the (cached) implementation limits when the {@link WalletBatch} is
+ * created, so requests which can never be satisfied fail immediately, without any IPC to the Seed
+ * Vault implementation. A {@link SigningRequest} which requests more signatures than
+ * {@link WalletContractV1#IMPLEMENTATION_LIMITS_MAX_REQUESTED_SIGNATURES} is itself split into
+ * multiple {@link SigningRequest}s for the same payload, whose signatures are rejoined in its
+ * {@link SigningResponse}.</p>
+ * <p>To use, launch {@link #createNextIntent(Context)} with
+ * {@link Activity#startActivityForResult(Intent, int)}, and pass the result to
+ * {@link #onResult(int, Intent)}, until {@link #isComplete()}. If a step fails, it may be retried by
+ * launching {@link #createNextIntent(Context)} again. A {@link WalletBatch} is not thread-safe, and
+ * does not survive process death.</p>
+ */
+@RequiresApi(api = Build.VERSION_CODES.R) // library minSdk is 17
+public final class WalletBatch {
+    private enum Type { SIGN_TRANSACTIONS, SIGN_MESSAGES, REQUEST_PUBLIC_KEYS }
+
+    @NonNull
+    private final Type mType;
+
+    @WalletContractV1.AuthToken
+    private final long mAuthToken;
+
+    // For SIGN_*, one entry per step; each is the list of SigningRequests for that step, and the
+    // index of the original SigningRequest from which each was split
+    @NonNull
+    private final ArrayList<ArrayList<SigningRequest>> mSigningSteps = new ArrayList<>();
+    @NonNull
+    private final ArrayList<int[]> mSigningStepOrigins = new ArrayList<>();
+
+    // For SIGN_*, the signatures and resolved derivation paths received so far, per original
+    // SigningRequest
+    @NonNull
+    private final ArrayList<ArrayList<byte[]>> mSignatures = new ArrayList<>();
+    @NonNull
+    private final ArrayList<ArrayList<Uri>> mResolvedDerivationPaths = new ArrayList<>();
+
+    // For REQUEST_PUBLIC_KEYS, one entry per step
+    @NonNull
+    private final ArrayList<ArrayList<Uri>> mPublicKeySteps = new ArrayList<>();
+
+    // For REQUEST_PUBLIC_KEYS, the responses received so far
+    @NonNull
+    private final ArrayList<PublicKeyResponse> mPublicKeyResponses = new ArrayList<>();
+
+    private int mNextStep;
+
+    private WalletBatch(@NonNull Type type, @WalletContractV1.AuthToken long authToken) {
+        mType = type;
+        mAuthToken = authToken;
+    }
+
+    /**
+     * Create a {@link WalletBatch} to sign the provided transactions, using the cached
+     * implementation limits for purpose. See {@link Wallet#signTransactions(Context, long, ArrayList)}.
+     * @param context the {@link Context} in which to read the implementation limits
+     * @param authToken the auth token for the seed with which to perform transaction signing
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose for which authToken was
+     *      authorized
+     * @param signingRequests the set of transactions to be signed
+     * @return a new {@link WalletBatch}
+     * @throws IllegalArgumentException if signingRequests is empty, if any {@link SigningRequest}
+     *      requests no signatures, or if purpose is not known to the Seed Vault implementation
+     * @throws IllegalStateException if the Seed Vault implementation limits cannot be satisfied
+     * @throws UnsupportedOperationException if any requested signature is an invalid
+     *      {@link DerivationPathRange}
+     */
+    @NonNull
+    public static WalletBatch signTransactions(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @WalletContractV1.Purpose int purpose,
+            @NonNull List<SigningRequest> signingRequests) {
+        return createSigningBatch(Type.SIGN_TRANSACTIONS, authToken,
+                getImplementationLimits(context, purpose), signingRequests);
+    }
+
+    /**
+     * Create a {@link WalletBatch} to sign the provided transactions
+     * @param authToken the auth token for the seed with which to perform transaction signing
+     * @param limits the {@link ImplementationLimits} for the purpose of authToken
+     * @param signingRequests the set of transactions to be signed
+     * @return a new {@link WalletBatch}
+     * @throws IllegalArgumentException if signingRequests is empty, or if any
+     *      {@link SigningRequest} requests no signatures
+     * @throws IllegalStateException if limits cannot be satisfied
+     * @throws UnsupportedOperationException if any requested signature is an invalid
+     *      {@link DerivationPathRange}
+     */
+    @NonNull
+    public static WalletBatch signTransactions(
+            @WalletContractV1.AuthToken long authToken,
+            @NonNull ImplementationLimits limits,
+            @NonNull List<SigningRequest> signingRequests) {
+        return createSigningBatch(Type.SIGN_TRANSACTIONS, authToken, limits, signingRequests);
+    }
+
+    /**
+     * Create a {@link WalletBatch} to sign the provided messages, using the cached implementation
+     * limits for purpose. See {@link Wallet#signMessages(Context, long, ArrayList)}.
+     * @param context the {@link Context} in which to read the implementation limits
+     * @param authToken the auth token for the seed with which to perform message signing
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose for which authToken was
+     *      authorized
+     * @param signingRequests the set of messages to be signed
+     * @return a new {@link WalletBatch}
+     * @throws IllegalArgumentException if signingRequests is empty, if any {@link SigningRequest}
+     *      requests no signatures, or if purpose is not known to the Seed Vault implementation
+     * @throws IllegalStateException if the Seed Vault implementation limits cannot be satisfied
+     * @throws UnsupportedOperationException if any requested signature is an invalid
+     *      {@link DerivationPathRange}
+     */
+    @NonNull
+    public static WalletBatch signMessages(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @WalletContractV1.Purpose int purpose,
+            @NonNull List<SigningRequest> signingRequests) {
+        return createSigningBatch(Type.SIGN_MESSAGES, authToken,
+                getImplementationLimits(context, purpose), signingRequests);
+    }
+
+    /**
+     * Create a {@link WalletBatch} to sign the provided messages
+     * @param authToken the auth token for the seed with which to perform message signing
+     * @param limits the {@link ImplementationLimits} for the purpose of authToken
+     * @param signingRequests the set of messages to be signed
+     * @return a new {@link WalletBatch}
+     * @throws IllegalArgumentException if signingRequests is empty, or if any
+     *      {@link SigningRequest} requests no signatures
+     * @throws IllegalStateException if limits cannot be satisfied
+     * @throws UnsupportedOperationException if any requested signature is an invalid
+     *      {@link DerivationPathRange}
+     */
+    @NonNull
+    public static WalletBatch signMessages(
+            @WalletContractV1.AuthToken long authToken,
+            @NonNull ImplementationLimits limits,
+            @NonNull List<SigningRequest> signingRequests) {
+        return createSigningBatch(Type.SIGN_MESSAGES, authToken, limits, signingRequests);
+    }
+
+    /**
+     * Create a {@link WalletBatch} to request the provided public keys, using the cached
+     * implementation limits for purpose. See {@link Wallet#requestPublicKeys(Context, long, ArrayList)}.
+     * @param context the {@link Context} in which to read the implementation limits
+     * @param authToken the auth token for the seed with which to request public keys
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose for which authToken was
+     *      authorized
+     * @param derivationPaths the BIP derivation paths for which to request public keys
+     * @return a new {@link WalletBatch}
+     * @throws IllegalArgumentException if derivationPaths is empty, or if purpose is not known to
+     *      the Seed Vault implementation
+     * @throws IllegalStateException if the Seed Vault implementation limits cannot be satisfied
+     * @throws UnsupportedOperationException if any derivation path is an invalid
+     *      {@link DerivationPathRange}
+     */
+    @NonNull
+    public static WalletBatch requestPublicKeys(
+            @NonNull Context context,
+            @WalletContractV1.AuthToken long authToken,
+            @WalletContractV1.Purpose int purpose,
+            @NonNull List<Uri> derivationPaths) {
+        return requestPublicKeys(authToken, getImplementationLimits(context, purpose),
+                derivationPaths);
+    }
+
+    /**
+     * Create a {@link WalletBatch} to request the provided public keys
+     * @param authToken the auth token for the seed with which to request public keys
+     * @param limits the {@link ImplementationLimits} for the purpose of authToken
+     * @param derivationPaths the BIP derivation paths for which to request public keys
+     * @return a new {@link WalletBatch}
+     * @throws IllegalArgumentException if derivationPaths is empty
+     * @throws IllegalStateException if limits cannot be satisfied
+     * @throws UnsupportedOperationException if any derivation path is an invalid
+     *      {@link DerivationPathRange}
+     */
+    @NonNull
+    public static WalletBatch requestPublicKeys(
+            @WalletContractV1.AuthToken long authToken,
+            @NonNull ImplementationLimits limits,
+            @NonNull List<Uri> derivationPaths) {
+        if (derivationPaths.isEmpty()) {
+            throw new IllegalArgumentException("derivationPaths must not be empty");
+        } else if (limits.maxRequestedPublicKeys < 1) {
+            throw new IllegalStateException("Seed Vault implementation does not permit requesting public keys");
+        }
+
+        final WalletBatch batch = new WalletBatch(Type.REQUEST_PUBLIC_KEYS, authToken);
+        final ArrayList<Uri> expanded = DerivationPathRange.expandAll(derivationPaths);
+        for (int start = 0; start < expanded.size(); start += limits.maxRequestedPublicKeys) {
+            final int end = Math.min(start + limits.maxRequestedPublicKeys, expanded.size());
+            batch.mPublicKeySteps.add(new ArrayList<>(expanded.subList(start, end)));
+        }
+        batch.mPublicKeyResponses.ensureCapacity(expanded.size());
+        return batch;
+    }
+
+    @NonNull
+    private static WalletBatch createSigningBatch(
+            @NonNull Type type,
+            @WalletContractV1.AuthToken long authToken,
+            @NonNull ImplementationLimits limits,
+            @NonNull List<SigningRequest> signingRequests) {
+        if (signingRequests.isEmpty()) {
+            throw new IllegalArgumentException("signingRequests must not be empty");
+        } else if (limits.maxSigningRequests < 1 || limits.maxRequestedSignatures < 1) {
+            throw new IllegalStateException("Seed Vault implementation does not permit signing requests");
+        }
+
+        final WalletBatch batch = new WalletBatch(type, authToken);
+        ArrayList<SigningRequest> step = new ArrayList<>(limits.maxSigningRequests);
+        int[] origins = new int[limits.maxSigningRequests];
+        for (int i = 0; i < signingRequests.size(); i++) {
+            final SigningRequest signingRequest = signingRequests.get(i);
+            final List<Uri> requestedSignatures = signingRequest.getRequestedSignatures();
+            if (requestedSignatures.isEmpty()) {
+                throw new IllegalArgumentException("SigningRequest " + i + " requests no signatures");
+            }
+            final ArrayList<Uri> expanded = DerivationPathRange.expandAll(requestedSignatures);
+            batch.mSignatures.add(new ArrayList<>(expanded.size()));
+            batch.mResolvedDerivationPaths.add(new ArrayList<>(expanded.size()));
+
+            // Pack each step with as many signatures per SigningRequest as permitted
+            for (int start = 0; start < expanded.size(); start += limits.maxRequestedSignatures) {
+                final int end = Math.min(start + limits.maxRequestedSignatures, expanded.size());
+                final SigningRequest split = (start == 0 && end == expanded.size()
+                        && expanded.size() == requestedSignatures.size())
+                        ? signingRequest // unchanged; no need to copy it
+                        : new SigningRequest(signingRequest.payload, expanded.subList(start, end));
+                if (step.size() == limits.maxSigningRequests) {
+                    batch.mSigningSteps.add(step);
+                    batch.mSigningStepOrigins.add(origins);
+                    step = new ArrayList<>(limits.maxSigningRequests);
+                    origins = new int[limits.maxSigningRequests];
+                }
+                origins[step.size()] = i;
+                step.add(split);
+            }
+        }
+        batch.mSigningSteps.add(step);
+        batch.mSigningStepOrigins.add(origins);
+        return batch;
+    }
+
+    @NonNull
+    private static ImplementationLimits getImplementationLimits(
+            @NonNull Context context,
+            @WalletContractV1.Purpose int purpose) {
+        final ImplementationLimits limits = Wallet.getCachedImplementationLimits(context).get(purpose);
+        if (limits == null) {
+            throw new IllegalArgumentException("No implementation limits for purpose " + purpose);
+        }
+        return limits;
+    }
+
+    /** @return the number of Activity launches required to complete this batch */
+    public int getStepCount() {
+        return (mType == Type.REQUEST_PUBLIC_KEYS) ? mPublicKeySteps.size() : mSigningSteps.size();
+    }
+
+    /** @return the number of Activity launches completed successfully so far */
+    public int getCompletedStepCount() {
+        return mNextStep;
+    }
+
+    /** @return true if every step of this batch has completed successfully, else false */
+    public boolean isComplete() {
+        return mNextStep == getStepCount();
+    }
+
+    /**
+     * Create the {@link Intent} for the next step of this batch
+     * @param context the {@link Context} in which to perform this request
+     * @return an {@link Intent} suitable for usage with
+     *      {@link Activity#startActivityForResult(Intent, int)}
+     * @throws IllegalStateException if this batch is already complete, if there is no Seed Vault
+     *      implementation capable of receiving this intent, or if this app does not hold one of the
+     *      {@link WalletContractV1#PERMISSION_ACCESS_SEED_VAULT} or
+     *      {@link WalletContractV1#PERMISSION_ACCESS_SEED_VAULT_PRIVILEGED} permissions.
+     */
+    @NonNull
+    public Intent createNextIntent(@NonNull Context context) {
+        if (isComplete()) {
+            throw new IllegalStateException("WalletBatch is already complete");
+        }
+
+        switch (mType) {
+            case SIGN_TRANSACTIONS:
+                return Wallet.signTransactions(context, mAuthToken, mSigningSteps.get(mNextStep));
+            case SIGN_MESSAGES:
+                return Wallet.signMessages(context, mAuthToken, mSigningSteps.get(mNextStep));
+            case REQUEST_PUBLIC_KEYS:
+            default:
+                return Wallet.requestPublicKeys(context, mAuthToken, mPublicKeySteps.get(mNextStep));
+        }
+    }
+
+    /**
+     * Process the results of {@link Activity#onActivityResult(int, int, Intent)} for the
+     * {@link Intent} returned by {@link #createNextIntent(Context)}. On success, this batch advances
+     * to its next step; on failure, it remains at the current step.
+     * @param resultCode resultCode from {@code onActivityResult}
+     * @param result intent from {@code onActivityResult}
+     * @throws Wallet.ActionFailedException if the step failed, or returned an unexpected number of results
+     * @throws IllegalStateException if this batch is already complete
+     */
+    public void onResult(int resultCode, @Nullable Intent result) throws Wallet.ActionFailedException {
+        if (isComplete()) {
+            throw new IllegalStateException("WalletBatch is already complete");
+        }
+
+        if (mType == Type.REQUEST_PUBLIC_KEYS) {
+            final ArrayList<PublicKeyResponse> responses =
+                    Wallet.onRequestPublicKeysResult(resultCode, result);
+            if (responses.size() != mPublicKeySteps.get(mNextStep).size()) {
+                throw new Wallet.ActionFailedException("Expected " + mPublicKeySteps.get(mNextStep).size() +
+                        " public keys; received " + responses.size());
+            }
+            mPublicKeyResponses.addAll(responses);
+        } else {
+            final ArrayList<SigningResponse> responses = (mType == Type.SIGN_TRANSACTIONS)
+                    ? Wallet.onSignTransactionsResult(resultCode, result)
+                    : Wallet.onSignMessagesResult(resultCode, result);
+            final ArrayList<SigningRequest> step = mSigningSteps.get(mNextStep);
+            if (responses.size() != step.size()) {
+                throw new Wallet.ActionFailedException("Expected " + step.size() +
+                        " signing responses; received " + responses.size());
+            }
+            for (int i = 0; i < step.size(); i++) {
+                final int numSignatures = step.get(i).getRequestedSignatures().size();
+                if (responses.get(i).getSignatures().size() != numSignatures) {
+                    throw new Wallet.ActionFailedException("Expected " + numSignatures +
+                            " signatures for signing response " + i + "; received " +
+                            responses.get(i).getSignatures().size());
+                }
+            }
+
+            // Only record the responses once the whole step is known to be valid
+            final int[] origins = mSigningStepOrigins.get(mNextStep);
+            for (int i = 0; i < step.size(); i++) {
+                mSignatures.get(origins[i]).addAll(responses.get(i).getSignatures());
+                mResolvedDerivationPaths.get(origins[i]).addAll(
+                        responses.get(i).getResolvedDerivationPaths());
+            }
+        }
+
+        mNextStep++;
+    }
+
+    /**
+     * Get the reassembled responses for a signing batch
+     * @return a {@link List} of {@link SigningResponse}s, one per original {@link SigningRequest}
+     *      and in the same order. Each contains one signature per requested derivation path (with
+     *      each {@link DerivationPathRange} expanded in place).
+     * @throws IllegalStateException if this batch is not complete, or is not a signing batch
+     */
+    @NonNull
+    public ArrayList<SigningResponse> getSigningResponses() {
+        if (mType == Type.REQUEST_PUBLIC_KEYS) {
+            throw new IllegalStateException("Not a signing WalletBatch");
+        } else if (!isComplete()) {
+            throw new IllegalStateException("WalletBatch is not complete");
+        }
+
+        final ArrayList<SigningResponse> responses = new ArrayList<>(mSignatures.size());
+        for (int i = 0; i < mSignatures.size(); i++) {
+            responses.add(new SigningResponse(mSignatures.get(i), mResolvedDerivationPaths.get(i)));
+        }
+        return responses;
+    }
+
+    /**
+     * Get the reassembled responses for a public key batch
+     * @return a {@link List} of {@link PublicKeyResponse}s, one per requested derivation path (with
+     *      each {@link DerivationPathRange} expanded in place) and in the same order
+     * @throws IllegalStateException if this batch is not complete, or is not a public key batch
+     */
+    @NonNull
+    public ArrayList<PublicKeyResponse> getPublicKeyResponses() {
+        if (mType != Type.REQUEST_PUBLIC_KEYS) {
+            throw new IllegalStateException("Not a public key WalletBatch");
+        } else if (!isComplete()) {
+            throw new IllegalStateException("WalletBatch is not complete");
+        }
+        return new ArrayList<>(mPublicKeyResponses);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WalletBatch{" +
+                "mType=" + mType +
+                ", mAuthToken=" + mAuthToken +
+                ", mNextStep=" + mNextStep +
+                ", stepCount=" + getStepCount() +
+                '}';
+    }
+}
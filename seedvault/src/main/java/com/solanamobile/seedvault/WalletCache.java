@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2024 Solana Mobile Inc.
+ */
+
+package com.solanamobile.seedvault;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An opt-in, in-memory cache of the Seed Vault Wallet content provider tables most frequently read
+ * by wallets: authorized seeds, known accounts per auth token, unauthorized seed availability per
+ * purpose, and implementation limits per purpose. A single {@link ContentObserver} on
+ * {@link WalletContractV1#WALLET_PROVIDER_CONTENT_URI_BASE} invalidates only the entries affected
+ * by each change notification; all other reads are served from memory.
+ * <p>A {@link WalletCache} is thread-safe. It should be {@link #close()}d when no longer needed, to
+ * unregister its {@link ContentObserver}.</p>
+ */
+@RequiresApi(api = Build.VERSION_CODES.R) // library minSdk is 17
+public final class WalletCache implements AutoCloseable {
+    /** An immutable snapshot of the {@link WalletCache} hit and miss statistics */
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long invalidations;
+
+        Stats(long hits, long misses, long invalidations) {
+            this.hits = hits;
+            this.misses = misses;
+            this.invalidations = invalidations;
+        }
+
+        /** @return the fraction of reads served from memory, or 0 if there have been no reads */
+        public double hitRate() {
+            final long total = hits + misses;
+            return (total == 0) ? 0.0 : ((double)hits / total);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", invalidations=" + invalidations +
+                    '}';
+        }
+    }
+
+    @NonNull
+    private final Context mContext;
+
+    @NonNull
+    private final ContentObserver mObserver;
+
+    @Nullable
+    private volatile List<AuthorizedSeed> mAuthorizedSeeds;
+
+    @NonNull
+    private final Map<Long, List<Account>> mAccounts = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final Map<Integer, Boolean> mHasUnauthorizedSeeds = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final Map<Integer, ImplementationLimits> mImplementationLimits = new ConcurrentHashMap<>();
+
+    // Incremented on every change to a cached table. A query result is only stored if no such change
+    // occurred while it was in flight, so that a stale result can never overwrite an invalidation.
+    @NonNull
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    @NonNull
+    private final AtomicLong mHits = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong mMisses = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong mInvalidations = new AtomicLong();
+
+    /**
+     * Construct a new {@link WalletCache}, and start observing the Seed Vault Wallet content
+     * provider for changes
+     * @param context the {@link Context} in which to perform requests
+     */
+    public WalletCache(@NonNull Context context) {
+        mContext = context.getApplicationContext();
+        mObserver = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange, @NonNull Collection<Uri> uris, int flags) {
+                for (Uri uri : uris) {
+                    invalidate(uri, flags);
+                }
+            }
+        };
+        mContext.getContentResolver().registerContentObserver(
+                WalletContractV1.WALLET_PROVIDER_CONTENT_URI_BASE, true, mObserver);
+    }
+
+    /**
+     * Stop observing the Seed Vault Wallet content provider for changes, and clear all cached data
+     */
+    @Override
+    public void close() {
+        mContext.getContentResolver().unregisterContentObserver(mObserver);
+        invalidateAll();
+    }
+
+    /**
+     * Get the authorized seeds for the current app
+     * @return an immutable list of {@link AuthorizedSeed}s
+     * @throws UnsupportedOperationException if the authorized seeds could not be queried
+     */
+    @NonNull
+    public List<AuthorizedSeed> getAuthorizedSeeds() {
+        final List<AuthorizedSeed> cached = mAuthorizedSeeds;
+        if (cached != null) {
+            mHits.incrementAndGet();
+            return cached;
+        }
+        mMisses.incrementAndGet();
+
+        final int generation = mGeneration.get();
+        final List<AuthorizedSeed> authorizedSeeds = Wallet.getAuthorizedSeedList(mContext);
+        synchronized (this) {
+            if (mGeneration.get() == generation) {
+                mAuthorizedSeeds = authorizedSeeds;
+            }
+        }
+        return authorizedSeeds;
+    }
+
+    /**
+     * Get the known accounts for the specified auth token
+     * @param authToken the auth token for which to get known accounts
+     * @return an immutable list of {@link Account}s
+     * @throws IllegalArgumentException if auth token is not valid for this app
+     * @throws UnsupportedOperationException if the accounts could not be queried
+     */
+    @NonNull
+    public List<Account> getAccounts(@WalletContractV1.AuthToken long authToken) {
+        final List<Account> cached = mAccounts.get(authToken);
+        if (cached != null) {
+            mHits.incrementAndGet();
+            return cached;
+        }
+        mMisses.incrementAndGet();
+
+        final int generation = mGeneration.get();
+        final List<Account> accounts = Wallet.getAccountList(mContext, authToken);
+        synchronized (this) {
+            if (mGeneration.get() == generation) {
+                mAccounts.put(authToken, accounts);
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Test whether there are any unauthorized seeds with the specified purpose available for the
+     * current app
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose
+     * @return true if there are unauthorized seeds for purpose, else false
+     * @throws IllegalArgumentException if purpose is not a known {@code WalletContractV1.PURPOSE_*}
+     *      value
+     */
+    public boolean hasUnauthorizedSeedsForPurpose(@WalletContractV1.Purpose int purpose) {
+        final Boolean cached = mHasUnauthorizedSeeds.get(purpose);
+        if (cached != null) {
+            mHits.incrementAndGet();
+            return cached;
+        }
+        mMisses.incrementAndGet();
+
+        final int generation = mGeneration.get();
+        final boolean hasUnauthorizedSeeds = Wallet.hasUnauthorizedSeedsForPurpose(mContext, purpose);
+        synchronized (this) {
+            if (mGeneration.get() == generation) {
+                mHasUnauthorizedSeeds.put(purpose, hasUnauthorizedSeeds);
+            }
+        }
+        return hasUnauthorizedSeeds;
+    }
+
+    /**
+     * Get the implementation limits of the specified purpose for the Seed Vault implementation
+     * @param purpose the {@code WalletContractV1.PURPOSE_*} purpose
+     * @return the {@link ImplementationLimits} for purpose
+     * @throws UnsupportedOperationException if the implementation limits could not be queried
+     */
+    @NonNull
+    public ImplementationLimits getImplementationLimitsForPurpose(@WalletContractV1.Purpose int purpose) {
+        final ImplementationLimits cached = mImplementationLimits.get(purpose);
+        if (cached != null) {
+            mHits.incrementAndGet();
+            return cached;
+        }
+        mMisses.incrementAndGet();
+
+        final int generation = mGeneration.get();
+        final ImplementationLimits implementationLimits;
+        try (Cursor c = mContext.getContentResolver().query(
+                ContentUris.withAppendedId(WalletContractV1.IMPLEMENTATION_LIMITS_CONTENT_URI, purpose),
+                WalletContractV1.IMPLEMENTATION_LIMITS_ALL_COLUMNS,
+                null,
+                null)) {
+            if (c == null || !c.moveToNext()) {
+                throw new UnsupportedOperationException("Failed to get implementation limits");
+            }
+            implementationLimits = ImplementationLimits.fromCursor(c);
+        }
+        synchronized (this) {
+            if (mGeneration.get() == generation) {
+                mImplementationLimits.put(purpose, implementationLimits);
+            }
+        }
+        return implementationLimits;
+    }
+
+    /** @return a snapshot of the hit and miss statistics for this {@link WalletCache} */
+    @NonNull
+    public Stats getStats() {
+        return new Stats(mHits.get(), mMisses.get(), mInvalidations.get());
+    }
+
+    /** Discard all cached data; subsequent reads will query the Seed Vault */
+    public synchronized void invalidateAll() {
+        mGeneration.incrementAndGet();
+        mInvalidations.incrementAndGet();
+        mAuthorizedSeeds = null;
+        mAccounts.clear();
+        mHasUnauthorizedSeeds.clear();
+        mImplementationLimits.clear();
+    }
+
+    private synchronized void invalidate(@NonNull Uri uri, int flags) {
+        final List<String> segments = uri.getPathSegments();
+        if (segments.isEmpty()) {
+            invalidateAll();
+            return;
+        }
+
+        final String table = segments.get(0);
+        final long id = (segments.size() == 2) ? parseId(segments.get(1)) : -1;
+        boolean cleared = false;
+        switch (table) {
+            case WalletContractV1.AUTHORIZED_SEEDS_TABLE:
+                mGeneration.incrementAndGet();
+                cleared = (mAuthorizedSeeds != null);
+                mAuthorizedSeeds = null;
+                if (id == -1) {
+                    cleared |= !mAccounts.isEmpty();
+                    mAccounts.clear();
+                } else if ((flags & ContentResolver.NOTIFY_DELETE) != 0) {
+                    cleared |= (mAccounts.remove(id) != null);
+                }
+                break;
+            case WalletContractV1.UNAUTHORIZED_SEEDS_TABLE:
+                mGeneration.incrementAndGet();
+                cleared = !mHasUnauthorizedSeeds.isEmpty();
+                mHasUnauthorizedSeeds.clear();
+                break;
+            case WalletContractV1.ACCOUNTS_TABLE:
+                mGeneration.incrementAndGet();
+                if (id == -1 || (flags & ContentResolver.NOTIFY_INSERT) != 0) {
+                    // A new account could belong to any auth token
+                    cleared = !mAccounts.isEmpty();
+                    mAccounts.clear();
+                } else {
+                    // Account IDs are unique across auth tokens; drop whichever lists contain it
+                    cleared = mAccounts.values().removeIf(accounts -> containsAccount(accounts, id));
+                }
+                break;
+            case WalletContractV1.IMPLEMENTATION_LIMITS_TABLE:
+                mGeneration.incrementAndGet();
+                cleared = !mImplementationLimits.isEmpty();
+                mImplementationLimits.clear();
+                break;
+            default:
+                // Not a table cached by WalletCache (e.g. discovery progress notifications)
+                break;
+        }
+
+        // NOTE: the generation is still bumped for a change to a cached table with nothing cached,
+        // since a query for it may be in flight; only changes which dropped an entry are counted
+        if (cleared) {
+            mInvalidations.incrementAndGet();
+        }
+    }
+
+    private static long parseId(@NonNull String segment) {
+        try {
+            return Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean containsAccount(@NonNull List<Account> accounts, long id) {
+        for (Account account : accounts) {
+            if (account.getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
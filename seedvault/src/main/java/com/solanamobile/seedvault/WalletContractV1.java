@@ -100,6 +100,10 @@ public final class WalletContractV1 {
      * paths. These derivation paths should be {@link Uri}s with a scheme of either
      * {@link #BIP32_URI_SCHEME} or {@link #BIP44_URI_SCHEME}. The Intent should also contain an
      * {@link #EXTRA_AUTH_TOKEN} extra specifying the authorized seed with which to sign.
+     * <p>If the Seed Vault implementation reports {@link #FEATURE_SIGNING_REQUEST_BATCH}, the
+     * {@link SigningRequest}s may instead be provided in an {@link #EXTRA_SIGNING_REQUEST_BATCH}
+     * extra. If it reports {@link #FEATURE_SIGNING_PAYLOADS_URI}, the payloads may be provided
+     * out-of-band, via an {@link #EXTRA_SIGNING_PAYLOADS_URI} extra.</p>
      * <p>On {@link android.app.Activity#RESULT_OK}, the resulting Intent will contain an
      * {@link #EXTRA_SIGNING_RESPONSE} extra with {@link SigningResponse}s, one per
      * {@link SigningRequest}. Each {@link SigningResponse} contains the requested signatures.</p>
@@ -136,6 +140,10 @@ public final class WalletContractV1 {
      * paths. These derivation paths should be {@link Uri}s with a scheme of either
      * {@link #BIP32_URI_SCHEME} or {@link #BIP44_URI_SCHEME}. The Intent should also contain an
      * {@link #EXTRA_AUTH_TOKEN} extra specifying the authorized seed with which to sign.
+     * <p>If the Seed Vault implementation reports {@link #FEATURE_SIGNING_REQUEST_BATCH}, the
+     * {@link SigningRequest}s may instead be provided in an {@link #EXTRA_SIGNING_REQUEST_BATCH}
+     * extra. If it reports {@link #FEATURE_SIGNING_PAYLOADS_URI}, the payloads may be provided
+     * out-of-band, via an {@link #EXTRA_SIGNING_PAYLOADS_URI} extra.</p>
      * <p>On {@link android.app.Activity#RESULT_OK}, the resulting Intent will contain an
      * {@link #EXTRA_SIGNING_RESPONSE} extra with {@link SigningResponse}s, one per
      * {@link SigningRequest}. Each {@link SigningResponse} contains the requested signatures.</p>
@@ -320,6 +328,42 @@ public final class WalletContractV1 {
      */
     public static final String EXTRA_SIGNING_REQUEST = "SigningRequest";
 
+    /**
+     * A {@link SigningRequestBatch} for {@link #ACTION_SIGN_TRANSACTION} or
+     * {@link #ACTION_SIGN_MESSAGE}, as a compact alternative to {@link #EXTRA_SIGNING_REQUEST}.
+     * Only supported by Seed Vault implementations which report
+     * {@link #FEATURE_SIGNING_REQUEST_BATCH}; if present, {@link #EXTRA_SIGNING_REQUEST} is ignored.
+     * <p>Type: {@link SigningRequestBatch}</p>
+     */
+    public static final String EXTRA_SIGNING_REQUEST_BATCH = "SigningRequestBatch";
+
+    /**
+     * A {@code content://} Uri from which the payloads for {@link #ACTION_SIGN_TRANSACTION} or
+     * {@link #ACTION_SIGN_MESSAGE} can be read, served by a content provider in the requesting app.
+     * The Intent grants read permission for this Uri (via its {@link android.content.ClipData}).
+     * When present, the {@link SigningRequest}s in {@link #EXTRA_SIGNING_REQUEST} or
+     * {@link #EXTRA_SIGNING_REQUEST_BATCH} have empty payloads, and the payload for the i'th
+     * {@link SigningRequest} is the {@link #EXTRA_SIGNING_PAYLOAD_LENGTHS}[i] bytes at
+     * {@link #EXTRA_SIGNING_PAYLOAD_OFFSETS}[i] in the stream read from this Uri. Only supported by
+     * Seed Vault implementations which report {@link #FEATURE_SIGNING_PAYLOADS_URI}.
+     * <p>Type: {@link android.net.Uri}</p>
+     */
+    public static final String EXTRA_SIGNING_PAYLOADS_URI = "SigningPayloadsUri";
+
+    /**
+     * The offset of each payload in the stream read from {@link #EXTRA_SIGNING_PAYLOADS_URI}, one
+     * per {@link SigningRequest}
+     * <p>Type: {@code int[]}</p>
+     */
+    public static final String EXTRA_SIGNING_PAYLOAD_OFFSETS = "SigningPayloadOffsets";
+
+    /**
+     * The length of each payload in the stream read from {@link #EXTRA_SIGNING_PAYLOADS_URI}, one
+     * per {@link SigningRequest}
+     * <p>Type: {@code int[]}</p>
+     */
+    public static final String EXTRA_SIGNING_PAYLOAD_LENGTHS = "SigningPayloadLengths";
+
     /**
      * A set of {@link SigningResponse}s for response to {@link #ACTION_SIGN_TRANSACTION}
      * <p>Type: {@link java.util.ArrayList}{@code <}{@link SigningResponse}{@code >}</p>
@@ -369,6 +413,41 @@ public final class WalletContractV1 {
      */
     public static final String BIP_URI_HARDENED_INDEX_IDENTIFIER = "'";
 
+    /**
+     * Query parameter which turns a {@link #BIP32_URI_SCHEME} or {@link #BIP44_URI_SCHEME} derivation
+     * Uri into a derivation path range. Its value is the (0-based) position of the variable level in
+     * the derivation path, not counting {@link #BIP32_URI_MASTER_KEY_INDICATOR}. The range denotes
+     * {@link #BIP_URI_RANGE_COUNT_PARAMETER} derivation paths, in which the index of the variable
+     * level takes the values {@code start + i * stride}, where {@code start} is the index of that
+     * level in the Uri, {@code stride} is {@link #BIP_URI_RANGE_STRIDE_PARAMETER}, and {@code i} is
+     * in the range [0, count). The hardened-ness of the variable level is preserved. For e.g.,
+     * {@code bip32:/m/44'/501'/10'?rangeLevel=2&rangeCount=3&rangeStride=5} denotes
+     * {@code bip32:/m/44'/501'/10'}, {@code bip32:/m/44'/501'/15'} and
+     * {@code bip32:/m/44'/501'/20'}.
+     * <p>A derivation path range may be used wherever a derivation path is accepted by
+     * {@link #ACTION_GET_PUBLIC_KEY}, {@link #ACTION_SIGN_TRANSACTION} and
+     * {@link #ACTION_SIGN_MESSAGE}, when the Seed Vault implementation reports
+     * {@link #FEATURE_DERIVATION_PATH_RANGES} in {@link #IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES}.
+     * It is treated exactly as if each derivation path it denotes had been provided individually
+     * and in order, including for the purpose of implementation limits.</p>
+     *
+     * @see DerivationPathRange
+     */
+    public static final String BIP_URI_RANGE_LEVEL_PARAMETER = "rangeLevel";
+
+    /**
+     * The number of derivation paths (at least 1) denoted by a derivation path range. See
+     * {@link #BIP_URI_RANGE_LEVEL_PARAMETER}.
+     */
+    public static final String BIP_URI_RANGE_COUNT_PARAMETER = "rangeCount";
+
+    /**
+     * The step (at least 1) between successive indices of the variable level of a derivation path
+     * range. This parameter is optional, and defaults to 1. See
+     * {@link #BIP_URI_RANGE_LEVEL_PARAMETER}.
+     */
+    public static final String BIP_URI_RANGE_STRIDE_PARAMETER = "rangeStride";
+
     /**
      * A <a href="https://github.com/bitcoin/bips/blob/master/bip-0044.mediawiki">BIP44</a> account
      * index for a permissioned account. These accounts are used by apps holding the
@@ -524,11 +603,36 @@ public final class WalletContractV1 {
     /** Type: {@code short} */
     public static final String IMPLEMENTATION_LIMITS_MAX_REQUESTED_PUBLIC_KEYS = "MaxRequestedPublicKeys";
 
+    /**
+     * Type: {@code int} (a bitmask of {@code FEATURE_*} constants). Seed Vault implementations which
+     * predate this column do not report it; treat its absence as 0.
+     */
+    public static final String IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES = "SupportedFeatures";
+
     /** All columns for the Wallet content provider implementation limits table */
     public static final String[] IMPLEMENTATION_LIMITS_ALL_COLUMNS = {
             IMPLEMENTATION_LIMITS_AUTH_PURPOSE, IMPLEMENTATION_LIMITS_MAX_SIGNING_REQUESTS,
             IMPLEMENTATION_LIMITS_MAX_REQUESTED_SIGNATURES,
-            IMPLEMENTATION_LIMITS_MAX_REQUESTED_PUBLIC_KEYS};
+            IMPLEMENTATION_LIMITS_MAX_REQUESTED_PUBLIC_KEYS,
+            IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES};
+
+    /**
+     * {@link #IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES} flag indicating that the Seed Vault
+     * implementation accepts derivation path ranges (see {@link #BIP_URI_RANGE_LEVEL_PARAMETER})
+     */
+    public static final int FEATURE_DERIVATION_PATH_RANGES = 1;
+
+    /**
+     * {@link #IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES} flag indicating that the Seed Vault
+     * implementation accepts {@link #EXTRA_SIGNING_REQUEST_BATCH}
+     */
+    public static final int FEATURE_SIGNING_REQUEST_BATCH = 1 << 1;
+
+    /**
+     * {@link #IMPLEMENTATION_LIMITS_SUPPORTED_FEATURES} flag indicating that the Seed Vault
+     * implementation accepts {@link #EXTRA_SIGNING_PAYLOADS_URI}
+     */
+    public static final int FEATURE_SIGNING_PAYLOADS_URI = 1 << 2;
 
     /**
      * Wallet content provider method to resolve a {@link #BIP32_URI_SCHEME} or